@@ -1,10 +1,13 @@
 package idv.ex.cs.hogwartsartifactsonline;
 
 import idv.ex.cs.hogwartsartifactsonline.artifact.utils.IdWorker;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
 
+import java.time.Duration;
+
 @SpringBootApplication
 public class HogwartsArtifactOnlineApplication {
 
@@ -13,7 +16,7 @@ public class HogwartsArtifactOnlineApplication {
 	}
 
 	@Bean
-	public IdWorker idWorker() {
-		return new IdWorker(1, 1);
+	public IdWorker idWorker(@Value("${api.artifacts.ids.max-clock-drift:0ms}") Duration maxClockDrift) {
+		return new IdWorker(maxClockDrift.toMillis()); // Its node id is leased by WorkerLeaseManager
 	}
 }
@@ -1,30 +1,80 @@
 package idv.ex.cs.hogwartsartifactsonline.artifact;
 
+import idv.ex.cs.hogwartsartifactsonline.system.CompressedTextConverter;
 import idv.ex.cs.hogwartsartifactsonline.wizard.Wizard;
+import jakarta.persistence.Basic;
+import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Lob;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import jakarta.persistence.Version;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 
 import java.io.Serializable;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_artifact_owner_id", columnList = "owner_id, id"), // ArtifactFilter.ownerId and unowned, in keyset order
+        @Index(name = "idx_artifact_name", columnList = "name") // ArtifactFilter.namePrefix and sorting by name
+})
 public class Artifact implements Serializable {
 
+    public static final int SUMMARY_LENGTH = 200;
+
+    // The API keeps the id a string, the column is a BIGINT: 8 bytes in the primary key instead of a 19 character
+    // VARCHAR, compared as a number. Only ids passing isValidId can be stored.
     @Id
+    @JdbcTypeCode(SqlTypes.BIGINT)
     private String id;
 
     private String name;
 
+    // Loaded only when read, so list and ownership queries do not carry it. Long descriptions are stored deflated.
+    // Lazy loading of a basic attribute needs the bytecode enhancement configured in the pom.
+    @Lob
+    @Basic(fetch = FetchType.LAZY)
+    @Convert(converter = CompressedTextConverter.class)
     private String description;
 
+    // The start of the description, what list views show instead of the whole text. Maintained by setDescription.
+    @Column(length = SUMMARY_LENGTH)
+    private String descriptionSummary;
+
     private String imageUrl;
 
     @ManyToOne
     private Wizard owner;
 
+    @Version
+    private Long version; // Optimistic locking, also the source of the artifact's ETag
+
     public Artifact() {
     }
 
+    /**
+     * Tells whether the id is the canonical decimal form of a long, i.e., whether an artifact can have it. A
+     * non-canonical form like "007" would load artifact 7 under a second id.
+     *
+     * @param id
+     * @return
+     */
+    public static boolean isValidId(String id) {
+        if (id == null || id.isEmpty() || id.length() > 20) {
+            return false;
+        }
+        try {
+            return Long.toString(Long.parseLong(id)).equals(id);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
     public String getId() {
         return id;
     }
@@ -45,8 +95,30 @@ public class Artifact implements Serializable {
         return description;
     }
 
+    public String getDescriptionSummary() {
+        return descriptionSummary;
+    }
+
     public void setDescription(String description) {
         this.description = description;
+        this.descriptionSummary = summarize(description);
+    }
+
+    /**
+     * Cuts the description to SUMMARY_LENGTH characters, ending with an ellipsis if anything was cut.
+     *
+     * @param description
+     * @return
+     */
+    public static String summarize(String description) {
+        if (description == null || description.length() <= SUMMARY_LENGTH) {
+            return description;
+        }
+        int end = SUMMARY_LENGTH - 1;
+        if (Character.isHighSurrogate(description.charAt(end - 1))) {
+            end--; // Do not split a character outside the BMP
+        }
+        return description.substring(0, end) + "\u2026";
     }
 
     public String getImageUrl() {
@@ -65,4 +137,12 @@ public class Artifact implements Serializable {
         this.owner = owner;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
 }
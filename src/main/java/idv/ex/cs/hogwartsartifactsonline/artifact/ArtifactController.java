@@ -2,14 +2,42 @@ package idv.ex.cs.hogwartsartifactsonline.artifact;
 
 import idv.ex.cs.hogwartsartifactsonline.artifact.converter.ArtifactDtoToArtifactConverter;
 import idv.ex.cs.hogwartsartifactsonline.artifact.converter.ArtifactToArtifactDtoConverter;
+import idv.ex.cs.hogwartsartifactsonline.artifact.dto.ArtifactBatchItemResult;
 import idv.ex.cs.hogwartsartifactsonline.artifact.dto.ArtifactDto;
+import idv.ex.cs.hogwartsartifactsonline.artifact.dto.ArtifactSearchHit;
+import idv.ex.cs.hogwartsartifactsonline.artifact.search.ArtifactSearchIndex;
+import idv.ex.cs.hogwartsartifactsonline.system.IfMatch;
+import idv.ex.cs.hogwartsartifactsonline.system.KeysetCursor;
 import idv.ex.cs.hogwartsartifactsonline.system.Result;
 import idv.ex.cs.hogwartsartifactsonline.system.StatusCode;
+import idv.ex.cs.hogwartsartifactsonline.system.WriteCounter;
+import idv.ex.cs.hogwartsartifactsonline.system.exception.InvalidArgumentException;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.ConstraintViolation;
 import jakarta.validation.Valid;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Set;
 
 @RestController
 @RequestMapping("${api.endpoint.base-url}/artifacts")
@@ -21,27 +49,162 @@ public class ArtifactController {
 
     private final ArtifactDtoToArtifactConverter artifactDtoToArtifactConverter;
 
-    public ArtifactController(ArtifactService artifactService, ArtifactToArtifactDtoConverter artifactToArtifactDtoConverter, ArtifactDtoToArtifactConverter artifactDtoToArtifactConverter) {
+    private final ArtifactSearchIndex artifactSearchIndex;
+
+    private final ArtifactDtoCache artifactDtoCache;
+
+    private final WriteCounter writeCounter;
+
+    private final ObjectMapper objectMapper;
+
+    private final Validator validator;
+
+    private static final Set<String> sortableProperties = Set.of("id", "name");
+
+    private static final Set<String> patchableFields = Set.of("name", "description", "imageUrl");
+
+    private static final int exportFlushInterval = 100; // Artifacts written between two flushes of the export stream
+
+    private final int defaultPageSize;
+
+    private final int maxPageSize;
+
+    private final int maxBatchSize;
+
+    public ArtifactController(ArtifactService artifactService, ArtifactToArtifactDtoConverter artifactToArtifactDtoConverter, ArtifactDtoToArtifactConverter artifactDtoToArtifactConverter,
+                              ArtifactSearchIndex artifactSearchIndex, ArtifactDtoCache artifactDtoCache, WriteCounter writeCounter, ObjectMapper objectMapper, Validator validator,
+                              @Value("${api.artifacts.page.default-size:20}") int defaultPageSize,
+                              @Value("${api.artifacts.page.max-size:100}") int maxPageSize,
+                              @Value("${api.artifacts.batch.max-size:10000}") int maxBatchSize) {
         this.artifactService = artifactService;
         this.artifactToArtifactDtoConverter = artifactToArtifactDtoConverter;
         this.artifactDtoToArtifactConverter = artifactDtoToArtifactConverter;
+        this.artifactSearchIndex = artifactSearchIndex;
+        this.artifactDtoCache = artifactDtoCache;
+        this.writeCounter = writeCounter;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
+        this.maxBatchSize = maxBatchSize;
     }
 
+    /**
+     * Finds one artifact. The ETag is computed from the versions of the artifact and its owner, which are cached
+     * with the ArtifactDto, so a cached artifact is answered without any statement, with 304 Not Modified for a
+     * matching If-None-Match.
+     *
+     * @param artifactId
+     * @param webRequest
+     * @return
+     */
     @GetMapping("/{artifactId}")
-    public Result findArtifactById(@PathVariable String artifactId) {
-        Artifact foundArtifact = this.artifactService.findById(artifactId);
-        ArtifactDto artifactDto = artifactToArtifactDtoConverter.convert(foundArtifact);
-        return new Result(true, StatusCode.SUCCESS, "Find One Success", artifactDto);
+    public Result findArtifactById(@PathVariable String artifactId, WebRequest webRequest) {
+        VersionedArtifactDto versionedArtifactDto = this.artifactDtoCache.get(artifactId, this.artifactService::findVersionedDtoById);
+        if (webRequest.checkNotModified(versionedArtifactDto.version().toEtag())) {
+            return null;
+        }
+        return new Result(true, StatusCode.SUCCESS, "Find One Success", versionedArtifactDto.artifactDto());
     }
 
+    /**
+     * Returns one page of artifacts. The client follows the "next" cursor of the response to get the next page,
+     * a response without "next" is the last page. The filters must be repeated along with the cursor.
+     *
+     * @param cursor     the "next" cursor of the previous response, omitted for the first page
+     * @param size       the page size, defaults to api.artifacts.page.default-size
+     * @param sort       comma separated sort properties, a leading "-" means descending, e.g., "-name,id"
+     * @param ownerId    only artifacts of this wizard
+     * @param namePrefix only artifacts whose name starts with this, case-sensitive
+     * @param unowned    true for only unassigned artifacts, false for only assigned ones
+     * @param summary    true to get the first Artifact.SUMMARY_LENGTH characters of each description only
+     * @return
+     */
     @GetMapping
-    public Result findAllArtifacts() {
-        List<Artifact> foundArtifacts = this.artifactService.findAll();
-        //Convert foundArtifacts to a list of artifactDtos
-        List<ArtifactDto> artifactDtos = foundArtifacts.stream()
-                .map(this.artifactToArtifactDtoConverter::convert)
-                .collect(Collectors.toList());
-        return new Result(true, StatusCode.SUCCESS, "Find All Success", artifactDtos);
+    public Result findAllArtifacts(@RequestParam(required = false) String cursor,
+                                   @RequestParam(required = false) Integer size,
+                                   @RequestParam(defaultValue = "id") List<String> sort,
+                                   @RequestParam(required = false) Integer ownerId,
+                                   @RequestParam(required = false) String namePrefix,
+                                   @RequestParam(required = false) Boolean unowned,
+                                   @RequestParam(defaultValue = "false") boolean summary,
+                                   WebRequest webRequest) {
+        int pageSize = resolvePageSize(size);
+        Sort pageSort = parseSort(sort);
+        if (ownerId != null && Boolean.TRUE.equals(unowned)) {
+            throw new InvalidArgumentException("ownerId and unowned=true cannot be combined.");
+        }
+        if (namePrefix != null && namePrefix.isEmpty()) {
+            throw new InvalidArgumentException("namePrefix must not be empty.");
+        }
+        ArtifactFilter filter = new ArtifactFilter(ownerId, namePrefix, unowned);
+        if (webRequest.checkNotModified(this.writeCounter.etag())) {
+            return null;
+        }
+        Set<String> cursorKeys = new LinkedHashSet<>();
+        pageSort.forEach(order -> cursorKeys.add(order.getProperty()));
+        cursorKeys.add("id");
+
+        KeysetScrollPosition position = KeysetCursor.decode(cursor, cursorKeys);
+        if (!position.isInitial() && !Artifact.isValidId(String.valueOf(position.getKeys().get("id")))) {
+            throw new InvalidArgumentException("Provided cursor is invalid.");
+        }
+        Window<ArtifactDto> foundArtifacts = this.artifactService.findAll(filter, position, pageSort, pageSize, summary);
+        List<ArtifactDto> artifactDtos = foundArtifacts.getContent();
+        String next = foundArtifacts.hasNext() && !foundArtifacts.isEmpty()
+                ? KeysetCursor.encode(foundArtifacts.positionAt(foundArtifacts.size() - 1))
+                : null;
+        return new Result(true, StatusCode.SUCCESS, "Find All Success", artifactDtos, next);
+    }
+
+    /**
+     * Full-text search over artifact names and descriptions, served from the in-memory index without a database
+     * query. The hits carry id, name and score, the client fetches the details it needs by id.
+     *
+     * @param q    the search terms
+     * @param size the maximum number of hits
+     * @return
+     */
+    @GetMapping("/search")
+    public Result searchArtifacts(@RequestParam String q, @RequestParam(required = false) Integer size) {
+        int limit = resolvePageSize(size);
+        if (q.isBlank()) {
+            throw new InvalidArgumentException("q is required.");
+        }
+        List<ArtifactSearchHit> hits = this.artifactSearchIndex.search(q, limit);
+        return new Result(true, StatusCode.SUCCESS, "Search Success", hits);
+    }
+
+    /**
+     * Exports the whole catalog as newline delimited JSON, one ArtifactDto per line. Artifacts are written while
+     * they are read from the database, so the response starts before the last row is read.
+     *
+     * @return
+     */
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportArtifactsAsNdjson() {
+        StreamingResponseBody body = outputStream -> exportArtifacts(outputStream, artifactDto -> {
+            outputStream.write(this.objectMapper.writeValueAsBytes(artifactDto));
+            outputStream.write('\n');
+        });
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    /**
+     * Exports the whole catalog as one JSON array of ArtifactDtos, streamed the same way as the NDJSON export.
+     *
+     * @return
+     */
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportArtifactsAsJsonArray() {
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = this.objectMapper.getFactory().createGenerator(outputStream)) {
+                generator.writeStartArray();
+                exportArtifacts(generator, generator::writeObject);
+                generator.writeEndArray();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
     }
 
     @PostMapping
@@ -52,18 +215,146 @@ public class ArtifactController {
         return new Result(true, StatusCode.SUCCESS, "Add Success", savedArtifactDto);
     }
 
+    /**
+     * Adds many artifacts in one request. Every item is validated on its own, invalid items are reported and
+     * the valid ones are still saved. The data holds one result per item, in request order.
+     *
+     * @param artifactDtos
+     * @return
+     */
+    @PostMapping("/batch")
+    public Result addArtifacts(@RequestBody List<ArtifactDto> artifactDtos) {
+        if (artifactDtos.size() > this.maxBatchSize) {
+            throw new InvalidArgumentException("A batch can contain at most " + this.maxBatchSize + " artifacts.");
+        }
+        ArtifactBatchItemResult[] results = new ArtifactBatchItemResult[artifactDtos.size()];
+        List<Artifact> newArtifacts = new ArrayList<>(artifactDtos.size());
+        List<Integer> newArtifactIndexes = new ArrayList<>(artifactDtos.size());
+        for (int i = 0; i < artifactDtos.size(); i++) {
+            Set<ConstraintViolation<ArtifactDto>> violations = this.validator.validate(artifactDtos.get(i));
+            if (violations.isEmpty()) {
+                newArtifacts.add(this.artifactDtoToArtifactConverter.convert(artifactDtos.get(i)));
+                newArtifactIndexes.add(i);
+            } else {
+                Map<String, String> errors = new HashMap<>(violations.size());
+                violations.forEach(violation -> errors.put(violation.getPropertyPath().toString(), violation.getMessage()));
+                results[i] = ArtifactBatchItemResult.failure(i, errors);
+            }
+        }
+        Map<Integer, String> failures = this.artifactService.saveAll(newArtifacts);
+        for (int j = 0; j < newArtifacts.size(); j++) {
+            int i = newArtifactIndexes.get(j);
+            results[i] = failures.containsKey(j)
+                    ? ArtifactBatchItemResult.failure(i, Map.of("artifact", failures.get(j)))
+                    : ArtifactBatchItemResult.success(i, newArtifacts.get(j).getId());
+        }
+        return new Result(true, StatusCode.SUCCESS, "Batch Add Success", List.of(results));
+    }
+
+    /**
+     * Updates the artifact. With an If-Match header holding the artifact's ETag, the update only succeeds if
+     * nobody else has updated the artifact since, otherwise it fails with 412 Precondition Failed.
+     *
+     * @param artifactId
+     * @param artifactDto
+     * @param ifMatch
+     * @param response
+     * @return
+     */
     @PutMapping("/{artifactId}")
-    public Result updateArtifact(@PathVariable String artifactId, @Valid @RequestBody ArtifactDto artifactDto) {
+    public Result updateArtifact(@PathVariable String artifactId, @Valid @RequestBody ArtifactDto artifactDto,
+                                 @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                 HttpServletResponse response) {
         Artifact update = artifactDtoToArtifactConverter.convert(artifactDto);
-        Artifact updatedArtifact = this.artifactService.update(artifactId, update);
+        Artifact updatedArtifact = this.artifactService.update(artifactId, update, IfMatch.expectedVersion(ifMatch));
+        if (updatedArtifact.getVersion() != null) {
+            response.setHeader(HttpHeaders.ETAG, ArtifactVersion.of(updatedArtifact).toEtag());
+        }
         ArtifactDto updatedArtifactDto = this.artifactToArtifactDtoConverter.convert(updatedArtifact);
         return new Result(true, StatusCode.SUCCESS, "Update Success", updatedArtifactDto);
     }
 
+    /**
+     * Changes some fields of the artifact with JSON Merge Patch (RFC 7396) semantics: fields in the patch are set,
+     * absent fields are left alone. None of the patchable fields is optional, so a null value is rejected instead
+     * of removing the field. The update is one UPDATE statement, the response therefore carries no data.
+     *
+     * @param artifactId
+     * @param patch      e.g., {"imageUrl": "..."}
+     * @param ifMatch
+     * @return
+     */
+    @PatchMapping(value = "/{artifactId}", consumes = {"application/merge-patch+json", MediaType.APPLICATION_JSON_VALUE})
+    public Result patchArtifact(@PathVariable String artifactId, @RequestBody Map<String, Object> patch,
+                                @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        if (patch.isEmpty()) {
+            throw new InvalidArgumentException("Provided patch changes nothing.");
+        }
+        Map<String, String> changes = new HashMap<>();
+        patch.forEach((field, value) -> {
+            if (!patchableFields.contains(field)) {
+                throw new InvalidArgumentException("Cannot patch artifact field " + field + ".");
+            }
+            if (!(value instanceof String text) || text.isEmpty()) {
+                throw new InvalidArgumentException(field + " is required.");
+            }
+            changes.put(field, text);
+        });
+        this.artifactService.patch(artifactId, changes, IfMatch.expectedVersion(ifMatch));
+        return new Result(true, StatusCode.SUCCESS, "Patch Success");
+    }
+
     @DeleteMapping("/{artifactId}")
     public Result deleteArtifact(@PathVariable String artifactId) {
         artifactService.delete(artifactId);
         return new Result(true, StatusCode.SUCCESS, "Delete Success");
     }
 
+    private int resolvePageSize(Integer size) {
+        int pageSize = size == null ? this.defaultPageSize : size;
+        if (pageSize < 1 || pageSize > this.maxPageSize) {
+            throw new InvalidArgumentException("size must be between 1 and " + this.maxPageSize + ".");
+        }
+        return pageSize;
+    }
+
+    private Sort parseSort(List<String> sortKeys) {
+        List<Sort.Order> orders = new ArrayList<>();
+        Set<String> seen = new LinkedHashSet<>();
+        for (String key : sortKeys) {
+            boolean descending = key.startsWith("-");
+            String property = descending ? key.substring(1) : key;
+            if (!sortableProperties.contains(property) || !seen.add(property)) {
+                throw new InvalidArgumentException("Cannot sort artifacts by " + key + ".");
+            }
+            orders.add(descending ? Sort.Order.desc(property) : Sort.Order.asc(property));
+        }
+        return Sort.by(orders);
+    }
+
+    private interface ArtifactDtoWriter {
+
+        void write(ArtifactDto artifactDto) throws IOException;
+
+    }
+
+    private void exportArtifacts(Flushable flushable, ArtifactDtoWriter writer) throws IOException {
+        int[] written = {0};
+        try {
+            this.artifactService.forEachArtifactDto(artifactDto -> {
+                try {
+                    writer.write(artifactDto);
+                    // Flush the first artifact right away so that the client sees the first byte early.
+                    if (written[0]++ % exportFlushInterval == 0) {
+                        flushable.flush();
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
 }
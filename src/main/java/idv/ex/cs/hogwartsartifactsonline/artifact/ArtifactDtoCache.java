@@ -0,0 +1,111 @@
+package idv.ex.cs.hogwartsartifactsonline.artifact;
+
+import idv.ex.cs.hogwartsartifactsonline.artifact.dto.ArtifactDto;
+import idv.ex.cs.hogwartsartifactsonline.system.cache.CacheStats;
+import idv.ex.cs.hogwartsartifactsonline.system.cache.TinyLfuCache;
+import idv.ex.cs.hogwartsartifactsonline.system.stats.StatsSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Caches fully converted ArtifactDtos by artifact id for GET /artifacts/{id}, each with the versions of its ETag.
+ * An ArtifactDto embeds its owner's name and number of artifacts, so the cache also remembers which cached
+ * artifacts belong to which wizard. That lets the services invalidate exactly the entries a wizard change affects.
+ */
+@Component
+public class ArtifactDtoCache implements StatsSource {
+
+    private final TinyLfuCache<String, VersionedArtifactDto> cache;
+
+    private final Map<Integer, Set<String>> artifactIdsByOwnerId = new ConcurrentHashMap<>();
+
+    public ArtifactDtoCache(@Value("${api.artifacts.cache.maximum-size:64MB}") DataSize maximumSize) {
+        long maximumWeight = maximumSize.toBytes();
+        this.cache = new TinyLfuCache<>(maximumWeight, (int) Math.min(Integer.MAX_VALUE, maximumWeight / 512),
+                ArtifactDtoCache::weigh, new TinyLfuCache.Listener<>() {
+                    @Override
+                    public void onInsert(String artifactId, VersionedArtifactDto versionedArtifactDto) {
+                        ArtifactDto artifactDto = versionedArtifactDto.artifactDto();
+                        if (artifactDto.owner() != null) {
+                            artifactIdsByOwnerId.computeIfAbsent(artifactDto.owner().id(), ownerId -> ConcurrentHashMap.newKeySet())
+                                    .add(artifactId);
+                        }
+                    }
+
+                    @Override
+                    public void onRemoval(String artifactId, VersionedArtifactDto versionedArtifactDto) {
+                        ArtifactDto artifactDto = versionedArtifactDto.artifactDto();
+                        if (artifactDto.owner() != null) {
+                            artifactIdsByOwnerId.computeIfPresent(artifactDto.owner().id(), (ownerId, artifactIds) -> {
+                                artifactIds.remove(artifactId);
+                                return artifactIds.isEmpty() ? null : artifactIds;
+                            });
+                        }
+                    }
+                });
+    }
+
+    public VersionedArtifactDto get(String artifactId, Function<String, VersionedArtifactDto> loader) {
+        return this.cache.get(artifactId, loader);
+    }
+
+    public void invalidate(String artifactId) {
+        this.cache.invalidate(artifactId);
+    }
+
+    /**
+     * Invalidates every cached artifact owned by the given wizard, e.g., after its name or number of artifacts changed.
+     *
+     * @param wizardId
+     */
+    public void invalidateOwner(Integer wizardId) {
+        Set<String> artifactIds = this.artifactIdsByOwnerId.getOrDefault(wizardId, Set.of());
+        this.cache.invalidateAll(List.copyOf(artifactIds));
+    }
+
+    public void invalidateAll() {
+        this.cache.invalidateAll();
+    }
+
+    public CacheStats stats() {
+        return this.cache.stats();
+    }
+
+    @Override
+    public String getStatsName() {
+        return "artifactDtoCache";
+    }
+
+    @Override
+    public Object getStats() {
+        return stats();
+    }
+
+    /**
+     * Roughly estimates the heap footprint of a cached ArtifactDto and its versions in bytes.
+     *
+     * @param versionedArtifactDto
+     * @return
+     */
+    static int weigh(VersionedArtifactDto versionedArtifactDto) {
+        ArtifactDto artifactDto = versionedArtifactDto.artifactDto();
+        int weight = 224 + 2 * (length(artifactDto.id()) + length(artifactDto.name())
+                + length(artifactDto.description()) + length(artifactDto.imageUrl()));
+        if (artifactDto.owner() != null) {
+            weight += 80 + 2 * length(artifactDto.owner().name());
+        }
+        return weight;
+    }
+
+    private static int length(String value) {
+        return value == null ? 0 : value.length();
+    }
+
+}
@@ -0,0 +1,27 @@
+package idv.ex.cs.hogwartsartifactsonline.artifact;
+
+import idv.ex.cs.hogwartsartifactsonline.artifact.dto.ArtifactDto;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Keyset-paginated ArtifactDto projections, implemented by ArtifactDtoRepositoryImpl with the Criteria API
+ * because Spring Data cannot scroll constructor projections.
+ */
+public interface ArtifactDtoRepository {
+
+    /**
+     * Finds one page of ArtifactDtos in a single statement.
+     *
+     * @param filter   which artifacts to find, e.g., an ArtifactFilter
+     * @param position where the previous page ended, {@code ScrollPosition.keyset()} for the first page
+     * @param sort     a total order, i.e., ending with the id, on properties of ArtifactDto
+     * @param limit    the maximum number of ArtifactDtos in the page
+     * @param summary  true to read the description summaries instead of the descriptions
+     * @return
+     */
+    Window<ArtifactDto> findDtos(Specification<Artifact> filter, KeysetScrollPosition position, Sort sort, int limit, boolean summary);
+
+}
@@ -0,0 +1,101 @@
+package idv.ex.cs.hogwartsartifactsonline.artifact;
+
+import idv.ex.cs.hogwartsartifactsonline.artifact.dto.ArtifactDto;
+import idv.ex.cs.hogwartsartifactsonline.wizard.Wizard;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+class ArtifactDtoRepositoryImpl implements ArtifactDtoRepository {
+
+    // The ArtifactDto accessors of the properties a page can be sorted by, all of them strings.
+    private static final Map<String, Function<ArtifactDto, String>> sortKeys = Map.of(
+            "id", ArtifactDto::id,
+            "name", ArtifactDto::name);
+
+    private final EntityManager entityManager;
+
+    ArtifactDtoRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public Window<ArtifactDto> findDtos(Specification<Artifact> filter, KeysetScrollPosition position, Sort sort, int limit, boolean summary) {
+        for (Sort.Order order : sort) {
+            if (!sortKeys.containsKey(order.getProperty())) {
+                throw new IllegalArgumentException("Cannot scroll ArtifactDtos by " + order.getProperty());
+            }
+        }
+        CriteriaBuilder cb = this.entityManager.getCriteriaBuilder();
+        CriteriaQuery<ArtifactDto> query = cb.createQuery(ArtifactDto.class);
+        Root<Artifact> artifact = query.from(Artifact.class);
+        Join<Artifact, Wizard> owner = artifact.join("owner", JoinType.LEFT);
+
+        // Same projection as ArtifactRepository.DTO_PROJECTION
+        query.select(cb.construct(ArtifactDto.class,
+                artifact.get("id"), artifact.get("name"), artifact.get(summary ? "descriptionSummary" : "description"), artifact.get("imageUrl"),
+                owner.get("id"), owner.get("name"), owner.get("artifactCount")));
+
+        List<Predicate> predicates = new ArrayList<>();
+        Predicate filterPredicate = filter.toPredicate(artifact, query, cb);
+        if (filterPredicate != null) {
+            predicates.add(filterPredicate);
+        }
+        if (!position.isInitial()) {
+            predicates.add(seekPast(cb, artifact, sort, position.getKeys()));
+        }
+        query.where(predicates.toArray(Predicate[]::new));
+        query.orderBy(QueryUtils.toOrders(sort, artifact, cb));
+
+        // One extra row tells whether there is a next page.
+        List<ArtifactDto> rows = this.entityManager.createQuery(query).setMaxResults(limit + 1).getResultList();
+        boolean hasNext = rows.size() > limit;
+        List<ArtifactDto> page = hasNext ? rows.subList(0, limit) : rows;
+        return Window.from(page, index -> positionAt(page.get(index), sort), hasNext);
+    }
+
+    /**
+     * For the order (k1, k2, ..., id) this is (k1 after v1) or (k1 = v1 and k2 after v2) or ..., where "after"
+     * depends on the direction of each key.
+     */
+    private static Predicate seekPast(CriteriaBuilder cb, Root<Artifact> artifact, Sort sort, Map<String, ?> keys) {
+        List<Predicate> alternatives = new ArrayList<>();
+        List<Predicate> equalSoFar = new ArrayList<>();
+        for (Sort.Order order : sort) {
+            String property = order.getProperty();
+            String value = keys.get(property).toString();
+            List<Predicate> alternative = new ArrayList<>(equalSoFar);
+            alternative.add(order.isAscending()
+                    ? cb.greaterThan(artifact.<String>get(property), value)
+                    : cb.lessThan(artifact.<String>get(property), value));
+            alternatives.add(cb.and(alternative.toArray(Predicate[]::new)));
+            equalSoFar.add(cb.equal(artifact.get(property), value));
+        }
+        return cb.or(alternatives.toArray(Predicate[]::new));
+    }
+
+    private static ScrollPosition positionAt(ArtifactDto artifactDto, Sort sort) {
+        Map<String, Object> keys = new LinkedHashMap<>();
+        for (Sort.Order order : sort) {
+            keys.put(order.getProperty(), sortKeys.get(order.getProperty()).apply(artifactDto));
+        }
+        return ScrollPosition.forward(keys);
+    }
+
+}
@@ -0,0 +1,55 @@
+package idv.ex.cs.hogwartsartifactsonline.artifact;
+
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The filters of GET /artifacts, all optional and combined with "and". Each of them is answered from an index of
+ * the Artifact table: ownerId and unowned from the owner_id index, namePrefix from the name index. The name
+ * prefix is therefore case-sensitive, lower(name) could not use the index.
+ *
+ * @param ownerId    only artifacts owned by this wizard
+ * @param namePrefix only artifacts whose name starts with this, taken literally
+ * @param unowned    true for only unassigned artifacts, false for only assigned ones
+ */
+public record ArtifactFilter(Integer ownerId, String namePrefix, Boolean unowned) implements Specification<Artifact> {
+
+    public static final ArtifactFilter NONE = new ArtifactFilter(null, null, null);
+
+    private static final char escape = '\\';
+
+    @Override
+    public Predicate toPredicate(Root<Artifact> artifact, CriteriaQuery<?> query, CriteriaBuilder cb) {
+        List<Predicate> predicates = new ArrayList<>();
+        // owner.id is the foreign key column itself, so this does not join the wizard.
+        if (this.ownerId != null) {
+            predicates.add(cb.equal(artifact.get("owner").get("id"), this.ownerId));
+        }
+        if (this.namePrefix != null) {
+            predicates.add(cb.like(artifact.get("name"), escapeLike(this.namePrefix) + "%", escape));
+        }
+        if (this.unowned != null) {
+            predicates.add(this.unowned ? cb.isNull(artifact.get("owner")) : cb.isNotNull(artifact.get("owner")));
+        }
+        return predicates.isEmpty() ? null : cb.and(predicates.toArray(Predicate[]::new));
+    }
+
+    private static String escapeLike(String value) {
+        StringBuilder escaped = new StringBuilder(value.length() + 8);
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '%' || c == '_' || c == escape) {
+                escaped.append(escape);
+            }
+            escaped.append(c);
+        }
+        return escaped.toString();
+    }
+
+}
@@ -0,0 +1,10 @@
+package idv.ex.cs.hogwartsartifactsonline.artifact;
+
+/**
+ * An artifact id and the id of its owner, read without loading either of them.
+ *
+ * @param artifactId
+ * @param ownerId    null if the artifact is not owned
+ */
+public record ArtifactOwner(String artifactId, Integer ownerId) {
+}
@@ -0,0 +1,20 @@
+package idv.ex.cs.hogwartsartifactsonline.artifact;
+
+import java.util.Map;
+
+/**
+ * Partial artifact updates as single bulk UPDATE statements, implemented by ArtifactPatchRepositoryImpl.
+ */
+public interface ArtifactPatchRepository {
+
+    /**
+     * Sets the given columns of one artifact and increments its version, without loading it first.
+     *
+     * @param artifactId
+     * @param changes         new values by property name, only these columns are updated
+     * @param expectedVersion the version the artifact must still have, null to update any version
+     * @return the number of updated rows, 0 if there is no such artifact or its version is different
+     */
+    int patch(String artifactId, Map<String, String> changes, Long expectedVersion);
+
+}
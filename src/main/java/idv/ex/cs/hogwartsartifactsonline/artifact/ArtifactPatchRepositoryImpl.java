@@ -0,0 +1,35 @@
+package idv.ex.cs.hogwartsartifactsonline.artifact;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.Root;
+
+import java.util.Map;
+
+class ArtifactPatchRepositoryImpl implements ArtifactPatchRepository {
+
+    private final EntityManager entityManager;
+
+    ArtifactPatchRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public int patch(String artifactId, Map<String, String> changes, Long expectedVersion) {
+        CriteriaBuilder cb = this.entityManager.getCriteriaBuilder();
+        CriteriaUpdate<Artifact> update = cb.createCriteriaUpdate(Artifact.class);
+        Root<Artifact> artifact = update.from(Artifact.class);
+        changes.forEach((property, value) -> update.set(artifact.<String>get(property), value));
+        if (changes.containsKey("description")) {
+            update.set(artifact.<String>get("descriptionSummary"), Artifact.summarize(changes.get("description")));
+        }
+        // A bulk update bypasses Hibernate's version check, so the version is maintained by hand.
+        update.set(artifact.<Long>get("version"), cb.sum(artifact.<Long>get("version"), 1L));
+        update.where(expectedVersion == null
+                ? cb.equal(artifact.get("id"), artifactId)
+                : cb.and(cb.equal(artifact.get("id"), artifactId), cb.equal(artifact.get("version"), expectedVersion)));
+        return this.entityManager.createQuery(update).executeUpdate();
+    }
+
+}
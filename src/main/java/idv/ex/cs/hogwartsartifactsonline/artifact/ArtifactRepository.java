@@ -1,8 +1,104 @@
 package idv.ex.cs.hogwartsartifactsonline.artifact;
 
+import idv.ex.cs.hogwartsartifactsonline.artifact.dto.ArtifactDto;
+import idv.ex.cs.hogwartsartifactsonline.wizard.Wizard;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
 @Repository
-public interface ArtifactRepository extends JpaRepository<Artifact, String> {
+public interface ArtifactRepository extends JpaRepository<Artifact, String>, JpaSpecificationExecutor<Artifact>, ArtifactDtoRepository, ArtifactPatchRepository {
+
+    int STREAM_FETCH_SIZE = 500; // Rows per JDBC round-trip when streaming
+
+    /**
+     * Selects an ArtifactDto with its owner's name and number of artifacts in one statement, the number is the
+     * owner's maintained artifactCount instead of loading the owner's artifacts. Keep in sync with
+     * ArtifactDtoRepositoryImpl.
+     */
+    String DTO_PROJECTION = "select new idv.ex.cs.hogwartsartifactsonline.artifact.dto.ArtifactDto(a.id, a.name, a.description, a.imageUrl, "
+            + "o.id, o.name, o.artifactCount) "
+            + "from Artifact a left join a.owner o ";
+
+    /**
+     * Streams all artifacts as DTOs, ordered by id. The stream is backed by an open JDBC result set, so it must be
+     * consumed and closed inside a transaction.
+     *
+     * @return
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + STREAM_FETCH_SIZE))
+    @Query(DTO_PROJECTION + "order by a.id")
+    Stream<ArtifactDto> streamAllDtosBy();
+
+    @Query(DTO_PROJECTION + "where a.id = :id")
+    Optional<ArtifactDto> findDtoById(String id);
+
+    @Query("select new idv.ex.cs.hogwartsartifactsonline.artifact.VersionedArtifactDto(a.id, a.name, a.description, a.imageUrl, "
+            + "o.id, o.name, o.artifactCount, a.version, o.version) "
+            + "from Artifact a left join a.owner o where a.id = :id")
+    Optional<VersionedArtifactDto> findVersionedDtoById(String id);
+
+    /**
+     * Finds the artifacts of several wizards in one statement, ordered by owner and id, with the description
+     * summaries instead of the descriptions.
+     *
+     * @param ownerIds
+     * @return
+     */
+    @Query("select new idv.ex.cs.hogwartsartifactsonline.artifact.dto.ArtifactDto(a.id, a.name, a.descriptionSummary, a.imageUrl, "
+            + "o.id, o.name, o.artifactCount) "
+            + "from Artifact a join a.owner o where o.id in :ownerIds order by o.id, a.id")
+    List<ArtifactDto> findSummaryDtosByOwnerIdIn(Collection<Integer> ownerIds);
+
+    @Query("select new idv.ex.cs.hogwartsartifactsonline.artifact.ArtifactVersion(a.version, o.version) from Artifact a left join a.owner o where a.id = :id")
+    Optional<ArtifactVersion> findVersionById(String id);
+
+    @Query("select new idv.ex.cs.hogwartsartifactsonline.artifact.ArtifactOwner(a.id, a.owner.id) from Artifact a where a.id = :id")
+    Optional<ArtifactOwner> findOwnerById(String id);
+
+    @Query("select new idv.ex.cs.hogwartsartifactsonline.artifact.ArtifactOwner(a.id, a.owner.id) from Artifact a where a.id in :ids")
+    List<ArtifactOwner> findOwnersByIdIn(Collection<String> ids);
+
+    @Query("select a.id from Artifact a where a.owner.id = :ownerId order by a.id")
+    List<String> findIdsByOwnerId(Integer ownerId, Limit limit);
+
+    @Query("select a.id from Artifact a where a.id in :ids and a.owner.id = :ownerId")
+    List<String> findIdsByIdInAndOwnerId(Collection<String> ids, Integer ownerId);
+
+    /**
+     * Gives the artifacts among ids that are still owned by previousOwnerId to a new owner in one statement,
+     * without loading them. The condition on the previous owner makes the returned number exactly what the
+     * previous owner lost, whatever concurrent assignments did in the meantime.
+     *
+     * @param ids
+     * @param previousOwnerId the current owner, null for unowned artifacts
+     * @param owner
+     * @return the number of reassigned artifacts
+     */
+    @Modifying
+    @Query("update Artifact a set a.owner = :owner, a.version = a.version + 1 "
+            + "where a.id in :ids and (a.owner.id = :previousOwnerId or (:previousOwnerId is null and a.owner is null))")
+    int reassign(Collection<String> ids, Integer previousOwnerId, Wizard owner);
+
+    /**
+     * Unassigns all artifacts of the wizard in one statement, without loading them.
+     *
+     * @param ownerId
+     * @return the number of unassigned artifacts
+     */
+    @Modifying
+    @Query("update Artifact a set a.owner = null, a.version = a.version + 1 where a.owner.id = :ownerId")
+    int unassignAll(Integer ownerId);
+
 }
@@ -1,11 +1,31 @@
 package idv.ex.cs.hogwartsartifactsonline.artifact;
 
+import idv.ex.cs.hogwartsartifactsonline.artifact.change.ArtifactChangeFeed;
+import idv.ex.cs.hogwartsartifactsonline.artifact.change.ArtifactChangeType;
+import idv.ex.cs.hogwartsartifactsonline.artifact.dto.ArtifactDto;
+import idv.ex.cs.hogwartsartifactsonline.artifact.search.ArtifactSearchIndex;
 import idv.ex.cs.hogwartsartifactsonline.artifact.utils.IdWorker;
+import idv.ex.cs.hogwartsartifactsonline.system.TransactionHooks;
+import idv.ex.cs.hogwartsartifactsonline.system.WriteCounter;
 import idv.ex.cs.hogwartsartifactsonline.system.exception.ObjectNotFoundException;
+import idv.ex.cs.hogwartsartifactsonline.system.exception.PreconditionFailedException;
+import idv.ex.cs.hogwartsartifactsonline.wizard.Wizard;
+import idv.ex.cs.hogwartsartifactsonline.wizard.WizardRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
 import jakarta.transaction.Transactional;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 @Transactional
@@ -15,39 +35,257 @@ public class ArtifactService {
 
     private final IdWorker idWorker;
 
-    public ArtifactService(ArtifactRepository artifactRepository, IdWorker idWorker) {
+    private final EntityManager entityManager;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ArtifactSearchIndex artifactSearchIndex;
+
+    private final ArtifactDtoCache artifactDtoCache;
+
+    private final WriteCounter writeCounter;
+
+    private final ArtifactChangeFeed artifactChangeFeed;
+
+    private final WizardRepository wizardRepository;
+
+    private static final int batchChunkSize = 500; // Artifacts committed per transaction by saveAll
+
+    // Beyond this many artifacts, saveAll publishes one BULK_CREATED change per chunk instead of one change per
+    // artifact, which would overflow the change feed's buffer and disconnect its subscribers.
+    private static final int maxArtifactChangesPerBatch = 100;
+
+    public ArtifactService(ArtifactRepository artifactRepository, IdWorker idWorker, EntityManager entityManager, PlatformTransactionManager transactionManager, ArtifactSearchIndex artifactSearchIndex, ArtifactDtoCache artifactDtoCache, WriteCounter writeCounter, ArtifactChangeFeed artifactChangeFeed, WizardRepository wizardRepository) {
         this.artifactRepository = artifactRepository;
         this.idWorker = idWorker;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.artifactSearchIndex = artifactSearchIndex;
+        this.artifactDtoCache = artifactDtoCache;
+        this.writeCounter = writeCounter;
+        this.artifactChangeFeed = artifactChangeFeed;
+        this.wizardRepository = wizardRepository;
     }
 
     public Artifact findById(String artifactId) {
+        requireValidId(artifactId);
         return this.artifactRepository.findById(artifactId)
                 .orElseThrow(() -> new ObjectNotFoundException("artifact", artifactId));
     }
 
+    /**
+     * Finds only the versions of the artifact and its owner, which is enough to answer a conditional GET.
+     *
+     * @param artifactId
+     * @return
+     */
+    public ArtifactVersion findVersionById(String artifactId) {
+        requireValidId(artifactId);
+        return this.artifactRepository.findVersionById(artifactId)
+                .orElseThrow(() -> new ObjectNotFoundException("artifact", artifactId));
+    }
+
     public List<Artifact> findAll() {
         return this.artifactRepository.findAll();
     }
 
+    /**
+     * Finds the artifact as a DTO, in one statement that also counts the owner's artifacts.
+     *
+     * @param artifactId
+     * @return
+     */
+    public ArtifactDto findDtoById(String artifactId) {
+        requireValidId(artifactId);
+        return this.artifactRepository.findDtoById(artifactId)
+                .orElseThrow(() -> new ObjectNotFoundException("artifact", artifactId));
+    }
+
+    /**
+     * Finds the ArtifactDto together with the versions for its ETag in a single statement.
+     *
+     * @param artifactId
+     * @return
+     */
+    public VersionedArtifactDto findVersionedDtoById(String artifactId) {
+        requireValidId(artifactId);
+        return this.artifactRepository.findVersionedDtoById(artifactId)
+                .orElseThrow(() -> new ObjectNotFoundException("artifact", artifactId));
+    }
+
+    /**
+     * Finds one page of artifacts as DTOs using keyset pagination, i.e., the query seeks past the sort key values
+     * of the given position instead of skipping rows, so every page costs the same no matter how deep the client
+     * scrolls. The id is always appended as the last sort key to make the order total. The page is read in a
+     * single statement, owners and their numbers of artifacts included.
+     *
+     * @param filter   which artifacts to find, ArtifactFilter.NONE for all
+     * @param position where the previous page ended, {@code ScrollPosition.keyset()} for the first page
+     * @param sort     the requested order
+     * @param size     the maximum number of artifacts in the page
+     * @param summary  true for description summaries, which keeps the long descriptions out of the query
+     * @return the page, which knows whether there is a next one
+     */
+    public Window<ArtifactDto> findAll(ArtifactFilter filter, KeysetScrollPosition position, Sort sort, int size, boolean summary) {
+        Sort totalSort = sort.getOrderFor("id") == null ? sort.and(Sort.by("id")) : sort;
+        return this.artifactRepository.findDtos(filter, position, totalSort, size, summary);
+    }
+
+    /**
+     * Hands every artifact as a DTO to the given action one by one while reading them from the database, so the
+     * whole catalog is never held in memory and no entities or owners' artifacts are loaded.
+     *
+     * @param action called once per artifact, in id order
+     */
+    public void forEachArtifactDto(Consumer<ArtifactDto> action) {
+        try (Stream<ArtifactDto> artifactDtos = this.artifactRepository.streamAllDtosBy()) {
+            artifactDtos.forEach(action);
+        }
+    }
+
     public Artifact save(Artifact newArtifact) {
         newArtifact.setId(idWorker.nextId() + "");
-        return artifactRepository.save(newArtifact);
+        Artifact savedArtifact = artifactRepository.save(newArtifact);
+        TransactionHooks.afterCommit(() -> this.artifactSearchIndex.add(savedArtifact));
+        this.writeCounter.increment();
+        this.artifactChangeFeed.publishAfterCommit(ArtifactChangeType.CREATED, savedArtifact.getId(), null);
+        return savedArtifact;
+    }
+
+    /**
+     * Saves many new artifacts at once. The ids are reserved a whole range at a time, and the artifacts are
+     * persisted in chunks of 500, each chunk in its own transaction so that Hibernate can send the inserts as JDBC
+     * batches.
+     * A failing chunk is rolled back on its own, chunks committed before it stay committed. A large batch publishes
+     * one BULK_CREATED change per committed chunk rather than a CREATED change per artifact.
+     *
+     * @param newArtifacts the artifacts to save, they get their ids assigned
+     * @return the failure message of every artifact that was not saved, keyed by its index in newArtifacts
+     */
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
+    public Map<Integer, String> saveAll(List<Artifact> newArtifacts) {
+        long[] ids = this.idWorker.nextIds(newArtifacts.size());
+        for (int i = 0; i < newArtifacts.size(); i++) {
+            newArtifacts.get(i).setId(Long.toString(ids[i]));
+        }
+        Map<Integer, String> failures = new HashMap<>();
+        for (int from = 0; from < newArtifacts.size(); from += batchChunkSize) {
+            List<Artifact> chunk = newArtifacts.subList(from, Math.min(from + batchChunkSize, newArtifacts.size()));
+            try {
+                this.transactionTemplate.executeWithoutResult(status -> {
+                    chunk.forEach(this.entityManager::persist);
+                    this.entityManager.flush();
+                    this.entityManager.clear();
+                    this.writeCounter.increment();
+                    if (newArtifacts.size() > maxArtifactChangesPerBatch) {
+                        this.artifactChangeFeed.publishAfterCommit(ArtifactChangeType.BULK_CREATED, null, null);
+                    } else {
+                        chunk.forEach(artifact -> this.artifactChangeFeed.publishAfterCommit(ArtifactChangeType.CREATED, artifact.getId(), null));
+                    }
+                });
+                chunk.forEach(this.artifactSearchIndex::add);
+            } catch (RuntimeException e) {
+                for (int i = from; i < from + chunk.size(); i++) {
+                    failures.put(i, "Could not save artifact, its chunk was rolled back.");
+                }
+            }
+        }
+        return failures;
     }
 
     public Artifact update(String artifactId, Artifact artifact) {
+        return update(artifactId, artifact, null);
+    }
+
+    /**
+     * Updates the artifact only if it still has the version the client last saw.
+     *
+     * @param artifactId
+     * @param artifact
+     * @param expectedVersion the version from the client's If-Match header, null to update any version
+     * @return
+     */
+    public Artifact update(String artifactId, Artifact artifact, Long expectedVersion) {
+        requireValidId(artifactId);
         return  this.artifactRepository.findById(artifactId)
                 .map(oldArtifact -> {
+                    if (expectedVersion != null && !expectedVersion.equals(oldArtifact.getVersion())) {
+                        throw new PreconditionFailedException("artifact", artifactId);
+                    }
                     oldArtifact.setName(artifact.getName());
                     oldArtifact.setDescription(artifact.getDescription());
                     oldArtifact.setImageUrl(artifact.getImageUrl());
-                    return artifactRepository.save(oldArtifact);
+                    Artifact updatedArtifact = artifactRepository.save(oldArtifact);
+                    TransactionHooks.afterCommit(() -> {
+                        this.artifactSearchIndex.add(updatedArtifact);
+                        this.artifactDtoCache.invalidate(artifactId);
+                    });
+                    this.writeCounter.increment();
+                    this.artifactChangeFeed.publishAfterCommit(ArtifactChangeType.UPDATED, artifactId, null);
+                    return updatedArtifact;
                 })
                 .orElseThrow(() -> new ObjectNotFoundException("artifact", artifactId));
     }
 
+    /**
+     * Changes only the given fields of the artifact with one UPDATE statement instead of loading it first.
+     * Whether the artifact exists is told by the number of updated rows, so only a failed conditional update
+     * needs a second statement to tell 404 from 412.
+     *
+     * @param artifactId
+     * @param changes         new values of name, description or imageUrl, by field name
+     * @param expectedVersion the version from the client's If-Match header, null to update any version
+     */
+    public void patch(String artifactId, Map<String, String> changes, Long expectedVersion) {
+        requireValidId(artifactId);
+        if (this.artifactRepository.patch(artifactId, changes, expectedVersion) == 0) {
+            if (expectedVersion != null && this.artifactRepository.existsById(artifactId)) {
+                throw new PreconditionFailedException("artifact", artifactId);
+            }
+            throw new ObjectNotFoundException("artifact", artifactId);
+        }
+        TransactionHooks.afterCommit(() -> {
+            this.artifactDtoCache.invalidate(artifactId);
+            // The index needs both name and description, which a partial update does not have.
+            if (changes.containsKey("name") || changes.containsKey("description")) {
+                this.artifactRepository.findDtoById(artifactId).ifPresent(this.artifactSearchIndex::add);
+            }
+        });
+        this.writeCounter.increment();
+        this.artifactChangeFeed.publishAfterCommit(ArtifactChangeType.UPDATED, artifactId, null);
+    }
+
     public void delete(String artifactId) {
-        this.artifactRepository.findById(artifactId)
+        requireValidId(artifactId);
+        Artifact artifactToBeDeleted = this.artifactRepository.findById(artifactId)
                 .orElseThrow(() -> new ObjectNotFoundException("artifact", artifactId));
+        Wizard owner = artifactToBeDeleted.getOwner();
+        if (owner != null) {
+            // The owner's number of artifacts changes, so does its ETag.
+            this.wizardRepository.adjustArtifactCount(owner.getId(), -1);
+            this.entityManager.lock(owner, LockModeType.OPTIMISTIC_FORCE_INCREMENT);
+        }
         this.artifactRepository.deleteById(artifactId);
+        this.writeCounter.increment();
+        this.artifactChangeFeed.publishAfterCommit(ArtifactChangeType.DELETED, artifactId, null);
+        TransactionHooks.afterCommit(() -> {
+            this.artifactSearchIndex.remove(artifactId);
+            this.artifactDtoCache.invalidate(artifactId);
+            // The owner's number of artifacts changed, which its other cached artifacts show.
+            if (owner != null) {
+                this.artifactDtoCache.invalidateOwner(owner.getId());
+            }
+        });
     }
+
+    /**
+     * An id that cannot be stored cannot exist. Checking it up front turns it into a 404 instead of a failure to
+     * bind it to the BIGINT id column.
+     */
+    private static void requireValidId(String artifactId) {
+        if (!Artifact.isValidId(artifactId)) {
+            throw new ObjectNotFoundException("artifact", artifactId);
+        }
+    }
+
 }
@@ -0,0 +1,25 @@
+package idv.ex.cs.hogwartsartifactsonline.artifact;
+
+/**
+ * The versions that an ArtifactDto depends on: the artifact itself and its owner, whose name and number of
+ * artifacts are part of the DTO.
+ *
+ * @param version      the artifact version
+ * @param ownerVersion the owner version, null if the artifact is not owned
+ */
+public record ArtifactVersion(Long version, Long ownerVersion) {
+
+    public static ArtifactVersion of(Artifact artifact) {
+        return new ArtifactVersion(artifact.getVersion(), artifact.getOwner() != null ? artifact.getOwner().getVersion() : null);
+    }
+
+    /**
+     * A strong ETag like "3" for an unowned artifact or "3.7" for an owned one.
+     *
+     * @return
+     */
+    public String toEtag() {
+        return "\"" + this.version + (this.ownerVersion != null ? "." + this.ownerVersion : "") + "\"";
+    }
+
+}
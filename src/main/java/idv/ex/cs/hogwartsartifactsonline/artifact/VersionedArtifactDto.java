@@ -0,0 +1,23 @@
+package idv.ex.cs.hogwartsartifactsonline.artifact;
+
+import idv.ex.cs.hogwartsartifactsonline.artifact.dto.ArtifactDto;
+
+/**
+ * An ArtifactDto with the versions it was read at, so the cached DTO and its ETag are always invalidated together.
+ *
+ * @param artifactDto
+ * @param version
+ */
+public record VersionedArtifactDto(ArtifactDto artifactDto, ArtifactVersion version) {
+
+    /**
+     * Used by the projection query in ArtifactRepository, which reads the DTO and the versions in one statement.
+     */
+    public VersionedArtifactDto(String id, String name, String description, String imageUrl,
+                                Integer ownerId, String ownerName, Integer ownerNumberOfArtifacts,
+                                Long version, Long ownerVersion) {
+        this(new ArtifactDto(id, name, description, imageUrl, ownerId, ownerName, ownerNumberOfArtifacts),
+                new ArtifactVersion(version, ownerVersion));
+    }
+
+}
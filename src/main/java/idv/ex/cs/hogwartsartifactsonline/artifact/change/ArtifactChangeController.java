@@ -0,0 +1,37 @@
+package idv.ex.cs.hogwartsartifactsonline.artifact.change;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequestMapping("${api.endpoint.base-url}/artifacts")
+public class ArtifactChangeController {
+
+    private final ArtifactChangeFeed artifactChangeFeed;
+
+    public ArtifactChangeController(ArtifactChangeFeed artifactChangeFeed) {
+        this.artifactChangeFeed = artifactChangeFeed;
+    }
+
+    /**
+     * Streams the changes of artifacts and of their owners as Server-Sent Events, instead of clients polling
+     * GET /artifacts and GET /wizards. An EventSource sends Last-Event-ID by itself when it reconnects.
+     *
+     * @param lastEventId the id of the last event received before reconnecting
+     * @return the event stream, or 503 with Retry-After if there are too many subscribers
+     */
+    @GetMapping(value = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamArtifactChanges(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return this.artifactChangeFeed.subscribe(lastEventId)
+                .map(emitter -> ResponseEntity.ok().header(HttpHeaders.CACHE_CONTROL, "no-store").body(emitter))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "10").build());
+    }
+
+}
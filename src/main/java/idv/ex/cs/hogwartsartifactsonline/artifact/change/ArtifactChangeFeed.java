@@ -0,0 +1,241 @@
+package idv.ex.cs.hogwartsartifactsonline.artifact.change;
+
+import idv.ex.cs.hogwartsartifactsonline.artifact.dto.ArtifactChange;
+import idv.ex.cs.hogwartsartifactsonline.system.TransactionHooks;
+import idv.ex.cs.hogwartsartifactsonline.system.stats.StatsSource;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes committed artifact changes to Server-Sent Events subscribers. The last changes are kept in a ring
+ * buffer, so a client reconnecting with Last-Event-ID gets the changes it missed. Writers never wait for
+ * subscribers: every subscriber has its own bounded queue, drained by a sender thread, and a subscriber whose
+ * queue overflows is disconnected. Its client reconnects and resumes from the ring buffer like any other.
+ * Event ids are "<epoch>-<sequence>", the epoch tells ids of a previous instance apart.
+ */
+@Component
+public class ArtifactChangeFeed implements StatsSource {
+
+    private static final Logger logger = LoggerFactory.getLogger(ArtifactChangeFeed.class);
+
+    private final long epoch = System.currentTimeMillis();
+
+    private final ArtifactChange[] ring;
+
+    private long lastSequence; // Guarded by this
+
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+
+    private final int maxSubscribers;
+
+    private final long timeoutMillis;
+
+    private final ThreadPoolExecutor senders;
+
+    private final AtomicLong droppedSubscribers = new AtomicLong();
+
+    public ArtifactChangeFeed(@Value("${api.artifacts.changes.buffer-size:1024}") int bufferSize,
+                              @Value("${api.artifacts.changes.max-subscribers:100}") int maxSubscribers,
+                              @Value("${api.artifacts.changes.timeout:30m}") Duration timeout) {
+        this.ring = new ArtifactChange[bufferSize];
+        this.maxSubscribers = maxSubscribers;
+        this.timeoutMillis = timeout.toMillis();
+        // A subscriber has at most one send in flight, so one thread per subscriber is the most ever needed.
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.senders = new ThreadPoolExecutor(0, maxSubscribers, 60, TimeUnit.SECONDS, new SynchronousQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "artifact-change-sender-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Publishes the change once the current transaction has committed, rolled back changes are never seen.
+     *
+     * @param type
+     * @param artifactId null for a BULK_CREATED, BULK_ASSIGNED or UNASSIGNED change
+     * @param ownerId    the wizard of an ASSIGNED, BULK_ASSIGNED or UNASSIGNED change, null otherwise
+     */
+    public void publishAfterCommit(ArtifactChangeType type, String artifactId, Integer ownerId) {
+        TransactionHooks.afterCommit(() -> publish(type, artifactId, ownerId));
+    }
+
+    void publish(ArtifactChangeType type, String artifactId, Integer ownerId) {
+        List<Subscriber> overflowed = new ArrayList<>();
+        synchronized (this) {
+            ArtifactChange change = new ArtifactChange(++this.lastSequence, type, artifactId, ownerId);
+            this.ring[(int) (change.sequence() % this.ring.length)] = change;
+            // Offering under the lock keeps every subscriber's queue in sequence order.
+            for (Subscriber subscriber : this.subscribers) {
+                if (!subscriber.queue.offer(change)) {
+                    overflowed.add(subscriber);
+                }
+            }
+        }
+        for (Subscriber subscriber : this.subscribers) {
+            subscriber.scheduleSend();
+        }
+        for (Subscriber subscriber : overflowed) {
+            this.droppedSubscribers.incrementAndGet();
+            logger.info("Disconnected a change feed subscriber that fell {} changes behind", this.ring.length);
+            subscriber.close();
+        }
+    }
+
+    /**
+     * Subscribes to the changes committed from now on, and to the buffered ones after lastEventId. If changes
+     * after lastEventId are no longer buffered, the subscriber first gets a "reset" event and should reload
+     * whatever it shows.
+     *
+     * @param lastEventId the id of the last event the client received, null for a new client
+     * @return the emitter to return from the controller, empty if there are too many subscribers already
+     */
+    public Optional<SseEmitter> subscribe(String lastEventId) {
+        if (this.subscribers.size() >= this.maxSubscribers) {
+            return Optional.empty();
+        }
+        Subscriber subscriber = new Subscriber(new SseEmitter(this.timeoutMillis));
+        synchronized (this) {
+            if (lastEventId != null) {
+                long resumeAfter = sequenceOf(lastEventId);
+                long oldestBuffered = Math.max(1, this.lastSequence - this.ring.length + 1);
+                if (resumeAfter < oldestBuffered - 1 || resumeAfter > this.lastSequence) {
+                    subscriber.resetTo = this.lastSequence;
+                } else {
+                    for (long sequence = resumeAfter + 1; sequence <= this.lastSequence; sequence++) {
+                        subscriber.queue.add(this.ring[(int) (sequence % this.ring.length)]);
+                    }
+                }
+            }
+            this.subscribers.add(subscriber);
+        }
+        subscriber.emitter.onCompletion(() -> this.subscribers.remove(subscriber));
+        subscriber.emitter.onTimeout(subscriber::close);
+        subscriber.emitter.onError(e -> subscriber.close());
+        subscriber.scheduleSend();
+        return Optional.of(subscriber.emitter);
+    }
+
+    @Override
+    public String getStatsName() {
+        return "artifactChangeFeed";
+    }
+
+    @Override
+    public Object getStats() {
+        synchronized (this) {
+            return Map.of("lastSequence", this.lastSequence,
+                    "bufferSize", this.ring.length,
+                    "subscribers", this.subscribers.size(),
+                    "droppedSubscribers", this.droppedSubscribers.get());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        this.subscribers.forEach(Subscriber::close);
+        this.senders.shutdownNow();
+    }
+
+    private String eventId(long sequence) {
+        return this.epoch + "-" + sequence;
+    }
+
+    /**
+     * @return the sequence of an id of this instance, -1 for anything else, which is never buffered
+     */
+    private long sequenceOf(String eventId) {
+        String prefix = this.epoch + "-";
+        if (!eventId.startsWith(prefix)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(eventId.substring(prefix.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+
+        private final BlockingQueue<ArtifactChange> queue = new ArrayBlockingQueue<>(ring.length);
+
+        private final AtomicBoolean sending = new AtomicBoolean();
+
+        private boolean connected; // Accessed by the sending thread only
+
+        private Long resetTo; // Set before the subscriber is published, sent first
+
+        private Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        private void scheduleSend() {
+            if (this.sending.compareAndSet(false, true)) {
+                try {
+                    senders.execute(this::send);
+                } catch (RejectedExecutionException e) {
+                    close();
+                }
+            }
+        }
+
+        /**
+         * Sends until the queue is empty. Sending blocks while the client does not read, and meanwhile the queue
+         * fills up until publish disconnects this subscriber.
+         */
+        private void send() {
+            try {
+                do {
+                    if (!this.connected) {
+                        this.connected = true;
+                        if (this.resetTo != null) {
+                            this.emitter.send(SseEmitter.event().id(eventId(this.resetTo)).name("reset")
+                                    .data("The changes since Last-Event-ID are no longer buffered."));
+                        } else {
+                            this.emitter.send(SseEmitter.event().comment("connected")); // Sends the response headers
+                        }
+                    }
+                    for (ArtifactChange change = this.queue.poll(); change != null; change = this.queue.poll()) {
+                        this.emitter.send(SseEmitter.event().id(eventId(change.sequence())).name("change")
+                                .data(change, MediaType.APPLICATION_JSON));
+                    }
+                    this.sending.set(false);
+                } while (!this.queue.isEmpty() && this.sending.compareAndSet(false, true));
+            } catch (IOException | IllegalStateException e) {
+                close(); // The client went away or the emitter completed
+            }
+        }
+
+        private void close() {
+            subscribers.remove(this);
+            this.emitter.complete();
+        }
+
+    }
+
+}
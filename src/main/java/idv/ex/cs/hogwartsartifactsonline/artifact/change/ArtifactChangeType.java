@@ -0,0 +1,34 @@
+package idv.ex.cs.hogwartsartifactsonline.artifact.change;
+
+public enum ArtifactChangeType {
+
+    CREATED,
+
+    /**
+     * Too many artifacts were created at once to publish them one by one, the change has no artifactId. Clients
+     * reload whatever they show of the artifacts.
+     */
+    BULK_CREATED,
+
+    UPDATED,
+
+    DELETED,
+
+    /**
+     * The artifact got the owner in the change's ownerId, it may have had another owner before.
+     */
+    ASSIGNED,
+
+    /**
+     * Too many artifacts got the owner in the change's ownerId at once to publish them one by one, the change has
+     * no artifactId. They may have had other owners before, clients reload whatever they show of the artifacts' owners.
+     */
+    BULK_ASSIGNED,
+
+    /**
+     * All artifacts of the wizard in the change's ownerId lost their owner, because that wizard was deleted. The
+     * change has no artifactId.
+     */
+    UNASSIGNED
+
+}
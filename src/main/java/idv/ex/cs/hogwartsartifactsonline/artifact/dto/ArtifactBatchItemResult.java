@@ -0,0 +1,26 @@
+package idv.ex.cs.hogwartsartifactsonline.artifact.dto;
+
+import java.util.Map;
+
+/**
+ * The outcome of one item of a batch request.
+ *
+ * @param index   the position of the item in the request
+ * @param success whether the item was saved
+ * @param id      the id of the saved artifact, null on failure
+ * @param errors  why the item was not saved, keyed by field like validation errors, null on success
+ */
+public record ArtifactBatchItemResult(int index,
+                                      boolean success,
+                                      String id,
+                                      Map<String, String> errors) {
+
+    public static ArtifactBatchItemResult success(int index, String id) {
+        return new ArtifactBatchItemResult(index, true, id, null);
+    }
+
+    public static ArtifactBatchItemResult failure(int index, Map<String, String> errors) {
+        return new ArtifactBatchItemResult(index, false, null, errors);
+    }
+
+}
@@ -0,0 +1,15 @@
+package idv.ex.cs.hogwartsartifactsonline.artifact.dto;
+
+import idv.ex.cs.hogwartsartifactsonline.artifact.change.ArtifactChangeType;
+
+/**
+ * One committed change of an artifact, as published by GET /artifacts/changes. It names what changed, the
+ * client fetches the artifact if it needs the new state.
+ *
+ * @param sequence   the position in the change feed, increasing by one per change
+ * @param type
+ * @param artifactId null for a BULK_CREATED, BULK_ASSIGNED or UNASSIGNED change
+ * @param ownerId    the wizard of an ASSIGNED, BULK_ASSIGNED or UNASSIGNED change, null otherwise
+ */
+public record ArtifactChange(long sequence, ArtifactChangeType type, String artifactId, Integer ownerId) {
+}
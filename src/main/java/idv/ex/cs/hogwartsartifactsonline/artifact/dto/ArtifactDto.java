@@ -12,4 +12,17 @@ public record ArtifactDto(String id,
                           String imageUrl,
                           WizardDto owner) {
 
+    /**
+     * Used by the projection queries in ArtifactRepository, which cannot construct the nested owner themselves.
+     *
+     * @param ownerId                 null if the artifact is not owned
+     * @param ownerName
+     * @param ownerNumberOfArtifacts
+     */
+    public ArtifactDto(String id, String name, String description, String imageUrl,
+                       Integer ownerId, String ownerName, Integer ownerNumberOfArtifacts) {
+        this(id, name, description, imageUrl,
+                ownerId != null ? new WizardDto(ownerId, ownerName, ownerNumberOfArtifacts) : null);
+    }
+
 }
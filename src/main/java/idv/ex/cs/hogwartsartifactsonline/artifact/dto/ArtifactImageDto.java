@@ -0,0 +1,5 @@
+package idv.ex.cs.hogwartsartifactsonline.artifact.dto;
+
+public record ArtifactImageDto(String imageUrl,
+                               String thumbnailUrl) {
+}
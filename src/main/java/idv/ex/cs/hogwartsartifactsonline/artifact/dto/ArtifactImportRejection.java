@@ -0,0 +1,13 @@
+package idv.ex.cs.hogwartsartifactsonline.artifact.dto;
+
+import java.util.Map;
+
+/**
+ * A row of an import that was not saved.
+ *
+ * @param line   the line the row starts on, 1 is the first line of the file
+ * @param errors why the row was not saved, keyed by field like validation errors
+ */
+public record ArtifactImportRejection(long line,
+                                      Map<String, String> errors) {
+}
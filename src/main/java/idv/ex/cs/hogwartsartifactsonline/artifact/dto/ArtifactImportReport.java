@@ -0,0 +1,27 @@
+package idv.ex.cs.hogwartsartifactsonline.artifact.dto;
+
+import java.util.List;
+
+/**
+ * The progress of a running import, or the outcome of a finished one.
+ *
+ * @param id            the import id, to poll the progress with
+ * @param state         RUNNING, COMPLETED or FAILED
+ * @param rowsRead      the rows parsed so far
+ * @param imported      the artifacts saved so far
+ * @param rejected      the rows that were not saved so far
+ * @param elapsedMillis the time since the import started, or its duration once finished
+ * @param rowsPerSecond imported artifacts per second
+ * @param rejections    the first rejected rows, see rejected for how many there are in total
+ * @param failure       why the import stopped, null unless it FAILED
+ */
+public record ArtifactImportReport(String id,
+                                   String state,
+                                   long rowsRead,
+                                   long imported,
+                                   long rejected,
+                                   long elapsedMillis,
+                                   double rowsPerSecond,
+                                   List<ArtifactImportRejection> rejections,
+                                   String failure) {
+}
@@ -0,0 +1,6 @@
+package idv.ex.cs.hogwartsartifactsonline.artifact.dto;
+
+public record ArtifactSearchHit(String id,
+                                String name,
+                                double score) {
+}
@@ -0,0 +1,187 @@
+package idv.ex.cs.hogwartsartifactsonline.artifact.image;
+
+import idv.ex.cs.hogwartsartifactsonline.artifact.ArtifactService;
+import idv.ex.cs.hogwartsartifactsonline.artifact.ArtifactVersion;
+import idv.ex.cs.hogwartsartifactsonline.artifact.dto.ArtifactImageDto;
+import idv.ex.cs.hogwartsartifactsonline.system.IfMatch;
+import idv.ex.cs.hogwartsartifactsonline.system.Result;
+import idv.ex.cs.hogwartsartifactsonline.system.StatusCode;
+import idv.ex.cs.hogwartsartifactsonline.system.exception.ObjectNotFoundException;
+import idv.ex.cs.hogwartsartifactsonline.system.exception.PreconditionFailedException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@RestController
+@RequestMapping("${api.endpoint.base-url}")
+public class ArtifactImageController {
+
+    // Request attributes of Tomcat's sendfile support, the same ones its DefaultServlet uses.
+    private static final String sendfileSupportAttribute = "org.apache.tomcat.sendfile.support";
+
+    private static final String sendfileFilenameAttribute = "org.apache.tomcat.sendfile.filename";
+
+    private static final String sendfileStartAttribute = "org.apache.tomcat.sendfile.start";
+
+    private static final String sendfileEndAttribute = "org.apache.tomcat.sendfile.end";
+
+    // Image URLs are content addresses, what is behind them never changes.
+    private static final String cacheControl = CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable().getHeaderValue();
+
+    private final ImageStore imageStore;
+
+    private final ThumbnailGenerator thumbnailGenerator;
+
+    private final ArtifactService artifactService;
+
+    private final String baseUrl;
+
+    public ArtifactImageController(ImageStore imageStore, ThumbnailGenerator thumbnailGenerator, ArtifactService artifactService,
+                                   @Value("${api.endpoint.base-url}") String baseUrl) {
+        this.imageStore = imageStore;
+        this.thumbnailGenerator = thumbnailGenerator;
+        this.artifactService = artifactService;
+        this.baseUrl = baseUrl;
+    }
+
+    /**
+     * Stores the request body as the artifact's image and points the artifact's imageUrl to it. The body is the
+     * raw image, streamed to disk as it arrives. A thumbnail is created in the background.
+     *
+     * @param artifactId
+     * @param contentType
+     * @param ifMatch     the artifact's ETag, optional
+     * @param request
+     * @return the URLs of the image and of its thumbnail
+     * @throws IOException
+     */
+    @PutMapping(value = "/artifacts/{artifactId}/image",
+            consumes = {MediaType.IMAGE_PNG_VALUE, MediaType.IMAGE_JPEG_VALUE, MediaType.IMAGE_GIF_VALUE, "image/webp"})
+    public Result uploadArtifactImage(@PathVariable String artifactId, @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                                      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                      HttpServletRequest request) throws IOException {
+        // Checked before the upload is stored, so that requests for unknown or stale artifacts leave no file behind.
+        Long expectedVersion = IfMatch.expectedVersion(ifMatch);
+        ArtifactVersion version = this.artifactService.findVersionById(artifactId);
+        if (expectedVersion != null && !expectedVersion.equals(version.version())) {
+            throw new PreconditionFailedException("artifact", artifactId);
+        }
+        String name = this.imageStore.store(request.getInputStream(), contentType.getType() + "/" + contentType.getSubtype());
+        String imageUrl = this.baseUrl + "/images/" + name;
+        this.artifactService.patch(artifactId, Map.of("imageUrl", imageUrl), expectedVersion);
+        this.thumbnailGenerator.generateLater(this.imageStore.find(name).orElseThrow(), this.imageStore.thumbnailPathOf(name));
+        return new Result(true, StatusCode.SUCCESS, "Upload Success", new ArtifactImageDto(imageUrl, imageUrl + "/thumbnail"));
+    }
+
+    @GetMapping("/images/{name}")
+    public void findImage(@PathVariable String name, ServletWebRequest webRequest) throws IOException {
+        Path image = this.imageStore.find(name)
+                .orElseThrow(() -> new ObjectNotFoundException("image", name));
+        serve(image, ImageStore.contentTypeOf(name), "\"" + name + "\"", webRequest);
+    }
+
+    /**
+     * Finds the thumbnail of a stored image, which is 404 until the background generation has finished and for
+     * images whose format has no thumbnail support, e.g., WebP.
+     *
+     * @param name
+     * @param webRequest
+     * @throws IOException
+     */
+    @GetMapping("/images/{name}/thumbnail")
+    public void findThumbnail(@PathVariable String name, ServletWebRequest webRequest) throws IOException {
+        Path thumbnail = this.imageStore.find(name)
+                .map(image -> this.imageStore.thumbnailPathOf(name))
+                .filter(Files::isRegularFile)
+                .orElseThrow(() -> new ObjectNotFoundException("thumbnail", name));
+        serve(thumbnail, MediaType.IMAGE_PNG_VALUE, "\"" + name + "-thumbnail\"", webRequest);
+    }
+
+    /**
+     * Serves the file, or the single byte range asked for. Several ranges are answered with the whole file,
+     * which RFC 9110 allows.
+     */
+    private static void serve(Path file, String contentType, String etag, ServletWebRequest webRequest) throws IOException {
+        HttpServletRequest request = webRequest.getRequest();
+        HttpServletResponse response = webRequest.getResponse();
+        response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        if (webRequest.checkNotModified(etag)) {
+            return;
+        }
+        long length = Files.size(file);
+        long start = 0;
+        long end = length - 1;
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        List<HttpRange> ranges = parseRanges(request.getHeader(HttpHeaders.RANGE));
+        if (ranges.size() == 1 && (ifRange == null || ifRange.equals(etag))) {
+            try {
+                start = ranges.get(0).getRangeStart(length);
+                end = ranges.get(0).getRangeEnd(length);
+            } catch (IllegalArgumentException e) {
+                start = length; // Not satisfiable either
+            }
+            // getRangeStart does not reject a first byte at or beyond the end of the file.
+            if (start >= length || start > end) {
+                response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                return;
+            }
+            response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+        }
+        response.setContentType(contentType);
+        response.setHeader("X-Content-Type-Options", "nosniff");
+        response.setContentLengthLong(end - start + 1);
+        if (!"HEAD".equals(request.getMethod())) {
+            transfer(file, start, end + 1, request, response);
+        }
+    }
+
+    private static List<HttpRange> parseRanges(String range) {
+        try {
+            return HttpRange.parseRanges(range);
+        } catch (IllegalArgumentException e) {
+            return List.of(); // A malformed Range header is ignored
+        }
+    }
+
+    /**
+     * Sends the bytes from start to end. With Tomcat's sendfile support, the connector hands the file to the
+     * kernel after the response headers, so the bytes never pass through the JVM. Otherwise they are copied to the
+     * response through FileChannel.transferTo's small buffer, which still never holds the whole file in memory.
+     */
+    private static void transfer(Path file, long start, long end, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (Boolean.TRUE.equals(request.getAttribute(sendfileSupportAttribute))) {
+            request.setAttribute(sendfileFilenameAttribute, file.toAbsolutePath().toString());
+            request.setAttribute(sendfileStartAttribute, start);
+            request.setAttribute(sendfileEndAttribute, end);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            for (long position = start; position < end; ) {
+                position += channel.transferTo(position, end - position, out);
+            }
+        }
+    }
+
+}
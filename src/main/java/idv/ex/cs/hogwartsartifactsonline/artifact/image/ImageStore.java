@@ -0,0 +1,132 @@
+package idv.ex.cs.hogwartsartifactsonline.artifact.image;
+
+import idv.ex.cs.hogwartsartifactsonline.system.exception.InvalidArgumentException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Stores artifact images as files named after the SHA-256 of their content, e.g., "3a7b...e1.png". The same image
+ * uploaded twice is stored once, and a stored file never changes, which makes images cacheable forever.
+ * Uploads are streamed to disk, so an image is never held in memory as a whole.
+ */
+@Component
+public class ImageStore {
+
+    private static final Map<String, String> extensionsByContentType = Map.of(
+            "image/png", "png",
+            "image/jpeg", "jpg",
+            "image/gif", "gif",
+            "image/webp", "webp");
+
+    private static final Map<String, String> contentTypesByExtension = Map.of(
+            "png", "image/png",
+            "jpg", "image/jpeg",
+            "gif", "image/gif",
+            "webp", "image/webp");
+
+    // Anything else is rejected before it gets near the file system, e.g., "../application.yml".
+    private static final Pattern namePattern = Pattern.compile("([0-9a-f]{64})\\.(png|jpg|gif|webp)");
+
+    private final Path directory;
+
+    private final DataSize maxSize;
+
+    public ImageStore(@Value("${api.artifacts.images.directory}") Path directory,
+                      @Value("${api.artifacts.images.max-size:20MB}") DataSize maxSize) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Streams the image into a temporary file while hashing it, then moves the file to its content address.
+     *
+     * @param content     the image, read to the end but not closed
+     * @param contentType one of image/png, image/jpeg, image/gif and image/webp
+     * @return the name of the stored image
+     * @throws IOException
+     */
+    public String store(InputStream content, String contentType) throws IOException {
+        String extension = extensionsByContentType.get(contentType);
+        if (extension == null) {
+            throw new InvalidArgumentException("Unsupported image type " + contentType + ".");
+        }
+        MessageDigest digest = sha256();
+        Path temporaryFile = Files.createTempFile(this.directory, "upload-", ".tmp");
+        try {
+            long size = 0;
+            try (OutputStream out = Files.newOutputStream(temporaryFile)) {
+                byte[] buffer = new byte[64 * 1024];
+                for (int read; (read = content.read(buffer)) != -1; ) {
+                    size += read;
+                    if (size > this.maxSize.toBytes()) {
+                        throw new InvalidArgumentException("An image can be at most " + this.maxSize.toMegabytes() + "MB.");
+                    }
+                    digest.update(buffer, 0, read);
+                    out.write(buffer, 0, read);
+                }
+            }
+            if (size == 0) {
+                throw new InvalidArgumentException("The image is empty.");
+            }
+            String name = HexFormat.of().formatHex(digest.digest()) + "." + extension;
+            Path image = pathOf(name);
+            Files.createDirectories(image.getParent());
+            // If the image is already stored, this replaces it with identical bytes.
+            Files.move(temporaryFile, image, StandardCopyOption.ATOMIC_MOVE);
+            return name;
+        } finally {
+            Files.deleteIfExists(temporaryFile);
+        }
+    }
+
+    /**
+     * @param name e.g., "3a7b...e1.png"
+     * @return the file of the stored image, empty if the name is not one this store gives out or not stored
+     */
+    public Optional<Path> find(String name) {
+        return namePattern.matcher(name).matches()
+                ? Optional.of(pathOf(name)).filter(Files::isRegularFile)
+                : Optional.empty();
+    }
+
+    /**
+     * @param name the name of a stored image
+     * @return where the PNG thumbnail of the image is or will be
+     */
+    public Path thumbnailPathOf(String name) {
+        String hash = name.substring(0, name.indexOf('.'));
+        return pathOf(name).resolveSibling(hash + ".thumbnail.png");
+    }
+
+    public static String contentTypeOf(String name) {
+        return contentTypesByExtension.get(name.substring(name.indexOf('.') + 1));
+    }
+
+    private Path pathOf(String name) {
+        // Fan out into 256 directories to keep each directory small.
+        return this.directory.resolve(name.substring(0, 2)).resolve(name);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e); // Every JVM has SHA-256
+        }
+    }
+
+}
@@ -0,0 +1,113 @@
+package idv.ex.cs.hogwartsartifactsonline.artifact.image;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates PNG thumbnails of stored images in the background. The pool and its queue are bounded; when both are
+ * full, the thumbnail is skipped rather than slowing down uploads, and the image simply has no thumbnail.
+ * Images are decoded subsampled, so even a huge image is never decoded at full size.
+ */
+@Component
+public class ThumbnailGenerator {
+
+    private static final Logger logger = LoggerFactory.getLogger(ThumbnailGenerator.class);
+
+    private static final int thumbnailSize = 256; // Longest side in pixels
+
+    private final ThreadPoolExecutor executor;
+
+    public ThumbnailGenerator(@Value("${api.artifacts.images.thumbnail-threads:2}") int threads,
+                              @Value("${api.artifacts.images.thumbnail-queue-size:100}") int queueSize) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueSize),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "thumbnail-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                (runnable, executor) -> logger.warn("Skipped a thumbnail, {} are already waiting", executor.getQueue().size()));
+    }
+
+    public void generateLater(Path image, Path thumbnail) {
+        if (!Files.exists(thumbnail)) {
+            this.executor.execute(() -> generate(image, thumbnail));
+        }
+    }
+
+    void generate(Path image, Path thumbnail) {
+        try (ImageInputStream input = ImageIO.createImageInputStream(image.toFile())) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                logger.debug("No thumbnail for {}, there is no reader for its format", image);
+                return;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int longestSide = Math.max(reader.getWidth(0), reader.getHeight(0));
+                // Read every n-th pixel of every n-th row, which decodes at most twice the thumbnail size.
+                int subsampling = Math.max(1, longestSide / thumbnailSize);
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                BufferedImage source = reader.read(0, param);
+                write(scale(source), thumbnail);
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Could not create the thumbnail of {}", image, e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        this.executor.shutdownNow();
+    }
+
+    private static BufferedImage scale(BufferedImage source) {
+        double scale = Math.min(1.0, (double) thumbnailSize / Math.max(source.getWidth(), source.getHeight()));
+        int width = Math.max(1, (int) Math.round(source.getWidth() * scale));
+        int height = Math.max(1, (int) Math.round(source.getHeight() * scale));
+        BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = scaled.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return scaled;
+    }
+
+    private static void write(BufferedImage thumbnail, Path target) throws IOException {
+        Path temporaryFile = Files.createTempFile(target.getParent(), "thumbnail-", ".tmp");
+        try {
+            ImageIO.write(thumbnail, "png", temporaryFile.toFile());
+            Files.move(temporaryFile, target, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporaryFile);
+        }
+    }
+
+}
@@ -0,0 +1,96 @@
+package idv.ex.cs.hogwartsartifactsonline.artifact.importer;
+
+import idv.ex.cs.hogwartsartifactsonline.artifact.dto.ArtifactImportRejection;
+import idv.ex.cs.hogwartsartifactsonline.artifact.dto.ArtifactImportReport;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The progress of one import, updated by the parsing and the writing thread and read by anyone polling it.
+ */
+public class ArtifactImport {
+
+    private static final int maxRejections = 100; // Rejected rows reported in detail, the rest are only counted
+
+    public enum State {
+        RUNNING, COMPLETED, FAILED
+    }
+
+    private final String id = UUID.randomUUID().toString();
+
+    private final long startedAt = System.currentTimeMillis();
+
+    private final AtomicLong rowsRead = new AtomicLong();
+
+    private final AtomicLong imported = new AtomicLong();
+
+    private final AtomicLong rejected = new AtomicLong();
+
+    private final List<ArtifactImportRejection> rejections = new ArrayList<>();
+
+    private volatile State state = State.RUNNING;
+
+    private volatile long finishedAt;
+
+    private volatile String failure;
+
+    public String getId() {
+        return id;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public long getImported() {
+        return imported.get();
+    }
+
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    void rowRead() {
+        this.rowsRead.incrementAndGet();
+    }
+
+    void imported(int count) {
+        this.imported.addAndGet(count);
+    }
+
+    void reject(long line, Map<String, String> errors) {
+        this.rejected.incrementAndGet();
+        synchronized (this.rejections) {
+            if (this.rejections.size() < maxRejections) {
+                this.rejections.add(new ArtifactImportRejection(line, errors));
+            }
+        }
+    }
+
+    void complete() {
+        this.finishedAt = System.currentTimeMillis();
+        this.state = State.COMPLETED;
+    }
+
+    void fail(String failure) {
+        this.failure = failure;
+        this.finishedAt = System.currentTimeMillis();
+        this.state = State.FAILED;
+    }
+
+    public ArtifactImportReport toReport() {
+        long elapsedMillis = (this.state == State.RUNNING ? System.currentTimeMillis() : this.finishedAt) - this.startedAt;
+        long importedSoFar = this.imported.get();
+        List<ArtifactImportRejection> rejectionsSoFar;
+        synchronized (this.rejections) {
+            rejectionsSoFar = List.copyOf(this.rejections);
+        }
+        return new ArtifactImportReport(this.id, this.state.name(), this.rowsRead.get(), importedSoFar, this.rejected.get(),
+                elapsedMillis, elapsedMillis > 0 ? importedSoFar * 1000.0 / elapsedMillis : 0, rejectionsSoFar, this.failure);
+    }
+
+}
@@ -0,0 +1,53 @@
+package idv.ex.cs.hogwartsartifactsonline.artifact.importer;
+
+import idv.ex.cs.hogwartsartifactsonline.system.Result;
+import idv.ex.cs.hogwartsartifactsonline.system.StatusCode;
+import idv.ex.cs.hogwartsartifactsonline.system.exception.ObjectNotFoundException;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.net.URI;
+
+@RestController
+@RequestMapping("${api.endpoint.base-url}/artifacts")
+public class ArtifactImportController {
+
+    private final ArtifactImporter artifactImporter;
+
+    private final String baseUrl;
+
+    public ArtifactImportController(ArtifactImporter artifactImporter, @Value("${api.endpoint.base-url}") String baseUrl) {
+        this.artifactImporter = artifactImporter;
+        this.baseUrl = baseUrl;
+    }
+
+    /**
+     * Starts importing the artifacts in the request body once it has been received. The import runs in the
+     * background, the Location header points to GET /artifacts/imports/{importId}, which shows its progress.
+     *
+     * @param contentType text/csv or JSON lines
+     * @param request
+     * @return the report of the import just started
+     * @throws IOException
+     */
+    @PostMapping(value = "/import", consumes = {"text/csv", MediaType.APPLICATION_NDJSON_VALUE, "application/jsonl"})
+    public ResponseEntity<Result> importArtifacts(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType, HttpServletRequest request) throws IOException {
+        ArtifactImportFormat format = ArtifactImportFormat.ofContentType(contentType.getType() + "/" + contentType.getSubtype());
+        ArtifactImport artifactImport = this.artifactImporter.startImport(request.getInputStream(), format);
+        return ResponseEntity.accepted().location(URI.create(this.baseUrl + "/artifacts/imports/" + artifactImport.getId()))
+                .body(new Result(true, StatusCode.ACCEPTED, "Import Started", artifactImport.toReport()));
+    }
+
+    @GetMapping("/imports/{importId}")
+    public Result findImportById(@PathVariable String importId) {
+        ArtifactImport artifactImport = this.artifactImporter.find(importId)
+                .orElseThrow(() -> new ObjectNotFoundException("import", importId));
+        return new Result(true, StatusCode.SUCCESS, "Find One Success", artifactImport.toReport());
+    }
+
+}
@@ -0,0 +1,35 @@
+package idv.ex.cs.hogwartsartifactsonline.artifact.importer;
+
+import idv.ex.cs.hogwartsartifactsonline.system.exception.InvalidArgumentException;
+
+public enum ArtifactImportFormat {
+
+    /**
+     * RFC 4180 CSV with a header row naming the columns name, description and imageUrl, in any order.
+     */
+    CSV,
+
+    /**
+     * One JSON ArtifactDto per line, the format GET /artifacts/export produces.
+     */
+    JSON_LINES;
+
+    public static ArtifactImportFormat ofContentType(String contentType) {
+        return switch (contentType) {
+            case "text/csv" -> CSV;
+            case "application/x-ndjson", "application/jsonl" -> JSON_LINES;
+            default -> throw new InvalidArgumentException("Cannot import artifacts from " + contentType + ".");
+        };
+    }
+
+    public static ArtifactImportFormat ofFileName(String fileName) {
+        if (fileName.endsWith(".csv")) {
+            return CSV;
+        }
+        if (fileName.endsWith(".jsonl") || fileName.endsWith(".ndjson")) {
+            return JSON_LINES;
+        }
+        throw new InvalidArgumentException("Cannot import artifacts from " + fileName + ", expected a .csv, .jsonl or .ndjson file.");
+    }
+
+}
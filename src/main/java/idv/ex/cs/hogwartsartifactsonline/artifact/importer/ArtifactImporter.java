@@ -0,0 +1,256 @@
+package idv.ex.cs.hogwartsartifactsonline.artifact.importer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import idv.ex.cs.hogwartsartifactsonline.artifact.Artifact;
+import idv.ex.cs.hogwartsartifactsonline.artifact.ArtifactService;
+import idv.ex.cs.hogwartsartifactsonline.artifact.converter.ArtifactDtoToArtifactConverter;
+import idv.ex.cs.hogwartsartifactsonline.artifact.dto.ArtifactDto;
+import idv.ex.cs.hogwartsartifactsonline.artifact.importer.ArtifactRowReader.ArtifactRow;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Imports artifacts from a CSV or JSON lines stream of any size. The importing thread parses and validates rows
+ * and hands chunks of 500 to a writer thread through a bounded queue. When the database falls behind, the queue
+ * fills up and parsing waits, so at most queue-size + 2 chunks are in memory. Every chunk is committed on its own
+ * by ArtifactService.saveAll, a failing chunk is reported and does not roll back earlier ones.
+ */
+@Component
+public class ArtifactImporter {
+
+    private static final Logger logger = LoggerFactory.getLogger(ArtifactImporter.class);
+
+    private static final int chunkSize = 500;
+
+    private static final int progressLogInterval = 100_000; // Imported artifacts between two progress log lines
+
+    private static final int retainedImports = 20; // Finished imports kept for polling
+
+    private final ArtifactService artifactService;
+
+    private final ArtifactDtoToArtifactConverter artifactDtoToArtifactConverter;
+
+    private final Validator validator;
+
+    private final ObjectMapper objectMapper;
+
+    private final int queueSize;
+
+    private final ExecutorService writers = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "artifact-import-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final ExecutorService importers = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "artifact-import");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Map<String, ArtifactImport> imports = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ArtifactImport> eldest) {
+            return size() > retainedImports && eldest.getValue().getState() != ArtifactImport.State.RUNNING;
+        }
+    };
+
+    public ArtifactImporter(ArtifactService artifactService, ArtifactDtoToArtifactConverter artifactDtoToArtifactConverter,
+                            Validator validator, ObjectMapper objectMapper,
+                            @Value("${api.artifacts.import.queue-size:4}") int queueSize) {
+        this.artifactService = artifactService;
+        this.artifactDtoToArtifactConverter = artifactDtoToArtifactConverter;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.queueSize = queueSize;
+    }
+
+    /**
+     * Imports all rows of the input and returns when the last chunk is committed. Meanwhile, the progress can be
+     * polled with {@link #find(String)}.
+     *
+     * @param input  read to the end but not closed
+     * @param format
+     * @return the finished import
+     * @throws IOException if reading the input fails, chunks committed before stay committed
+     */
+    public ArtifactImport importArtifacts(InputStream input, ArtifactImportFormat format) throws IOException {
+        ArtifactImport artifactImport = register();
+        run(artifactImport, input, format);
+        return artifactImport;
+    }
+
+    /**
+     * Copies the input to a temporary file and imports it from there in the background, so the caller gets the
+     * import to poll as soon as the input is read, not when the last chunk is committed.
+     *
+     * @param input  read to the end but not closed
+     * @param format
+     * @return the running import
+     * @throws IOException if reading the input fails, nothing is imported then
+     */
+    public ArtifactImport startImport(InputStream input, ArtifactImportFormat format) throws IOException {
+        Path file = Files.createTempFile("artifact-import-", "." + format.name().toLowerCase());
+        try {
+            Files.copy(input, file, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+        ArtifactImport artifactImport = register();
+        this.importers.execute(() -> {
+            try (InputStream fileInput = Files.newInputStream(file)) {
+                run(artifactImport, fileInput, format);
+            } catch (IOException | RuntimeException e) {
+                // Already reported by the import's failure.
+            } finally {
+                deleteQuietly(file);
+            }
+        });
+        return artifactImport;
+    }
+
+    private ArtifactImport register() {
+        ArtifactImport artifactImport = new ArtifactImport();
+        synchronized (this.imports) {
+            this.imports.put(artifactImport.getId(), artifactImport);
+        }
+        return artifactImport;
+    }
+
+    private void run(ArtifactImport artifactImport, InputStream input, ArtifactImportFormat format) throws IOException {
+        BlockingQueue<List<ArtifactRow>> queue = new ArrayBlockingQueue<>(this.queueSize);
+        Future<?> writer = this.writers.submit(() -> {
+            write(queue, artifactImport);
+            return null;
+        });
+        try {
+            ArtifactRowReader reader = ArtifactRowReader.of(format, input, this.objectMapper);
+            List<ArtifactRow> chunk = new ArrayList<>(chunkSize);
+            for (ArtifactRow row = reader.next(); row != null; row = reader.next()) {
+                artifactImport.rowRead();
+                Map<String, String> errors = validate(row);
+                if (!errors.isEmpty()) {
+                    artifactImport.reject(row.line(), errors);
+                    continue;
+                }
+                chunk.add(row);
+                if (chunk.size() == chunkSize) {
+                    put(queue, chunk, writer);
+                    chunk = new ArrayList<>(chunkSize);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                put(queue, chunk, writer);
+            }
+            put(queue, List.of(), writer); // Tells the writer that this was the last chunk
+            writer.get();
+            artifactImport.complete();
+            logger.info("Import {} completed: {} artifacts imported, {} rows rejected",
+                    artifactImport.getId(), artifactImport.getImported(), artifactImport.getRejected());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw fail(artifactImport, writer, new IllegalStateException("The import was interrupted", e));
+        } catch (ExecutionException e) {
+            throw fail(artifactImport, writer, new IllegalStateException("Could not write the imported artifacts", e.getCause()));
+        } catch (IOException e) {
+            throw fail(artifactImport, writer, e);
+        } catch (RuntimeException e) {
+            throw fail(artifactImport, writer, e);
+        }
+    }
+
+    public Optional<ArtifactImport> find(String importId) {
+        synchronized (this.imports) {
+            return Optional.ofNullable(this.imports.get(importId));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        this.importers.shutdownNow();
+        this.writers.shutdownNow();
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.warn("Could not delete the import file {}", file, e);
+        }
+    }
+
+    private Map<String, String> validate(ArtifactRow row) {
+        if (row.error() != null) {
+            return Map.of("row", row.error());
+        }
+        Set<ConstraintViolation<ArtifactDto>> violations = this.validator.validate(row.artifactDto());
+        Map<String, String> errors = new HashMap<>(violations.size());
+        violations.forEach(violation -> errors.put(violation.getPropertyPath().toString(), violation.getMessage()));
+        return errors;
+    }
+
+    /**
+     * Waits for room in the queue, but gives up once the writer has stopped, which would otherwise block forever.
+     */
+    private static void put(BlockingQueue<List<ArtifactRow>> queue, List<ArtifactRow> chunk, Future<?> writer)
+            throws InterruptedException, ExecutionException {
+        while (!queue.offer(chunk, 100, TimeUnit.MILLISECONDS)) {
+            if (writer.isDone()) {
+                writer.get();
+                throw new IllegalStateException("The import writer stopped");
+            }
+        }
+    }
+
+    private void write(BlockingQueue<List<ArtifactRow>> queue, ArtifactImport artifactImport) throws InterruptedException {
+        while (true) {
+            List<ArtifactRow> chunk = queue.take();
+            if (chunk.isEmpty()) {
+                return;
+            }
+            List<Artifact> artifacts = new ArrayList<>(chunk.size());
+            chunk.forEach(row -> artifacts.add(this.artifactDtoToArtifactConverter.convert(row.artifactDto())));
+            Map<Integer, String> failures = this.artifactService.saveAll(artifacts);
+            failures.forEach((index, failure) -> artifactImport.reject(chunk.get(index).line(), Map.of("artifact", failure)));
+            long importedBefore = artifactImport.getImported();
+            artifactImport.imported(artifacts.size() - failures.size());
+            if (importedBefore / progressLogInterval != artifactImport.getImported() / progressLogInterval) {
+                logger.info("Import {}: {} artifacts imported", artifactImport.getId(), artifactImport.getImported());
+            }
+        }
+    }
+
+    private static <E extends Exception> E fail(ArtifactImport artifactImport, Future<?> writer, E e) {
+        writer.cancel(true);
+        artifactImport.fail(e.getMessage());
+        logger.warn("Import {} failed after {} artifacts", artifactImport.getId(), artifactImport.getImported(), e);
+        return e;
+    }
+
+}
@@ -0,0 +1,213 @@
+package idv.ex.cs.hogwartsartifactsonline.artifact.importer;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import idv.ex.cs.hogwartsartifactsonline.artifact.dto.ArtifactDto;
+import idv.ex.cs.hogwartsartifactsonline.system.exception.InvalidArgumentException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Parses an import file one row at a time from a small buffer, so the file is never held in memory. A row that
+ * cannot be parsed is returned with its error, only a row longer than maxRowLength stops the import.
+ */
+abstract class ArtifactRowReader {
+
+    static final int maxRowLength = 1024 * 1024; // Characters
+
+    /**
+     * @param line        the line the row starts on
+     * @param artifactDto the parsed row, null if it could not be parsed
+     * @param error       why the row could not be parsed, null if it could
+     */
+    record ArtifactRow(long line, ArtifactDto artifactDto, String error) {
+    }
+
+    private final Reader reader;
+
+    private final char[] buffer = new char[8192];
+
+    private int position;
+
+    private int limit;
+
+    protected long line = 1; // The line the next character is on
+
+    private ArtifactRowReader(InputStream input) {
+        this.reader = new InputStreamReader(input, StandardCharsets.UTF_8);
+    }
+
+    static ArtifactRowReader of(ArtifactImportFormat format, InputStream input, ObjectMapper objectMapper) {
+        return switch (format) {
+            case CSV -> new Csv(input);
+            case JSON_LINES -> new JsonLines(input, objectMapper);
+        };
+    }
+
+    /**
+     * @return the next row, null at the end of the file
+     * @throws IOException
+     */
+    abstract ArtifactRow next() throws IOException;
+
+    protected int read() throws IOException {
+        if (this.position == this.limit) {
+            this.limit = this.reader.read(this.buffer);
+            this.position = 0;
+            if (this.limit <= 0) {
+                this.limit = 0;
+                return -1;
+            }
+        }
+        return this.buffer[this.position++];
+    }
+
+    protected int peek() throws IOException {
+        int c = read();
+        if (c != -1) {
+            this.position--;
+        }
+        return c;
+    }
+
+    protected static void checkLength(int length, long line) {
+        if (length > maxRowLength) {
+            throw new InvalidArgumentException("The row on line " + line + " is longer than " + maxRowLength + " characters.");
+        }
+    }
+
+    private static final class Csv extends ArtifactRowReader {
+
+        private Map<String, Integer> columns; // Column name -> index, from the header row
+
+        private Csv(InputStream input) {
+            super(input);
+        }
+
+        @Override
+        ArtifactRow next() throws IOException {
+            if (this.columns == null) {
+                List<String> header = readRecord();
+                if (header == null) {
+                    return null;
+                }
+                this.columns = new HashMap<>();
+                for (int i = 0; i < header.size(); i++) {
+                    this.columns.put(header.get(i).replace("\uFEFF", "").trim(), i); // Excel starts with a byte order mark
+                }
+            }
+            while (true) {
+                long recordLine = this.line;
+                List<String> record = readRecord();
+                if (record == null) {
+                    return null;
+                }
+                if (record.size() == 1 && record.get(0).isEmpty()) {
+                    continue; // Blank line
+                }
+                if (record.size() != this.columns.size()) {
+                    return new ArtifactRow(recordLine, null, "Expected " + this.columns.size() + " columns but found " + record.size() + ".");
+                }
+                return new ArtifactRow(recordLine, new ArtifactDto(null, column(record, "name"), column(record, "description"),
+                        column(record, "imageUrl"), null), null);
+            }
+        }
+
+        private String column(List<String> record, String name) {
+            Integer index = this.columns.get(name);
+            return index != null ? record.get(index) : null;
+        }
+
+        /**
+         * Reads the fields of one record, which spans several lines if a quoted field contains line breaks.
+         */
+        private List<String> readRecord() throws IOException {
+            long recordLine = this.line;
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            int length = 0;
+            boolean quoted = false;
+            int c = read();
+            if (c == -1) {
+                return null;
+            }
+            for (; c != -1; c = read()) {
+                checkLength(++length, recordLine);
+                if (quoted) {
+                    if (c == '"' && peek() == '"') {
+                        read();
+                        field.append('"');
+                    } else if (c == '"') {
+                        quoted = false;
+                    } else {
+                        if (c == '\n') {
+                            this.line++;
+                        }
+                        field.append((char) c);
+                    }
+                } else if (c == '"' && field.isEmpty()) {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '\n') {
+                    this.line++;
+                    break;
+                } else if (c != '\r') {
+                    field.append((char) c);
+                }
+            }
+            fields.add(field.toString());
+            return fields;
+        }
+
+    }
+
+    private static final class JsonLines extends ArtifactRowReader {
+
+        private final ObjectMapper objectMapper;
+
+        private JsonLines(InputStream input, ObjectMapper objectMapper) {
+            super(input);
+            this.objectMapper = objectMapper;
+        }
+
+        @Override
+        ArtifactRow next() throws IOException {
+            StringBuilder row = new StringBuilder();
+            while (true) {
+                long rowLine = this.line;
+                row.setLength(0);
+                int c;
+                while ((c = read()) != -1 && c != '\n') {
+                    row.append((char) c);
+                    checkLength(row.length(), rowLine);
+                }
+                if (c == '\n') {
+                    this.line++;
+                }
+                if (row.toString().isBlank()) {
+                    if (c == -1) {
+                        return null;
+                    }
+                    continue;
+                }
+                try {
+                    return new ArtifactRow(rowLine, this.objectMapper.readValue(row.toString(), ArtifactDto.class), null);
+                } catch (JsonProcessingException e) {
+                    return new ArtifactRow(rowLine, null, "Invalid JSON: " + e.getOriginalMessage());
+                }
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,281 @@
+package idv.ex.cs.hogwartsartifactsonline.artifact.search;
+
+import idv.ex.cs.hogwartsartifactsonline.artifact.Artifact;
+import idv.ex.cs.hogwartsartifactsonline.artifact.dto.ArtifactDto;
+import idv.ex.cs.hogwartsartifactsonline.artifact.dto.ArtifactSearchHit;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * An in-memory inverted index over artifact names and descriptions, ranked with BM25.
+ * Every document gets an int ordinal; a term maps to the ordinals of the documents containing it and the term
+ * frequency in each. Updates append a new ordinal and tombstone the old one, the tombstones are dropped by a
+ * compaction once they outnumber the live documents.
+ */
+@Component
+public class ArtifactSearchIndex {
+
+    private static final double k1 = 1.2;
+
+    private static final double b = 0.75;
+
+    private static final int nameBoost = 2; // A term in the name counts as much as two in the description
+
+    private static final Set<String> stopWords = Set.of("a", "an", "and", "are", "as", "at", "be", "by", "for",
+            "from", "in", "is", "it", "of", "on", "or", "that", "the", "to", "was", "were", "with");
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Map<String, Postings> postings = new HashMap<>();
+
+    private Map<String, Integer> ordinals = new HashMap<>(); // Artifact id -> ordinal of its live document
+
+    private List<String> ids = new ArrayList<>(); // Ordinal -> artifact id
+
+    private List<String> names = new ArrayList<>(); // Ordinal -> artifact name
+
+    private int[] lengths = new int[1024]; // Ordinal -> document length in terms
+
+    private BitSet deleted = new BitSet();
+
+    private long totalLength; // Sum of the lengths of the live documents
+
+    public void add(Artifact artifact) {
+        add(artifact.getId(), artifact.getName(), artifact.getDescription());
+    }
+
+    public void add(ArtifactDto artifactDto) {
+        add(artifactDto.id(), artifactDto.name(), artifactDto.description());
+    }
+
+    private void add(String id, String name, String description) {
+        Map<String, Integer> termFrequencies = new HashMap<>();
+        int length = 0;
+        for (String term : tokenize(name)) {
+            termFrequencies.merge(term, nameBoost, Integer::sum);
+            length += nameBoost;
+        }
+        for (String term : tokenize(description)) {
+            termFrequencies.merge(term, 1, Integer::sum);
+            length++;
+        }
+        this.lock.writeLock().lock();
+        try {
+            removeLocked(id);
+            int ordinal = this.ids.size();
+            this.ids.add(id);
+            this.names.add(name);
+            if (ordinal == this.lengths.length) {
+                this.lengths = Arrays.copyOf(this.lengths, ordinal * 2);
+            }
+            this.lengths[ordinal] = length;
+            this.totalLength += length;
+            this.ordinals.put(id, ordinal);
+            termFrequencies.forEach((term, frequency) ->
+                    this.postings.computeIfAbsent(term, t -> new Postings()).add(ordinal, frequency));
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String artifactId) {
+        this.lock.writeLock().lock();
+        try {
+            removeLocked(artifactId);
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        this.lock.writeLock().lock();
+        try {
+            this.postings = new HashMap<>();
+            this.ordinals = new HashMap<>();
+            this.ids = new ArrayList<>();
+            this.names = new ArrayList<>();
+            this.lengths = new int[1024];
+            this.deleted = new BitSet();
+            this.totalLength = 0;
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        this.lock.readLock().lock();
+        try {
+            return this.ordinals.size();
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the artifacts matching any term of the query, best BM25 score first.
+     *
+     * @param query free text
+     * @param limit the maximum number of hits
+     * @return the hits, empty if no artifact matches
+     */
+    public List<ArtifactSearchHit> search(String query, int limit) {
+        Set<String> terms = new LinkedHashSet<>(tokenize(query));
+        this.lock.readLock().lock();
+        try {
+            int liveDocuments = this.ordinals.size();
+            if (terms.isEmpty() || liveDocuments == 0 || limit < 1) {
+                return List.of();
+            }
+            double averageLength = (double) this.totalLength / liveDocuments;
+            double[] scores = new double[this.ids.size()];
+            BitSet matched = new BitSet(this.ids.size());
+            for (String term : terms) {
+                Postings termPostings = this.postings.get(term);
+                if (termPostings == null) {
+                    continue;
+                }
+                // The posting list may still hold tombstoned documents, they must not count towards the idf.
+                int documentFrequency = 0;
+                for (int i = 0; i < termPostings.size; i++) {
+                    if (!this.deleted.get(termPostings.ordinals[i])) {
+                        documentFrequency++;
+                    }
+                }
+                double idf = Math.log(1 + (liveDocuments - documentFrequency + 0.5) / (documentFrequency + 0.5));
+                for (int i = 0; i < termPostings.size; i++) {
+                    int ordinal = termPostings.ordinals[i];
+                    if (this.deleted.get(ordinal)) {
+                        continue;
+                    }
+                    int frequency = termPostings.frequencies[i];
+                    double norm = k1 * (1 - b + b * this.lengths[ordinal] / averageLength);
+                    scores[ordinal] += idf * frequency * (k1 + 1) / (frequency + norm);
+                    matched.set(ordinal);
+                }
+            }
+            PriorityQueue<Integer> top = new PriorityQueue<>(limit, (x, y) -> Double.compare(scores[x], scores[y]));
+            for (int ordinal = matched.nextSetBit(0); ordinal >= 0; ordinal = matched.nextSetBit(ordinal + 1)) {
+                if (top.size() < limit) {
+                    top.offer(ordinal);
+                } else if (scores[ordinal] > scores[top.peek()]) {
+                    top.poll();
+                    top.offer(ordinal);
+                }
+            }
+            ArtifactSearchHit[] hits = new ArtifactSearchHit[top.size()];
+            for (int i = hits.length - 1; i >= 0; i--) {
+                int ordinal = top.poll();
+                hits[i] = new ArtifactSearchHit(this.ids.get(ordinal), this.names.get(ordinal), scores[ordinal]);
+            }
+            return List.of(hits);
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null) {
+            return terms;
+        }
+        String lowerCase = text.toLowerCase(Locale.ROOT);
+        int start = -1;
+        for (int i = 0; i <= lowerCase.length(); i++) {
+            boolean letterOrDigit = i < lowerCase.length() && Character.isLetterOrDigit(lowerCase.charAt(i));
+            if (letterOrDigit && start < 0) {
+                start = i;
+            } else if (!letterOrDigit && start >= 0) {
+                String term = lowerCase.substring(start, i);
+                if (term.length() > 1 && !stopWords.contains(term)) {
+                    terms.add(term);
+                }
+                start = -1;
+            }
+        }
+        return terms;
+    }
+
+    private void removeLocked(String artifactId) {
+        Integer ordinal = this.ordinals.remove(artifactId);
+        if (ordinal == null) {
+            return;
+        }
+        this.deleted.set(ordinal);
+        this.totalLength -= this.lengths[ordinal];
+        if (this.deleted.cardinality() > Math.max(1024, this.ordinals.size())) {
+            compactLocked();
+        }
+    }
+
+    /**
+     * Renumbers the live documents and drops the tombstoned ones from every posting list.
+     */
+    private void compactLocked() {
+        int[] newOrdinals = new int[this.ids.size()];
+        List<String> newIds = new ArrayList<>(this.ordinals.size());
+        List<String> newNames = new ArrayList<>(this.ordinals.size());
+        int[] newLengths = new int[Math.max(1024, this.ordinals.size() * 2)];
+        for (int ordinal = 0; ordinal < this.ids.size(); ordinal++) {
+            if (this.deleted.get(ordinal)) {
+                newOrdinals[ordinal] = -1;
+            } else {
+                newOrdinals[ordinal] = newIds.size();
+                newLengths[newIds.size()] = this.lengths[ordinal];
+                newIds.add(this.ids.get(ordinal));
+                newNames.add(this.names.get(ordinal));
+            }
+        }
+        Map<String, Postings> newPostings = new HashMap<>();
+        this.postings.forEach((term, termPostings) -> {
+            Postings compacted = new Postings();
+            for (int i = 0; i < termPostings.size; i++) {
+                int newOrdinal = newOrdinals[termPostings.ordinals[i]];
+                if (newOrdinal >= 0) {
+                    compacted.add(newOrdinal, termPostings.frequencies[i]);
+                }
+            }
+            if (compacted.size > 0) {
+                newPostings.put(term, compacted);
+            }
+        });
+        this.ordinals.replaceAll((id, ordinal) -> newOrdinals[ordinal]);
+        this.ids = newIds;
+        this.names = newNames;
+        this.lengths = newLengths;
+        this.postings = newPostings;
+        this.deleted = new BitSet();
+    }
+
+    private static class Postings {
+
+        private int[] ordinals = new int[4];
+
+        private int[] frequencies = new int[4];
+
+        private int size;
+
+        private void add(int ordinal, int frequency) {
+            if (this.size == this.ordinals.length) {
+                this.ordinals = Arrays.copyOf(this.ordinals, this.size * 2);
+                this.frequencies = Arrays.copyOf(this.frequencies, this.size * 2);
+            }
+            this.ordinals[this.size] = ordinal;
+            this.frequencies[this.size] = frequency;
+            this.size++;
+        }
+
+    }
+
+}
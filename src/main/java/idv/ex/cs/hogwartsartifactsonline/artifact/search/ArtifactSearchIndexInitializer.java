@@ -0,0 +1,36 @@
+package idv.ex.cs.hogwartsartifactsonline.artifact.search;
+
+import idv.ex.cs.hogwartsartifactsonline.artifact.ArtifactService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Fills the search index from the database once the application has started, i.e., after DBDataInitializer ran.
+ * From then on ArtifactService keeps the index up to date.
+ */
+@Component
+public class ArtifactSearchIndexInitializer {
+
+    private static final Logger logger = LoggerFactory.getLogger(ArtifactSearchIndexInitializer.class);
+
+    private final ArtifactService artifactService;
+
+    private final ArtifactSearchIndex artifactSearchIndex;
+
+    public ArtifactSearchIndexInitializer(ArtifactService artifactService, ArtifactSearchIndex artifactSearchIndex) {
+        this.artifactService = artifactService;
+        this.artifactSearchIndex = artifactSearchIndex;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildIndex() {
+        long start = System.currentTimeMillis();
+        this.artifactSearchIndex.clear();
+        this.artifactService.forEachArtifactDto(this.artifactSearchIndex::add);
+        logger.info("Indexed {} artifacts for search in {} ms", this.artifactSearchIndex.size(), System.currentTimeMillis() - start);
+    }
+
+}
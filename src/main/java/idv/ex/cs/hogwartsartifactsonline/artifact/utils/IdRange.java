@@ -0,0 +1,15 @@
+package idv.ex.cs.hogwartsartifactsonline.artifact.utils;
+
+/**
+ * Consecutive ids reserved from an IdWorker at once: first, first + 1, ..., first + count - 1.
+ *
+ * @param first the smallest id of the range
+ * @param count the number of ids, at least 1
+ */
+public record IdRange(long first, int count) {
+
+    public long last() {
+        return this.first + this.count - 1;
+    }
+
+}
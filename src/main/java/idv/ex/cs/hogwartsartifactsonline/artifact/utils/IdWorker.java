@@ -1,14 +1,22 @@
 package idv.ex.cs.hogwartsartifactsonline.artifact.utils;
 
+import idv.ex.cs.hogwartsartifactsonline.system.stats.Log2Histogram;
+import idv.ex.cs.hogwartsartifactsonline.system.stats.StatsSource;
+
 import java.lang.management.ManagementFactory;
 import java.net.InetAddress;
 import java.net.NetworkInterface;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * This piece of code is from the Internet. The quality is unknown.
  * Only for demoing purpose. Use with caution!
  */
-public class IdWorker {
+public class IdWorker implements StatsSource {
 
     private final static long twepoch = 1288834974657L;
 
@@ -30,60 +38,270 @@ public class IdWorker {
 
     private final static long sequenceMask = -1L ^ (-1L << sequenceBits);
 
-    private static long lastTimestamp = -1L;
+    public final static int maxNodes = (int) ((maxDatacenterId + 1) * (maxWorkerId + 1)); // Distinct datacenter and worker id pairs
+
+    private final static int spinsBeforeParking = 64;
+
+    private final static long parkNanos = 50_000L; // Well below a millisecond, so a waiting thread wakes up in time
+
+    /**
+     * The last issued timestamp, relative to twepoch, and sequence packed as they appear in the id:
+     * timestamp << sequenceBits | sequence. Advanced by compare-and-set, so nextId never takes a lock.
+     */
+    private final AtomicLong state = new AtomicLong(-1L);
+
+    private volatile long node; // datacenterId << datacenterIdShift | workerId << workerIdShift
+
+    private volatile long leaseExpiresAt = Long.MAX_VALUE; // Ids are refused from then on
+
+    private final long maxDriftMillis; // How far the issued timestamps may run ahead of the clock
+
+    private final LongAdder skewEvents = new LongAdder();
+
+    private final LongAdder borrowedIds = new LongAdder();
+
+    private final LongAdder refusals = new LongAdder();
+
+    private final AtomicLong maxBorrowedMillis = new AtomicLong();
+
+    private volatile boolean runningAhead;
+
+    private final LongAdder issuedIds = new LongAdder();
 
-    private long sequence = 0L;
+    private final Log2Histogram idsPerMillisecond = new Log2Histogram(); // Of the milliseconds that issued any
 
-    private final long workerId;
+    private volatile long lastMillisecondIds; // Ids issued in the last finished millisecond
 
-    private final long datacenterId;
+    private final LongAdder sequenceOverflows = new LongAdder();
+
+    private final AtomicLong lastOverflow = new AtomicLong(-1L); // So that threads waiting together count once
+
+    private final Log2Histogram waitMicros = new Log2Histogram();
 
 
     public IdWorker() {
-        this.datacenterId = getDatacenterId(maxDatacenterId);
-        this.workerId = getMaxWorkerId(datacenterId, maxWorkerId);
+        long datacenterId = getDatacenterId(maxDatacenterId);
+        this.node = nodeBits(getMaxWorkerId(datacenterId, maxWorkerId), datacenterId);
+        this.maxDriftMillis = 0;
+    }
+
+    /**
+     * Creates a worker without a worker id, it refuses ids until {@link #lease(int, long)} assigns one.
+     *
+     * @param maxDriftMillis see {@link #IdWorker(long, long, long)}
+     */
+    public IdWorker(long maxDriftMillis) {
+        if (maxDriftMillis < 0) {
+            throw new IllegalArgumentException("max drift can't be less than 0");
+        }
+        this.maxDriftMillis = maxDriftMillis;
+        this.leaseExpiresAt = Long.MIN_VALUE;
     }
 
     public IdWorker(long workerId, long datacenterId) {
+        this(workerId, datacenterId, 0);
+    }
+
+    /**
+     * With a drift budget, a clock that moved backwards does not stop id generation. The worker keeps a logical
+     * clock instead: it continues from the last issued timestamp and, when a millisecond's sequence is used up,
+     * borrows the following milliseconds, as long as it stays at most maxDriftMillis ahead of the clock. Beyond
+     * that, a clock that moved back further fails nextId and a used-up sequence waits for the clock to catch up.
+     *
+     * @param workerId
+     * @param datacenterId
+     * @param maxDriftMillis 0 to refuse ids whenever the clock moves backwards
+     */
+    public IdWorker(long workerId, long datacenterId, long maxDriftMillis) {
+        if (maxDriftMillis < 0) {
+            throw new IllegalArgumentException("max drift can't be less than 0");
+        }
+        this.node = nodeBits(workerId, datacenterId);
+        this.maxDriftMillis = maxDriftMillis;
+    }
+
+    /**
+     * Assigns a leased node id, the datacenter id in the upper and the worker id in the lower five bits, or
+     * extends the current lease.
+     *
+     * @param nodeId    from 0 to maxNodes - 1
+     * @param expiresAt the time in milliseconds from which ids are refused unless the lease is extended
+     */
+    public void lease(int nodeId, long expiresAt) {
+        if (nodeId < 0 || nodeId >= maxNodes) {
+            throw new IllegalArgumentException(String.format("node Id can't be greater than %d or less than 0", maxNodes - 1));
+        }
+        this.node = nodeBits(nodeId & maxWorkerId, nodeId >> workerIdBits);
+        this.leaseExpiresAt = expiresAt;
+    }
+
+    /**
+     * Refuses ids from now on, e.g., because another node took over the lease.
+     */
+    public void revokeLease() {
+        this.leaseExpiresAt = Long.MIN_VALUE;
+    }
+
+    private static long nodeBits(long workerId, long datacenterId) {
         if (workerId > maxWorkerId || workerId < 0) {
             throw new IllegalArgumentException(String.format("worker Id can't be greater than %d or less than 0", maxWorkerId));
         }
         if (datacenterId > maxDatacenterId || datacenterId < 0) {
             throw new IllegalArgumentException(String.format("datacenter Id can't be greater than %d or less than 0", maxDatacenterId));
         }
-        this.workerId = workerId;
-        this.datacenterId = datacenterId;
+        return (datacenterId << datacenterIdShift) | (workerId << workerIdShift);
+    }
+
+    public long nextId() {
+        return nextRange(1).first();
+    }
+
+    /**
+     * Reserves up to max ids with a single compare-and-set. They are consecutive numbers, because they all come
+     * from the sequence of one millisecond, so fewer than max are returned when that millisecond runs out.
+     *
+     * @param max the most ids to reserve, at least 1
+     * @return the reserved ids
+     */
+    public IdRange nextRange(int max) {
+        if (max < 1) {
+            throw new IllegalArgumentException("max can't be less than 1");
+        }
+        while (true) {
+            // The state is read before the clock, so a timestamp behind it means the clock really moved backwards
+            // and not that another thread read the clock later than this one.
+            long current = this.state.get();
+            long lastTimestamp = current >> sequenceBits;
+            long now = timeGen();
+            if (now >= this.leaseExpiresAt) {
+                throw new IllegalStateException("This node holds no worker id lease, refusing to generate ids");
+            }
+            long timestamp = now - twepoch;
+            long first;
+            if (timestamp > lastTimestamp) {
+                first = timestamp << sequenceBits;
+            } else if (lastTimestamp - timestamp > this.maxDriftMillis) {
+                this.refusals.increment();
+                throw new RuntimeException(String.format("Clock moved backwards.  Refusing to generate id for %d milliseconds", lastTimestamp - timestamp - this.maxDriftMillis));
+            } else if ((current & sequenceMask) == sequenceMask) {
+                if (this.lastOverflow.get() != lastTimestamp && this.lastOverflow.getAndSet(lastTimestamp) != lastTimestamp) {
+                    this.sequenceOverflows.increment();
+                }
+                if (lastTimestamp + 1 - timestamp > this.maxDriftMillis) {
+                    tilNextMillis(lastTimestamp - this.maxDriftMillis + twepoch);
+                    continue;
+                }
+                first = (lastTimestamp + 1) << sequenceBits; // Borrowed from the future
+            } else {
+                first = current + 1;
+            }
+            int count = (int) Math.min(max, sequenceMask - (first & sequenceMask) + 1);
+            if (this.state.compareAndSet(current, first + count - 1)) {
+                this.issuedIds.add(count);
+                if ((first & sequenceMask) == 0 && current >= 0) { // This range started a new millisecond
+                    this.lastMillisecondIds = (current & sequenceMask) + 1;
+                    this.idsPerMillisecond.record(this.lastMillisecondIds);
+                }
+                recordDrift((first >> sequenceBits) - timestamp, count);
+                return new IdRange((first >> sequenceBits << timestampLeftShift)
+                        | this.node | (first & sequenceMask), count);
+            }
+        }
     }
 
-    public synchronized long nextId() {
-        long timestamp = timeGen();
-        if (timestamp < lastTimestamp) {
-            throw new RuntimeException(String.format("Clock moved backwards.  Refusing to generate id for %d milliseconds", lastTimestamp - timestamp));
+    /**
+     * Reserves n ids, taking whole runs of a millisecond's sequence at once and moving on to the following
+     * milliseconds when n is larger than what is left.
+     *
+     * @param n the number of ids to reserve
+     * @return the ids in increasing order
+     */
+    public long[] nextIds(int n) {
+        if (n < 0) {
+            throw new IllegalArgumentException("n can't be less than 0");
         }
-        if (lastTimestamp == timestamp) {
-            sequence = (sequence + 1) & sequenceMask;
-            if (sequence == 0) {
-                timestamp = tilNextMillis(lastTimestamp);
+        long[] ids = new long[n];
+        for (int filled = 0; filled < n; ) {
+            IdRange range = nextRange(n - filled);
+            for (int i = 0; i < range.count(); i++) {
+                ids[filled++] = range.first() + i;
             }
-        } else {
-            sequence = 0L;
         }
-        lastTimestamp = timestamp;
-        long nextId = ((timestamp - twepoch) << timestampLeftShift)
-                | (datacenterId << datacenterIdShift)
-                | (workerId << workerIdShift) | sequence;
-        return nextId;
+        return ids;
     }
 
-    private long tilNextMillis(final long lastTimestamp) {
-        long timestamp = this.timeGen();
-        while (timestamp <= lastTimestamp) {
-            timestamp = this.timeGen();
+    private void recordDrift(long aheadMillis, int count) {
+        if (aheadMillis <= 0) {
+            if (this.runningAhead) {
+                this.runningAhead = false;
+            }
+            return;
+        }
+        if (!this.runningAhead) {
+            this.runningAhead = true;
+            this.skewEvents.increment();
+        }
+        this.borrowedIds.add(count);
+        this.maxBorrowedMillis.accumulateAndGet(aheadMillis, Math::max);
+    }
+
+    @Override
+    public String getStatsName() {
+        return "idWorker";
+    }
+
+    /**
+     * skewEvents counts the times the worker started running ahead of the clock, borrowedMillis is how far ahead
+     * it is right now. sequenceUsed is the fraction of the sequence the last finished millisecond used, the
+     * headroom left for bursts. waitMicros is the time threads spent in tilNextMillis.
+     */
+    @Override
+    public Object getStats() {
+        long aheadMillis = (this.state.get() >> sequenceBits) - (timeGen() - twepoch);
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("nodeId", this.node >> workerIdShift);
+        stats.put("leaseExpiresAt", this.leaseExpiresAt);
+        stats.put("issuedIds", this.issuedIds.sum());
+        stats.put("idsPerMillisecond", this.idsPerMillisecond.toStats());
+        stats.put("sequenceUsed", (double) this.lastMillisecondIds / (sequenceMask + 1));
+        stats.put("sequenceOverflows", this.sequenceOverflows.sum());
+        stats.put("waitMicros", this.waitMicros.toStats());
+        stats.put("maxDriftMillis", this.maxDriftMillis);
+        stats.put("skewEvents", this.skewEvents.sum());
+        stats.put("borrowedIds", this.borrowedIds.sum());
+        stats.put("borrowedMillis", Math.max(0, aheadMillis));
+        stats.put("maxBorrowedMillis", this.maxBorrowedMillis.get());
+        stats.put("refusals", this.refusals.sum());
+        return stats;
+    }
+
+    /**
+     * Waits until the clock has passed lastTimestamp, after the 4096 ids of that millisecond are used up. Spins
+     * briefly, because the next millisecond is usually close, and then parks instead of burning a core.
+     */
+    private void tilNextMillis(final long lastTimestamp) {
+        IdWorkerWaitEvent event = new IdWorkerWaitEvent();
+        event.begin();
+        long start = System.nanoTime();
+        int spins = 0;
+        for (; this.timeGen() <= lastTimestamp; spins++) {
+            if (spins < spinsBeforeParking) {
+                Thread.onSpinWait();
+            } else {
+                LockSupport.parkNanos(parkNanos);
+            }
+        }
+        this.waitMicros.record((System.nanoTime() - start) / 1000);
+        event.end();
+        if (event.shouldCommit()) {
+            event.nodeId = this.node >> workerIdShift;
+            event.waitedFor = lastTimestamp;
+            event.spins = spins;
+            event.commit();
         }
-        return timestamp;
     }
 
-    private long timeGen() {
+    protected long timeGen() {
         return System.currentTimeMillis();
     }
 
@@ -0,0 +1,31 @@
+package idv.ex.cs.hogwartsartifactsonline.artifact.utils;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Recorded by JFR while a thread waits in IdWorker.tilNextMillis, so that stalls in id generation show up next
+ * to the JDBC and lock events of the same insert.
+ */
+@Name("idv.ex.cs.hogwartsartifactsonline.IdWorkerWait")
+@Label("IdWorker Wait")
+@Category({"Hogwarts Artifacts Online", "IdWorker"})
+@Description("A thread waited for the clock because the sequence of a millisecond or the clock drift budget was used up")
+@StackTrace(false)
+class IdWorkerWaitEvent extends Event {
+
+    @Label("Node Id")
+    long nodeId;
+
+    @Label("Waited For")
+    @Description("The millisecond, since the epoch, that the clock had to pass")
+    long waitedFor;
+
+    @Label("Spins")
+    int spins;
+
+}
@@ -0,0 +1,50 @@
+package idv.ex.cs.hogwartsartifactsonline.artifact.utils;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Version;
+
+import java.io.Serializable;
+
+/**
+ * One application node's claim on a node id of the IdWorker, see WorkerLeaseManager.
+ */
+@Entity
+public class WorkerLease implements Serializable {
+
+    @Id
+    private Integer nodeId;
+
+    private String owner;
+
+    private long expiresAt; // Milliseconds since the epoch
+
+    @Version
+    private Long token; // Fencing token, changes whenever the lease passes to another owner
+
+    public WorkerLease() {
+    }
+
+    public WorkerLease(Integer nodeId, String owner, long expiresAt) {
+        this.nodeId = nodeId;
+        this.owner = owner;
+        this.expiresAt = expiresAt;
+    }
+
+    public Integer getNodeId() {
+        return nodeId;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public long getExpiresAt() {
+        return expiresAt;
+    }
+
+    public Long getToken() {
+        return token;
+    }
+
+}
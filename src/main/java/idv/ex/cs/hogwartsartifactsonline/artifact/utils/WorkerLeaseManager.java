@@ -0,0 +1,181 @@
+package idv.ex.cs.hogwartsartifactsonline.artifact.utils;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Leases the IdWorker's node id from the WorkerLease table, so up to IdWorker.maxNodes application nodes sharing
+ * one database never issue the same id. The lease is renewed by a heartbeat. A node that cannot renew stops
+ * issuing ids when its lease expires, and a node that finds its lease taken over (the fencing token changed)
+ * stops at once and leases another node id. An expired lease is only reused after ttl plus the IdWorker's
+ * clock drift budget, because its former holder may have issued ids that far ahead of the clock.
+ */
+@Component
+public class WorkerLeaseManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(WorkerLeaseManager.class);
+
+    private static final int maxAttempts = 5; // Lost races for a free node id before giving up
+
+    private final WorkerLeaseRepository workerLeaseRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final IdWorker idWorker;
+
+    private final long ttlMillis;
+
+    private final long heartbeatMillis;
+
+    private final long reuseAfterMillis;
+
+    private final String owner = ManagementFactory.getRuntimeMXBean().getName() + "/" + UUID.randomUUID();
+
+    private final ScheduledExecutorService heartbeat = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "worker-lease-heartbeat");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Guarded by this
+    private Integer nodeId;
+
+    private Long token;
+
+    public WorkerLeaseManager(WorkerLeaseRepository workerLeaseRepository, PlatformTransactionManager transactionManager, IdWorker idWorker,
+                              @Value("${api.artifacts.ids.lease.ttl:30s}") Duration ttl,
+                              @Value("${api.artifacts.ids.lease.heartbeat:10s}") Duration heartbeat,
+                              @Value("${api.artifacts.ids.max-clock-drift:0ms}") Duration maxClockDrift) {
+        if (heartbeat.compareTo(ttl) >= 0) {
+            throw new IllegalArgumentException("The lease heartbeat must be shorter than its ttl");
+        }
+        this.workerLeaseRepository = workerLeaseRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.idWorker = idWorker;
+        this.ttlMillis = ttl.toMillis();
+        this.heartbeatMillis = heartbeat.toMillis();
+        this.reuseAfterMillis = ttl.toMillis() + maxClockDrift.toMillis();
+    }
+
+    @PostConstruct
+    public void start() {
+        acquire();
+        this.heartbeat.scheduleWithFixedDelay(this::renew, this.heartbeatMillis, this.heartbeatMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized Integer getNodeId() {
+        return this.nodeId;
+    }
+
+    /**
+     * Extends the lease, or leases a node id again after the lease was lost. A database that cannot be reached
+     * is only logged, the IdWorker keeps working until the lease expires.
+     */
+    synchronized void renew() {
+        try {
+            if (this.nodeId == null) {
+                acquire();
+                return;
+            }
+            long expiresAt = System.currentTimeMillis() + this.ttlMillis;
+            Integer renewed = this.transactionTemplate.execute(status ->
+                    this.workerLeaseRepository.renew(this.nodeId, this.owner, this.token, expiresAt));
+            if (renewed != null && renewed == 1) {
+                this.idWorker.lease(this.nodeId, expiresAt);
+                return;
+            }
+            logger.warn("Worker id lease {} was taken over by another node", this.nodeId);
+            this.idWorker.revokeLease();
+            this.nodeId = null;
+            this.token = null;
+            acquire();
+        } catch (RuntimeException e) {
+            logger.warn("Could not renew worker id lease {}, ids are refused once it expires", this.nodeId, e);
+        }
+    }
+
+    /**
+     * Takes over the longest expired lease, or else inserts a lease for the lowest node id nobody has used yet.
+     */
+    synchronized void acquire() {
+        for (int attempt = 0; attempt < maxAttempts; attempt++) {
+            long now = System.currentTimeMillis();
+            long expiresAt = now + this.ttlMillis;
+            long reusableBefore = now - this.reuseAfterMillis;
+            for (Integer candidate : this.workerLeaseRepository.findReusableNodeIds(reusableBefore)) {
+                Integer taken = this.transactionTemplate.execute(status ->
+                        this.workerLeaseRepository.takeOver(candidate, this.owner, expiresAt, reusableBefore));
+                if (taken != null && taken == 1) {
+                    granted(candidate, expiresAt);
+                    return;
+                }
+            }
+            int free = lowestUnusedNodeId(this.workerLeaseRepository.findNodeIds());
+            if (free == IdWorker.maxNodes) {
+                throw new IllegalStateException("All " + IdWorker.maxNodes + " worker ids are leased");
+            }
+            try {
+                this.transactionTemplate.executeWithoutResult(status ->
+                        this.workerLeaseRepository.saveAndFlush(new WorkerLease(free, this.owner, expiresAt)));
+                granted(free, expiresAt);
+                return;
+            } catch (DataAccessException e) {
+                logger.debug("Another node leased worker id {} first", free);
+            }
+        }
+        throw new IllegalStateException("Could not lease a worker id after " + maxAttempts + " attempts");
+    }
+
+    private void granted(int nodeId, long expiresAt) {
+        this.token = this.workerLeaseRepository.findToken(nodeId, this.owner).orElseThrow();
+        this.nodeId = nodeId;
+        this.idWorker.lease(nodeId, expiresAt);
+        logger.info("Leased worker id {}", nodeId);
+    }
+
+    private static int lowestUnusedNodeId(List<Integer> nodeIds) {
+        int nodeId = 0;
+        for (Integer used : nodeIds) { // Sorted
+            if (used != nodeId) {
+                break;
+            }
+            nodeId++;
+        }
+        return nodeId;
+    }
+
+    /**
+     * Stops issuing ids and releases the lease, which becomes reusable after ttl plus the clock drift budget.
+     */
+    @PreDestroy
+    public synchronized void shutdown() {
+        this.heartbeat.shutdownNow();
+        this.idWorker.revokeLease();
+        if (this.nodeId == null) {
+            return;
+        }
+        try {
+            this.transactionTemplate.execute(status ->
+                    this.workerLeaseRepository.renew(this.nodeId, this.owner, this.token, System.currentTimeMillis()));
+        } catch (RuntimeException e) {
+            logger.warn("Could not release worker id lease {}", this.nodeId, e);
+        }
+        this.nodeId = null;
+    }
+
+}
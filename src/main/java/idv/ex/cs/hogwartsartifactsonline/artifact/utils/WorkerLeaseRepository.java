@@ -0,0 +1,41 @@
+package idv.ex.cs.hogwartsartifactsonline.artifact.utils;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface WorkerLeaseRepository extends JpaRepository<WorkerLease, Integer> {
+
+    @Query("select l.nodeId from WorkerLease l order by l.nodeId")
+    List<Integer> findNodeIds();
+
+    @Query("select l.nodeId from WorkerLease l where l.expiresAt < :reusableBefore order by l.expiresAt")
+    List<Integer> findReusableNodeIds(long reusableBefore);
+
+    @Query("select l.token from WorkerLease l where l.nodeId = :nodeId and l.owner = :owner")
+    Optional<Long> findToken(Integer nodeId, String owner);
+
+    /**
+     * Takes over a lease that expired before reusableBefore, unless another node was faster.
+     *
+     * @return 1 if the lease was taken over, 0 otherwise
+     */
+    @Modifying
+    @Query("update WorkerLease l set l.owner = :owner, l.expiresAt = :expiresAt, l.token = l.token + 1 where l.nodeId = :nodeId and l.expiresAt < :reusableBefore")
+    int takeOver(Integer nodeId, String owner, long expiresAt, long reusableBefore);
+
+    /**
+     * Extends a lease that is still held with the given fencing token.
+     *
+     * @return 1 if the lease was extended, 0 if it was lost
+     */
+    @Modifying
+    @Query("update WorkerLease l set l.expiresAt = :expiresAt where l.nodeId = :nodeId and l.owner = :owner and l.token = :token")
+    int renew(Integer nodeId, String owner, Long token, long expiresAt);
+
+}
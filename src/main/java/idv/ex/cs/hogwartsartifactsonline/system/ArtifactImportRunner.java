@@ -0,0 +1,50 @@
+package idv.ex.cs.hogwartsartifactsonline.system;
+
+import idv.ex.cs.hogwartsartifactsonline.artifact.importer.ArtifactImport;
+import idv.ex.cs.hogwartsartifactsonline.artifact.importer.ArtifactImportFormat;
+import idv.ex.cs.hogwartsartifactsonline.artifact.importer.ArtifactImporter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Imports artifact files given on the command line, e.g., --import-artifacts=collection.csv. The option can be
+ * repeated, and the files are imported one after the other once the application has started.
+ */
+@Component
+public class ArtifactImportRunner implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(ArtifactImportRunner.class);
+
+    static final String importOption = "import-artifacts";
+
+    private final ArtifactImporter artifactImporter;
+
+    public ArtifactImportRunner(ArtifactImporter artifactImporter) {
+        this.artifactImporter = artifactImporter;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        List<String> files = args.getOptionValues(importOption);
+        if (files == null) {
+            return;
+        }
+        for (String file : files) {
+            Path path = Path.of(file);
+            try (InputStream input = new BufferedInputStream(Files.newInputStream(path))) {
+                ArtifactImport artifactImport = this.artifactImporter.importArtifacts(input, ArtifactImportFormat.ofFileName(path.getFileName().toString()));
+                logger.info("Imported {}: {}", path, artifactImport.toReport());
+            }
+        }
+    }
+
+}
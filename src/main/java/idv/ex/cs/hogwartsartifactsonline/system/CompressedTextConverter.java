@@ -0,0 +1,103 @@
+package idv.ex.cs.hogwartsartifactsonline.system;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Stores text deflated in a binary column. The first byte tells the encoding: short or incompressible text is
+ * stored as plain UTF-8, because deflate only pays off from a few hundred bytes on.
+ */
+@Converter
+public class CompressedTextConverter implements AttributeConverter<String, byte[]> {
+
+    private static final byte plain = 0;
+
+    private static final byte deflated = 1;
+
+    private static final int minCompressedLength = 256; // Bytes of UTF-8
+
+    @Override
+    public byte[] convertToDatabaseColumn(String text) {
+        if (text == null) {
+            return null;
+        }
+        byte[] utf8 = text.getBytes(StandardCharsets.UTF_8);
+        if (utf8.length >= minCompressedLength) {
+            byte[] compressed = deflate(utf8);
+            if (compressed.length < utf8.length) {
+                return compressed;
+            }
+        }
+        byte[] column = new byte[utf8.length + 1];
+        column[0] = plain;
+        System.arraycopy(utf8, 0, column, 1, utf8.length);
+        return column;
+    }
+
+    @Override
+    public String convertToEntityAttribute(byte[] column) {
+        if (column == null) {
+            return null;
+        }
+        if (column.length == 0) {
+            return "";
+        }
+        return switch (column[0]) {
+            case plain -> new String(column, 1, column.length - 1, StandardCharsets.UTF_8);
+            case deflated -> new String(inflate(column), StandardCharsets.UTF_8);
+            default -> throw new IllegalStateException("Unknown text encoding " + column[0]);
+        };
+    }
+
+    /**
+     * @return the encoding byte, followed by the raw deflate stream
+     */
+    private static byte[] deflate(byte[] utf8) {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        try {
+            deflater.setInput(utf8);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(utf8.length / 2 + 16);
+            out.write(deflated);
+            byte[] buffer = new byte[4096];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] column) {
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(column, 1, column.length - 1);
+            byte[] utf8 = new byte[Math.max(64, column.length * 4)];
+            int length = 0;
+            while (!inflater.finished()) {
+                if (length == utf8.length) {
+                    utf8 = Arrays.copyOf(utf8, utf8.length * 2);
+                }
+                int inflated = inflater.inflate(utf8, length, utf8.length - length);
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalStateException("Truncated compressed text");
+                }
+                length += inflated;
+            }
+            return Arrays.copyOf(utf8, length);
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupt compressed text", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+}
@@ -0,0 +1,31 @@
+package idv.ex.cs.hogwartsartifactsonline.system;
+
+public final class IfMatch {
+
+    private IfMatch() {
+    }
+
+    /**
+     * Extracts the entity version from an If-Match header holding one of our strong ETags, e.g., "3" or "3.7".
+     *
+     * @param ifMatch the header value
+     * @return null if the header is absent or "*", i.e., any version is fine; -1 if it cannot be one of our ETags,
+     * which never matches
+     */
+    public static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String etag = ifMatch.trim();
+        if (!etag.startsWith("\"") || etag.length() < 3) {
+            return -1L; // Weak ETags never match in If-Match
+        }
+        int end = etag.indexOf('.');
+        try {
+            return Long.parseLong(etag.substring(1, end > 0 ? end : etag.indexOf('"', 1)));
+        } catch (RuntimeException e) {
+            return -1L;
+        }
+    }
+
+}
@@ -0,0 +1,64 @@
+package idv.ex.cs.hogwartsartifactsonline.system;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import idv.ex.cs.hogwartsartifactsonline.system.exception.InvalidArgumentException;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Encodes a keyset scroll position as an opaque, URL-safe cursor string and back.
+ * The cursor is the Base64 encoded JSON of the sort key values of the last row of a page.
+ */
+public final class KeysetCursor {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private static final TypeReference<Map<String, Object>> keysType = new TypeReference<>() {
+    };
+
+    private KeysetCursor() {
+    }
+
+    public static String encode(ScrollPosition position) {
+        if (!(position instanceof KeysetScrollPosition keysetPosition)) {
+            throw new IllegalArgumentException("Only keyset positions can be encoded as a cursor.");
+        }
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(keysetPosition.getKeys());
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(json);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not encode cursor.", e);
+        }
+    }
+
+    /**
+     * Decodes a cursor produced by {@link #encode(ScrollPosition)}. A null or empty cursor means the first page.
+     *
+     * @param cursor       the cursor sent by the client
+     * @param expectedKeys the sort properties of the current request, the cursor must carry exactly these keys
+     * @return the position to continue scrolling forward from
+     */
+    public static KeysetScrollPosition decode(String cursor, Set<String> expectedKeys) {
+        if (cursor == null || cursor.isEmpty()) {
+            return ScrollPosition.keyset();
+        }
+        Map<String, Object> keys;
+        try {
+            keys = objectMapper.readValue(Base64.getUrlDecoder().decode(cursor.getBytes(StandardCharsets.US_ASCII)), keysType);
+        } catch (Exception e) {
+            throw new InvalidArgumentException("Provided cursor is invalid.");
+        }
+        if (keys == null || !keys.keySet().equals(expectedKeys)) {
+            throw new InvalidArgumentException("Provided cursor does not match the requested sort.");
+        }
+        return ScrollPosition.forward(keys);
+    }
+
+}
@@ -1,8 +1,12 @@
 package idv.ex.cs.hogwartsartifactsonline.system;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 /**
  * This class defines the schema of the response. It is used to encapsulate data prepared by
  * the server side, this object will be serialized to JSON before sent back to the client end.
+ * Clients that send Accept: application/cbor or application/x-jackson-smile get the same object in that binary
+ * encoding instead, which is smaller and cheaper to encode.
  */
 public class Result {
 
@@ -14,6 +18,9 @@ public class Result {
 
     private Object data; // The response payload
 
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String next; // Opaque cursor of the next page, only present on paginated responses
+
 
     public Result() {
     }
@@ -31,6 +38,14 @@ public class Result {
         this.data = data;
     }
 
+    public Result(boolean flag, Integer code, String message, Object data, String next) {
+        this.flag = flag;
+        this.code = code;
+        this.message = message;
+        this.data = data;
+        this.next = next;
+    }
+
     public boolean isFlag() {
         return flag;
     }
@@ -63,4 +78,12 @@ public class Result {
         this.data = data;
     }
 
+    public String getNext() {
+        return next;
+    }
+
+    public void setNext(String next) {
+        this.next = next;
+    }
+
 }
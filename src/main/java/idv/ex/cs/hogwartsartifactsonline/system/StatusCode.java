@@ -3,6 +3,7 @@ package idv.ex.cs.hogwartsartifactsonline.system;
 public class StatusCode {
 
     public static final int SUCCESS = 200; // Success
+    public static final int ACCEPTED = 202; // Accepted, e.g., an import that runs in the background
 
     public static final int INVALID_ARGUMENT = 400; // Bad request, e.g., invalid parameters
 
@@ -12,6 +13,10 @@ public class StatusCode {
 
     public static final int NOT_FOUND = 404; // Not found
 
+    public static final int CONFLICT = 409; // Concurrent modification, e.g., optimistic locking failure
+
+    public static final int PRECONDITION_FAILED = 412; // If-Match does not match the current version
+
     public static final int INTERNAL_SERVER_ERROR = 500; // Server internal error
 
 }
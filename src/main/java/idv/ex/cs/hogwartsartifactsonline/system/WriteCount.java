@@ -0,0 +1,36 @@
+package idv.ex.cs.hogwartsartifactsonline.system;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+
+import java.io.Serializable;
+
+/**
+ * The single row counting committed writes to artifacts and wizards on every node, see WriteCounter.
+ */
+@Entity
+public class WriteCount implements Serializable {
+
+    public static final int ID = 1;
+
+    @Id
+    private Integer id;
+
+    private long writes;
+
+    public WriteCount() {
+    }
+
+    public WriteCount(Integer id) {
+        this.id = id;
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public long getWrites() {
+        return writes;
+    }
+
+}
@@ -0,0 +1,18 @@
+package idv.ex.cs.hogwartsartifactsonline.system;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface WriteCountRepository extends JpaRepository<WriteCount, Integer> {
+
+    @Query("select c.writes from WriteCount c where c.id = " + WriteCount.ID)
+    Long findWrites();
+
+    @Modifying
+    @Query("update WriteCount c set c.writes = c.writes + 1 where c.id = " + WriteCount.ID)
+    int increment();
+
+}
@@ -0,0 +1,85 @@
+package idv.ex.cs.hogwartsartifactsonline.system;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Counts committed writes to artifacts and wizards. Collection endpoints derive their ETag from it, so a client
+ * polling a list gets 304 Not Modified until something was written.
+ * The counter is a row of the database, bumped in the writing transaction, so every node sharing the database
+ * sees the writes of the others. All writes update that one row, which serializes their commits.
+ */
+@Component
+public class WriteCounter {
+
+    private static final Logger logger = LoggerFactory.getLogger(WriteCounter.class);
+
+    private final WriteCountRepository writeCountRepository;
+
+    private final EntityManager entityManager;
+
+    private final TransactionTemplate transactionTemplate;
+
+    public WriteCounter(WriteCountRepository writeCountRepository, EntityManager entityManager, PlatformTransactionManager transactionManager) {
+        this.writeCountRepository = writeCountRepository;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @PostConstruct
+    public void start() {
+        try {
+            this.transactionTemplate.executeWithoutResult(status -> {
+                if (!this.writeCountRepository.existsById(WriteCount.ID)) {
+                    this.writeCountRepository.saveAndFlush(new WriteCount(WriteCount.ID));
+                }
+            });
+        } catch (DataAccessException e) {
+            logger.debug("Another node inserted the write count first");
+        }
+    }
+
+    /**
+     * Counts a write of the current transaction, once however often it is called. The counter is bumped right
+     * before the transaction commits, after its other changes are flushed, so its row is the last lock the
+     * transaction takes and a rollback undoes the count. Without a transaction the write is counted right away.
+     */
+    public void increment() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            this.transactionTemplate.executeWithoutResult(status -> this.writeCountRepository.increment());
+            return;
+        }
+        if (TransactionSynchronizationManager.getSynchronizations().stream().noneMatch(IncrementBeforeCommit.class::isInstance)) {
+            TransactionSynchronizationManager.registerSynchronization(new IncrementBeforeCommit());
+        }
+    }
+
+    /**
+     * The ETag of any collection of artifacts or wizards. Take it before reading the collection, then a write
+     * that commits in between makes the next request miss instead of hiding the change.
+     *
+     * @return the committed number of writes, quoted
+     */
+    public String etag() {
+        return "\"" + this.writeCountRepository.findWrites() + "\"";
+    }
+
+    private final class IncrementBeforeCommit implements TransactionSynchronization {
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            entityManager.flush();
+            writeCountRepository.increment();
+        }
+
+    }
+
+}
@@ -0,0 +1,16 @@
+package idv.ex.cs.hogwartsartifactsonline.system.cache;
+
+public record CacheStats(long hits,
+                         long misses,
+                         long evictions,
+                         long invalidations,
+                         long entries,
+                         long weight,
+                         long maximumWeight) {
+
+    public double hitRate() {
+        long requests = this.hits + this.misses;
+        return requests == 0 ? 1.0 : (double) this.hits / requests;
+    }
+
+}
@@ -0,0 +1,71 @@
+package idv.ex.cs.hogwartsartifactsonline.system.cache;
+
+/**
+ * A count-min sketch that estimates how often a key was seen recently, using four counters per key capped at 15.
+ * After 10 increments per counter slot on average all counters are halved, so old popularity fades away.
+ */
+final class FrequencySketch {
+
+    private static final long[] seeds = {0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+
+    private static final int maximumCount = 15;
+
+    private final byte[] table;
+
+    private final int mask;
+
+    private final int sampleSize;
+
+    private int size;
+
+    FrequencySketch(int expectedEntries) {
+        int length = Integer.highestOneBit(Math.max(16, Math.min(expectedEntries, 1 << 28)) - 1) << 1;
+        this.table = new byte[length];
+        this.mask = length - 1;
+        this.sampleSize = 10 * length;
+    }
+
+    int frequency(Object key) {
+        int hash = spread(key.hashCode());
+        int frequency = maximumCount;
+        for (int i = 0; i < seeds.length; i++) {
+            frequency = Math.min(frequency, this.table[indexOf(hash, i)]);
+        }
+        return frequency;
+    }
+
+    void increment(Object key) {
+        int hash = spread(key.hashCode());
+        boolean added = false;
+        for (int i = 0; i < seeds.length; i++) {
+            int index = indexOf(hash, i);
+            if (this.table[index] < maximumCount) {
+                this.table[index]++;
+                added = true;
+            }
+        }
+        if (added && ++this.size == this.sampleSize) {
+            reset();
+        }
+    }
+
+    private void reset() {
+        for (int i = 0; i < this.table.length; i++) {
+            this.table[i] >>= 1;
+        }
+        this.size /= 2;
+    }
+
+    private int indexOf(int hash, int row) {
+        long h = (hash + seeds[row]) * seeds[row];
+        h += h >>> 32;
+        return (int) h & this.mask;
+    }
+
+    private static int spread(int hash) {
+        hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+        hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+        return (hash >>> 16) ^ hash;
+    }
+
+}
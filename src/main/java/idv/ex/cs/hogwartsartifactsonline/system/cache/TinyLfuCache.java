@@ -0,0 +1,299 @@
+package idv.ex.cs.hogwartsartifactsonline.system.cache;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * A bounded, weight-aware cache with W-TinyLFU admission and eviction.
+ * New entries enter a small LRU window (1% of the weight). Entries leaving the window become candidates for the
+ * main space, a segmented LRU split into probation (20%) and protected (80%). When the main space is full, the
+ * candidate only gets in if a frequency sketch says it is more popular than the probation victim, so one-hit
+ * wonders cannot flush the popular entries out. All operations are guarded by the cache monitor.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ */
+public class TinyLfuCache<K, V> {
+
+    /**
+     * Gets notified about every entry that enters or leaves the cache, called while holding the cache monitor.
+     */
+    public interface Listener<K, V> {
+
+        default void onInsert(K key, V value) {
+        }
+
+        default void onRemoval(K key, V value) {
+        }
+
+    }
+
+    private final long maximumWeight;
+
+    private final long maximumWindowWeight;
+
+    private final long maximumProtectedWeight;
+
+    private final ToIntFunction<? super V> weigher;
+
+    private final Listener<K, V> listener;
+
+    private final FrequencySketch sketch;
+
+    private final Map<K, Node<K, V>> nodes = new HashMap<>();
+
+    private final Node<K, V> window = Node.sentinel();
+
+    private final Node<K, V> probation = Node.sentinel();
+
+    private final Node<K, V> protectedSegment = Node.sentinel();
+
+    private long windowWeight;
+
+    private long probationWeight;
+
+    private long protectedWeight;
+
+    private long generation; // Incremented by every invalidation, see get(K, Function)
+
+    private long hits;
+
+    private long misses;
+
+    private long evictions;
+
+    private long invalidations;
+
+    public TinyLfuCache(long maximumWeight, int expectedEntries, ToIntFunction<? super V> weigher, Listener<K, V> listener) {
+        if (maximumWeight <= 0) {
+            throw new IllegalArgumentException("maximumWeight must be greater than 0");
+        }
+        this.maximumWeight = maximumWeight;
+        this.maximumWindowWeight = Math.max(1, maximumWeight / 100);
+        this.maximumProtectedWeight = (maximumWeight - this.maximumWindowWeight) * 8 / 10;
+        this.weigher = weigher;
+        this.listener = listener;
+        this.sketch = new FrequencySketch(expectedEntries);
+    }
+
+    public synchronized V getIfPresent(K key) {
+        this.sketch.increment(key);
+        Node<K, V> node = this.nodes.get(key);
+        if (node == null) {
+            this.misses++;
+            return null;
+        }
+        this.hits++;
+        onAccess(node);
+        return node.value;
+    }
+
+    /**
+     * Returns the cached value, or loads it with the loader and caches it. The loader runs without holding the
+     * monitor. If anything was invalidated while it ran, the loaded value is returned but not cached, because it
+     * may have been read before the change that caused the invalidation.
+     *
+     * @param key
+     * @param loader must not return null, exceptions are passed through and nothing is cached
+     * @return
+     */
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        long loadGeneration;
+        synchronized (this) {
+            V value = getIfPresent(key);
+            if (value != null) {
+                return value;
+            }
+            loadGeneration = this.generation;
+        }
+        V value = loader.apply(key);
+        synchronized (this) {
+            if (this.generation == loadGeneration) {
+                putInternal(key, value);
+            }
+        }
+        return value;
+    }
+
+    public synchronized void put(K key, V value) {
+        putInternal(key, value);
+    }
+
+    public synchronized void invalidate(K key) {
+        this.generation++;
+        Node<K, V> node = this.nodes.get(key);
+        if (node != null) {
+            this.invalidations++;
+            remove(node);
+        }
+    }
+
+    /**
+     * Invalidates the given keys. Like {@link #invalidate(Object)}, this counts as an invalidation for concurrent
+     * loads even if none of the keys is cached.
+     *
+     * @param keys
+     */
+    public synchronized void invalidateAll(Collection<? extends K> keys) {
+        this.generation++;
+        for (K key : keys) {
+            Node<K, V> node = this.nodes.get(key);
+            if (node != null) {
+                this.invalidations++;
+                remove(node);
+            }
+        }
+    }
+
+    public synchronized void invalidateAll() {
+        this.generation++;
+        for (Node<K, V> node : List.copyOf(this.nodes.values())) {
+            this.invalidations++;
+            remove(node);
+        }
+    }
+
+    public synchronized CacheStats stats() {
+        return new CacheStats(this.hits, this.misses, this.evictions, this.invalidations, this.nodes.size(),
+                this.windowWeight + this.probationWeight + this.protectedWeight, this.maximumWeight);
+    }
+
+    private void putInternal(K key, V value) {
+        Node<K, V> existing = this.nodes.get(key);
+        if (existing != null) {
+            remove(existing);
+        }
+        int weight = this.weigher.applyAsInt(value);
+        if (weight > this.maximumWeight) {
+            return;
+        }
+        Node<K, V> node = new Node<>(key, value, weight);
+        this.nodes.put(key, node);
+        this.listener.onInsert(key, value);
+        node.segment = Segment.WINDOW;
+        node.linkBefore(this.window);
+        this.windowWeight += weight;
+        evict();
+    }
+
+    private void onAccess(Node<K, V> node) {
+        switch (node.segment) {
+            case WINDOW -> node.moveBefore(this.window);
+            case PROBATION -> {
+                // A second hit promotes the entry, which may push the oldest protected entries back to probation.
+                node.unlink();
+                this.probationWeight -= node.weight;
+                node.segment = Segment.PROTECTED;
+                node.linkBefore(this.protectedSegment);
+                this.protectedWeight += node.weight;
+                while (this.protectedWeight > this.maximumProtectedWeight) {
+                    Node<K, V> demoted = this.protectedSegment.next;
+                    demoted.unlink();
+                    this.protectedWeight -= demoted.weight;
+                    demoted.segment = Segment.PROBATION;
+                    demoted.linkBefore(this.probation);
+                    this.probationWeight += demoted.weight;
+                }
+            }
+            case PROTECTED -> node.moveBefore(this.protectedSegment);
+        }
+    }
+
+    private void evict() {
+        // Entries falling out of the window become admission candidates at the MRU end of probation.
+        while (this.windowWeight > this.maximumWindowWeight && this.window.next != this.window) {
+            Node<K, V> candidate = this.window.next;
+            candidate.unlink();
+            this.windowWeight -= candidate.weight;
+            candidate.segment = Segment.PROBATION;
+            candidate.linkBefore(this.probation);
+            this.probationWeight += candidate.weight;
+        }
+        while (this.windowWeight + this.probationWeight + this.protectedWeight > this.maximumWeight) {
+            Node<K, V> victim = this.probation.next;
+            Node<K, V> candidate = this.probation.prev;
+            if (victim == this.probation) {
+                victim = this.protectedSegment.next != this.protectedSegment ? this.protectedSegment.next : this.window.next;
+                evict(victim);
+            } else if (victim == candidate || this.sketch.frequency(candidate.key) > this.sketch.frequency(victim.key)) {
+                evict(victim);
+            } else {
+                evict(candidate);
+            }
+        }
+    }
+
+    private void evict(Node<K, V> node) {
+        this.evictions++;
+        remove(node);
+    }
+
+    private void remove(Node<K, V> node) {
+        node.unlink();
+        switch (node.segment) {
+            case WINDOW -> this.windowWeight -= node.weight;
+            case PROBATION -> this.probationWeight -= node.weight;
+            case PROTECTED -> this.protectedWeight -= node.weight;
+        }
+        this.nodes.remove(node.key);
+        this.listener.onRemoval(node.key, node.value);
+    }
+
+    private enum Segment {
+        WINDOW, PROBATION, PROTECTED
+    }
+
+    /**
+     * A node of the circular, doubly linked LRU lists. Each list has a sentinel; sentinel.next is the least and
+     * sentinel.prev the most recently used node.
+     */
+    private static final class Node<K, V> {
+
+        private final K key;
+
+        private final V value;
+
+        private final int weight;
+
+        private Segment segment;
+
+        private Node<K, V> prev = this;
+
+        private Node<K, V> next = this;
+
+        private Node(K key, V value, int weight) {
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+        }
+
+        private static <K, V> Node<K, V> sentinel() {
+            return new Node<>(null, null, 0);
+        }
+
+        private void linkBefore(Node<K, V> sentinel) {
+            this.prev = sentinel.prev;
+            this.next = sentinel;
+            sentinel.prev.next = this;
+            sentinel.prev = this;
+        }
+
+        private void moveBefore(Node<K, V> sentinel) {
+            unlink();
+            linkBefore(sentinel);
+        }
+
+        private void unlink() {
+            this.prev.next = this.next;
+            this.next.prev = this.prev;
+            this.prev = this;
+            this.next = this;
+        }
+
+    }
+
+}
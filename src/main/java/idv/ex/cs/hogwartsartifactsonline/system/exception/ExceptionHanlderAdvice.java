@@ -3,6 +3,7 @@ package idv.ex.cs.hogwartsartifactsonline.system.exception;
 import idv.ex.cs.hogwartsartifactsonline.system.Result;
 import idv.ex.cs.hogwartsartifactsonline.system.StatusCode;
 import org.springframework.http.HttpStatus;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.validation.FieldError;
 import org.springframework.validation.ObjectError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -23,6 +24,30 @@ public class ExceptionHanlderAdvice {
         return new Result(false, StatusCode.NOT_FOUND, ex.getMessage());
     }
 
+    @ExceptionHandler(InvalidArgumentException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    Result handleInvalidArgumentException(InvalidArgumentException ex) {
+        return new Result(false, StatusCode.INVALID_ARGUMENT, ex.getMessage());
+    }
+
+    @ExceptionHandler(PreconditionFailedException.class)
+    @ResponseStatus(HttpStatus.PRECONDITION_FAILED)
+    Result handlePreconditionFailedException(PreconditionFailedException ex) {
+        return new Result(false, StatusCode.PRECONDITION_FAILED, ex.getMessage());
+    }
+
+    /**
+     * This handles concurrent updates of the same entity that were detected by its version column.
+     *
+     * @param ex
+     * @return
+     */
+    @ExceptionHandler(ObjectOptimisticLockingFailureException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    Result handleObjectOptimisticLockingFailureException(ObjectOptimisticLockingFailureException ex) {
+        return new Result(false, StatusCode.CONFLICT, "The " + ex.getPersistentClassName() + " has been modified concurrently, please retry.");
+    }
+
     /**
      * This handles invalid inputs.
      *
@@ -0,0 +1,9 @@
+package idv.ex.cs.hogwartsartifactsonline.system.exception;
+
+public class InvalidArgumentException extends RuntimeException {
+
+    public InvalidArgumentException(String message) {
+        super(message);
+    }
+
+}
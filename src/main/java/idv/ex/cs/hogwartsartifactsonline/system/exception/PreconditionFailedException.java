@@ -0,0 +1,13 @@
+package idv.ex.cs.hogwartsartifactsonline.system.exception;
+
+public class PreconditionFailedException extends RuntimeException {
+
+    public PreconditionFailedException(String objectName, String id) {
+        super("The " + objectName + " with Id " + id + " has been modified by someone else :(");
+    }
+
+    public PreconditionFailedException(String objectName, Integer id) {
+        super("The " + objectName + " with Id " + id + " has been modified by someone else :(");
+    }
+
+}
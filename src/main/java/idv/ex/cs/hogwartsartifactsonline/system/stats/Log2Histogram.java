@@ -0,0 +1,63 @@
+package idv.ex.cs.hogwartsartifactsonline.system.stats;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts non-negative values in power-of-two buckets. Recording is a few adds without locks, so it is cheap
+ * enough for hot paths, at the price of a resolution of a factor of two.
+ */
+public class Log2Histogram {
+
+    private final LongAdder[] buckets = new LongAdder[Long.SIZE]; // Bucket i counts values up to 2^i - 1
+
+    private final LongAdder sum = new LongAdder();
+
+    private final AtomicLong max = new AtomicLong();
+
+    public Log2Histogram() {
+        for (int i = 0; i < this.buckets.length; i++) {
+            this.buckets[i] = new LongAdder();
+        }
+    }
+
+    public void record(long value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("value can't be less than 0");
+        }
+        this.buckets[Long.SIZE - Long.numberOfLeadingZeros(value)].increment();
+        this.sum.add(value);
+        if (value > this.max.get()) {
+            this.max.accumulateAndGet(value, Math::max);
+        }
+    }
+
+    public long getCount() {
+        long count = 0;
+        for (LongAdder bucket : this.buckets) {
+            count += bucket.sum();
+        }
+        return count;
+    }
+
+    /**
+     * @return count, sum and max, followed by the count of every non-empty bucket keyed by its upper bound,
+     * e.g., "<=7" for the values from 4 to 7
+     */
+    public Map<String, Long> toStats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("count", getCount());
+        stats.put("sum", this.sum.sum());
+        stats.put("max", this.max.get());
+        for (int i = 0; i < this.buckets.length; i++) {
+            long count = this.buckets[i].sum();
+            if (count > 0) {
+                stats.put("<=" + ((1L << i) - 1), count); // Overflows to Long.MAX_VALUE for the last bucket
+            }
+        }
+        return stats;
+    }
+
+}
@@ -0,0 +1,30 @@
+package idv.ex.cs.hogwartsartifactsonline.system.stats;
+
+import idv.ex.cs.hogwartsartifactsonline.system.Result;
+import idv.ex.cs.hogwartsartifactsonline.system.StatusCode;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+@RestController
+@RequestMapping("${api.endpoint.base-url}/stats")
+public class StatsController {
+
+    private final List<StatsSource> statsSources;
+
+    public StatsController(List<StatsSource> statsSources) {
+        this.statsSources = statsSources;
+    }
+
+    @GetMapping
+    public Result findAllStats() {
+        Map<String, Object> stats = new TreeMap<>();
+        this.statsSources.forEach(source -> stats.put(source.getStatsName(), source.getStats()));
+        return new Result(true, StatusCode.SUCCESS, "Find All Success", stats);
+    }
+
+}
@@ -0,0 +1,12 @@
+package idv.ex.cs.hogwartsartifactsonline.system.stats;
+
+/**
+ * A component that publishes runtime statistics through GET /stats.
+ */
+public interface StatsSource {
+
+    String getStatsName();
+
+    Object getStats();
+
+}
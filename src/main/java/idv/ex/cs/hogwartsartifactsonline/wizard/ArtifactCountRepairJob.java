@@ -0,0 +1,95 @@
+package idv.ex.cs.hogwartsartifactsonline.wizard;
+
+import idv.ex.cs.hogwartsartifactsonline.artifact.ArtifactDtoCache;
+import idv.ex.cs.hogwartsartifactsonline.system.WriteCounter;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically reconciles every wizard's artifactCount with the COUNT(*) of its artifacts. The services keep the
+ * counts right, this only repairs what changed the tables behind their back, e.g., a manual SQL fix.
+ */
+@Component
+public class ArtifactCountRepairJob {
+
+    private static final Logger logger = LoggerFactory.getLogger(ArtifactCountRepairJob.class);
+
+    private final WizardRepository wizardRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ArtifactDtoCache artifactDtoCache;
+
+    private final WriteCounter writeCounter;
+
+    private final long intervalMillis;
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "artifact-count-repair");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ArtifactCountRepairJob(WizardRepository wizardRepository, PlatformTransactionManager transactionManager, ArtifactDtoCache artifactDtoCache, WriteCounter writeCounter,
+                                  @Value("${api.wizards.artifact-count-repair.interval:1h}") Duration interval) {
+        this.wizardRepository = wizardRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.artifactDtoCache = artifactDtoCache;
+        this.writeCounter = writeCounter;
+        this.intervalMillis = interval.toMillis();
+    }
+
+    @PostConstruct
+    public void start() {
+        if (this.intervalMillis > 0) {
+            this.scheduler.scheduleWithFixedDelay(this::repairLogged, this.intervalMillis, this.intervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * @return the ids of the wizards whose count was wrong
+     */
+    public List<Integer> repair() {
+        List<Integer> wizardIds = this.transactionTemplate.execute(status -> {
+            List<Integer> wrong = this.wizardRepository.findIdsWithWrongArtifactCount();
+            if (!wrong.isEmpty()) {
+                this.wizardRepository.recountArtifacts(wrong);
+                // Collections show the counts too, their ETags must change.
+                this.writeCounter.increment();
+            }
+            return wrong;
+        });
+        // Cached artifacts show their owner's number of artifacts.
+        wizardIds.forEach(this.artifactDtoCache::invalidateOwner);
+        return wizardIds;
+    }
+
+    private void repairLogged() {
+        try {
+            List<Integer> wizardIds = repair();
+            if (!wizardIds.isEmpty()) {
+                logger.warn("Repaired the artifact count of wizards {}", wizardIds);
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Could not repair the artifact counts", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        this.scheduler.shutdownNow();
+    }
+
+}
@@ -19,6 +19,14 @@ public class Wizard implements Serializable {
     @OneToMany(cascade = {CascadeType.PERSIST, CascadeType.MERGE}, mappedBy = "owner")
     private List<Artifact> artifacts = new ArrayList<>();
 
+    // Maintained with relative updates, see WizardRepository.adjustArtifactCount, so that reading the number of
+    // artifacts never loads the collection. Not updatable, so a stale copy in an entity is never written back.
+    @Column(nullable = false, updatable = false)
+    private Integer artifactCount = 0;
+
+    @Version
+    private Long version; // Optimistic locking, also the source of the wizard's ETag
+
     public Wizard() {
     }
 
@@ -38,6 +46,14 @@ public class Wizard implements Serializable {
         this.name = name;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public List<Artifact> getArtifacts() {
         return artifacts;
     }
@@ -49,19 +65,10 @@ public class Wizard implements Serializable {
     public void addArtifact(Artifact artifact) {
         artifact.setOwner(this);
         this.artifacts.add(artifact);
+        this.artifactCount++;
     }
 
     public Integer getNumberOfArtifacts() {
-        return this.artifacts.size();
-    }
-
-    public void removeAllArtifacts() {
-        this.artifacts.stream().forEach(artifact -> artifact.setOwner(null));
-        this.artifacts = new ArrayList<>();
-    }
-
-    public void removeArtifact(Artifact artifactToBeAssigned) {
-        //Remove artifact owner
-        this.artifacts.remove(artifactToBeAssigned);
+        return this.artifactCount;
     }
 }
@@ -1,15 +1,25 @@
 package idv.ex.cs.hogwartsartifactsonline.wizard;
 
+import idv.ex.cs.hogwartsartifactsonline.system.IfMatch;
+import idv.ex.cs.hogwartsartifactsonline.system.KeysetCursor;
 import idv.ex.cs.hogwartsartifactsonline.system.Result;
 import idv.ex.cs.hogwartsartifactsonline.system.StatusCode;
+import idv.ex.cs.hogwartsartifactsonline.system.WriteCounter;
+import idv.ex.cs.hogwartsartifactsonline.system.exception.InvalidArgumentException;
 import idv.ex.cs.hogwartsartifactsonline.wizard.converter.WizardDtoToWizardConverter;
 import idv.ex.cs.hogwartsartifactsonline.wizard.converter.WizardToWizardDtoConverter;
 import idv.ex.cs.hogwartsartifactsonline.wizard.dto.WizardDto;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Window;
+import org.springframework.http.HttpHeaders;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Set;
 
 @RestController
 @RequestMapping("${api.endpoint.base-url}/wizards")
@@ -21,26 +31,73 @@ public class WizardController {
 
     private final WizardDtoToWizardConverter wizardDtoToWizardConverter;
 
-    public WizardController(WizardService wizardService, WizardToWizardDtoConverter wizardToWizardDtoConverter, WizardDtoToWizardConverter wizardDtoToWizardConverter) {
+    private final WriteCounter writeCounter;
+
+    private final int defaultPageSize;
+
+    private final int maxPageSize;
+
+    private final int maxAssignmentSize;
+
+    public WizardController(WizardService wizardService, WizardToWizardDtoConverter wizardToWizardDtoConverter, WizardDtoToWizardConverter wizardDtoToWizardConverter, WriteCounter writeCounter,
+                            @Value("${api.wizards.page.default-size:20}") int defaultPageSize,
+                            @Value("${api.wizards.page.max-size:100}") int maxPageSize,
+                            @Value("${api.wizards.assignment.max-size:100000}") int maxAssignmentSize) {
         this.wizardService = wizardService;
         this.wizardToWizardDtoConverter = wizardToWizardDtoConverter;
         this.wizardDtoToWizardConverter = wizardDtoToWizardConverter;
+        this.writeCounter = writeCounter;
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
+        this.maxAssignmentSize = maxAssignmentSize;
     }
 
     @GetMapping("/{wizardId}")
-    public Result findWizardById(@PathVariable Integer wizardId) {
+    public Result findWizardById(@PathVariable Integer wizardId, WebRequest webRequest) {
+        if (webRequest.checkNotModified(etag(this.wizardService.findVersionById(wizardId)))) {
+            return null;
+        }
         Wizard foundWizard = this.wizardService.findById(wizardId);
         WizardDto wizardDto = this.wizardToWizardDtoConverter.convert(foundWizard);
         return new Result(true, StatusCode.SUCCESS, "Find One Success", wizardDto);
     }
 
+    /**
+     * Finds one page of wizards in id order. The page is read by one statement, the numbers of artifacts are the
+     * maintained counts. With include=artifacts, the artifacts of all wizards of the page are read by a second one.
+     *
+     * @param cursor     the next cursor of the previous page, absent for the first page
+     * @param size       the page size, api.wizards.page.default-size if absent
+     * @param include    "artifacts" to list each wizard's artifacts
+     * @param webRequest
+     * @return
+     */
     @GetMapping
-    public Result findAllWizards() {
-        List<Wizard> foundWizards = this.wizardService.findAll();
-        List<WizardDto> wizardDtos = foundWizards.stream()
-                .map(this.wizardToWizardDtoConverter::convert)
-                .toList();
-        return new Result(true, StatusCode.SUCCESS, "Find All Success", wizardDtos);
+    public Result findAllWizards(@RequestParam(required = false) String cursor,
+                                 @RequestParam(required = false) Integer size,
+                                 @RequestParam(required = false) String include,
+                                 WebRequest webRequest) {
+        int pageSize = size == null ? this.defaultPageSize : size;
+        if (pageSize < 1 || pageSize > this.maxPageSize) {
+            throw new InvalidArgumentException("size must be between 1 and " + this.maxPageSize + ".");
+        }
+        if (include != null && !include.equals("artifacts")) {
+            throw new InvalidArgumentException("include must be artifacts.");
+        }
+        if (webRequest.checkNotModified(this.writeCounter.etag())) {
+            return null;
+        }
+        KeysetScrollPosition position = KeysetCursor.decode(cursor, Set.of("id"));
+        if (!position.isInitial() && !(position.getKeys().get("id") instanceof Integer)) {
+            throw new InvalidArgumentException("Provided cursor is invalid.");
+        }
+        Window<?> foundWizards = include == null
+                ? this.wizardService.findDtos(position, pageSize)
+                : this.wizardService.findDtosWithArtifacts(position, pageSize);
+        String next = foundWizards.hasNext() && !foundWizards.isEmpty()
+                ? KeysetCursor.encode(foundWizards.positionAt(foundWizards.size() - 1))
+                : null;
+        return new Result(true, StatusCode.SUCCESS, "Find All Success", foundWizards.getContent(), next);
     }
 
     @PostMapping
@@ -51,9 +108,14 @@ public class WizardController {
     }
 
     @PutMapping("/{wizardId}")
-    public Result updateWizard(@PathVariable Integer wizardId, @Valid @RequestBody WizardDto wizardDto) {
+    public Result updateWizard(@PathVariable Integer wizardId, @Valid @RequestBody WizardDto wizardDto,
+                               @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                               HttpServletResponse response) {
         Wizard update = this.wizardDtoToWizardConverter.convert(wizardDto);
-        Wizard updatedWizard = this.wizardService.update(wizardId, update);
+        Wizard updatedWizard = this.wizardService.update(wizardId, update, IfMatch.expectedVersion(ifMatch));
+        if (updatedWizard.getVersion() != null) {
+            response.setHeader(HttpHeaders.ETAG, etag(updatedWizard.getVersion()));
+        }
         WizardDto updatedWizardDto = this.wizardToWizardDtoConverter.convert(updatedWizard);
         return new Result(true, StatusCode.SUCCESS, "Update Success", updatedWizardDto);
     }
@@ -69,4 +131,37 @@ public class WizardController {
         wizardService.assignArtifact(wizardId, artifactId);
         return new Result(true, StatusCode.SUCCESS, "Artifact Assignment Success", null);
     }
+
+    /**
+     * Assigns all listed artifacts to the wizard at once, whoever owned them before.
+     *
+     * @param wizardId
+     * @param artifactIds a JSON array of artifact ids, unknown ones are skipped
+     * @return the number of artifacts that changed owner
+     */
+    @PutMapping("/{wizardId}/artifacts")
+    public Result assignArtifacts(@PathVariable Integer wizardId, @RequestBody List<String> artifactIds) {
+        if (artifactIds.isEmpty() || artifactIds.size() > this.maxAssignmentSize) {
+            throw new InvalidArgumentException("Between 1 and " + this.maxAssignmentSize + " artifact ids are required.");
+        }
+        int assigned = this.wizardService.assignArtifacts(wizardId, artifactIds);
+        return new Result(true, StatusCode.SUCCESS, "Artifact Assignment Success", assigned);
+    }
+
+    /**
+     * Moves all artifacts of the wizard given by from to this wizard.
+     *
+     * @param wizardId
+     * @param from     the id of the wizard that gives up its artifacts
+     * @return the number of moved artifacts
+     */
+    @PutMapping(value = "/{wizardId}/artifacts", params = "from")
+    public Result moveArtifacts(@PathVariable Integer wizardId, @RequestParam Integer from) {
+        int moved = this.wizardService.moveArtifacts(from, wizardId);
+        return new Result(true, StatusCode.SUCCESS, "Artifact Assignment Success", moved);
+    }
+
+    private static String etag(Long version) {
+        return "\"" + version + "\"";
+    }
 }
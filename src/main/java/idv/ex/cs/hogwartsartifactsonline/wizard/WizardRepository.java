@@ -1,8 +1,70 @@
 package idv.ex.cs.hogwartsartifactsonline.wizard;
 
+import idv.ex.cs.hogwartsartifactsonline.wizard.dto.WizardDto;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 @Repository
 public interface WizardRepository extends JpaRepository<Wizard, Integer> {
+
+    /**
+     * Selects a WizardDto in one statement, the number of artifacts is the maintained artifactCount instead of
+     * loading the wizard's artifacts.
+     */
+    String DTO_PROJECTION = "select new idv.ex.cs.hogwartsartifactsonline.wizard.dto.WizardDto(w.id, w.name, w.artifactCount) "
+            + "from Wizard w ";
+
+    /**
+     * Finds the next page of WizardDtos in id order.
+     *
+     * @param afterId the id of the last wizard of the previous page, 0 for the first page
+     * @param limit
+     * @return
+     */
+    @Query(DTO_PROJECTION + "where w.id > :afterId order by w.id")
+    List<WizardDto> findDtosAfter(Integer afterId, Limit limit);
+
+    @Query("select w.version from Wizard w where w.id = :id")
+    Optional<Long> findVersionById(Integer id);
+
+    /**
+     * Changes the wizard's number of artifacts in the database, relative to what it is there, so concurrent
+     * changes add up. The number in loaded Wizard entities is not updated.
+     */
+    @Modifying
+    @Query("update Wizard w set w.artifactCount = w.artifactCount + :delta where w.id = :id")
+    int adjustArtifactCount(Integer id, int delta);
+
+    /**
+     * Like {@link #adjustArtifactCount(Integer, int)}, but also moves the version on, for wizards that are not
+     * loaded and so cannot be locked with OPTIMISTIC_FORCE_INCREMENT.
+     */
+    @Modifying
+    @Query("update Wizard w set w.artifactCount = w.artifactCount + :delta, w.version = w.version + 1 where w.id = :id")
+    int adjustArtifactCountAndVersion(Integer id, int delta);
+
+    /**
+     * Deletes the wizard in one statement without loading it. Its artifacts must have been unassigned before.
+     *
+     * @param id
+     * @return the number of deleted rows, 0 if there is no such wizard
+     */
+    @Modifying
+    @Query("delete from Wizard w where w.id = :id")
+    int deleteByIdInBulk(Integer id);
+
+    @Query("select w.id from Wizard w where w.artifactCount <> (select count(a) from Artifact a where a.owner = w)")
+    List<Integer> findIdsWithWrongArtifactCount();
+
+    @Modifying
+    @Query("update Wizard w set w.artifactCount = (select count(a) from Artifact a where a.owner = w), w.version = w.version + 1 where w.id in :ids")
+    int recountArtifacts(Collection<Integer> ids);
+
 }
@@ -1,24 +1,61 @@
 package idv.ex.cs.hogwartsartifactsonline.wizard;
 
 import idv.ex.cs.hogwartsartifactsonline.artifact.Artifact;
+import idv.ex.cs.hogwartsartifactsonline.artifact.ArtifactDtoCache;
+import idv.ex.cs.hogwartsartifactsonline.artifact.ArtifactOwner;
 import idv.ex.cs.hogwartsartifactsonline.artifact.ArtifactRepository;
+import idv.ex.cs.hogwartsartifactsonline.artifact.change.ArtifactChangeFeed;
+import idv.ex.cs.hogwartsartifactsonline.artifact.change.ArtifactChangeType;
+import idv.ex.cs.hogwartsartifactsonline.artifact.dto.ArtifactDto;
+import idv.ex.cs.hogwartsartifactsonline.system.TransactionHooks;
+import idv.ex.cs.hogwartsartifactsonline.system.WriteCounter;
+import idv.ex.cs.hogwartsartifactsonline.system.exception.InvalidArgumentException;
 import idv.ex.cs.hogwartsartifactsonline.system.exception.ObjectNotFoundException;
+import idv.ex.cs.hogwartsartifactsonline.system.exception.PreconditionFailedException;
+import idv.ex.cs.hogwartsartifactsonline.wizard.dto.WizardDto;
+import idv.ex.cs.hogwartsartifactsonline.wizard.dto.WizardWithArtifactsDto;
 import jakarta.transaction.Transactional;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 @Service
 @Transactional
 public class WizardService {
 
+    private static final int assignmentChunkSize = 1000; // Artifact ids per bulk UPDATE statement
+
+    // Beyond this many artifacts, a bulk assignment publishes one BULK_ASSIGNED change instead of one change per
+    // artifact, which would overflow the change feed's buffer and disconnect its subscribers.
+    private static final int maxArtifactChangesPerAssignment = 100;
+
     private final WizardRepository wizardRepository;
 
     private final ArtifactRepository artifactRepository;
 
-    public WizardService(WizardRepository wizardRepository, ArtifactRepository artifactRepository) {
+    private final ArtifactDtoCache artifactDtoCache;
+
+    private final WriteCounter writeCounter;
+
+    private final ArtifactChangeFeed artifactChangeFeed;
+
+    public WizardService(WizardRepository wizardRepository, ArtifactRepository artifactRepository, ArtifactDtoCache artifactDtoCache, WriteCounter writeCounter, ArtifactChangeFeed artifactChangeFeed) {
         this.wizardRepository = wizardRepository;
         this.artifactRepository = artifactRepository;
+        this.artifactDtoCache = artifactDtoCache;
+        this.writeCounter = writeCounter;
+        this.artifactChangeFeed = artifactChangeFeed;
     }
 
     public Wizard findById(Integer wizardId) {
@@ -26,45 +63,266 @@ public class WizardService {
                 .orElseThrow(() -> new ObjectNotFoundException("wizard", wizardId));
     }
 
+    /**
+     * Finds only the version of the wizard, which is enough to answer a conditional GET.
+     *
+     * @param wizardId
+     * @return
+     */
+    public Long findVersionById(Integer wizardId) {
+        return this.wizardRepository.findVersionById(wizardId)
+                .orElseThrow(() -> new ObjectNotFoundException("wizard", wizardId));
+    }
+
     public List<Wizard> findAll() {
         return this.wizardRepository.findAll();
     }
 
+    /**
+     * Finds one page of WizardDtos in id order in a single statement.
+     *
+     * @param position where the previous page ended, {@code ScrollPosition.keyset()} for the first page
+     * @param size     the maximum number of WizardDtos in the page
+     * @return
+     */
+    public Window<WizardDto> findDtos(KeysetScrollPosition position, int size) {
+        Integer afterId = position.isInitial() ? 0 : (Integer) position.getKeys().get("id"); // Ids start at 1
+        // One extra row tells whether there is a next page.
+        List<WizardDto> rows = this.wizardRepository.findDtosAfter(afterId, Limit.of(size + 1));
+        boolean hasNext = rows.size() > size;
+        List<WizardDto> page = hasNext ? rows.subList(0, size) : rows;
+        return Window.from(page, index -> ScrollPosition.forward(Map.of("id", page.get(index).id())), hasNext);
+    }
+
+    /**
+     * Like {@link #findDtos(KeysetScrollPosition, int)}, but with the wizards' artifacts, which are read for the
+     * whole page by a second statement.
+     *
+     * @param position
+     * @param size
+     * @return
+     */
+    public Window<WizardWithArtifactsDto> findDtosWithArtifacts(KeysetScrollPosition position, int size) {
+        Window<WizardDto> wizardDtos = findDtos(position, size);
+        Map<Integer, List<ArtifactDto>> artifactDtosByOwner = new HashMap<>();
+        if (!wizardDtos.isEmpty()) {
+            List<Integer> ownerIds = wizardDtos.map(WizardDto::id).getContent();
+            for (ArtifactDto artifactDto : this.artifactRepository.findSummaryDtosByOwnerIdIn(ownerIds)) {
+                artifactDtosByOwner.computeIfAbsent(artifactDto.owner().id(), ownerId -> new ArrayList<>())
+                        .add(new ArtifactDto(artifactDto.id(), artifactDto.name(), artifactDto.description(), artifactDto.imageUrl(), null));
+            }
+        }
+        return wizardDtos.map(wizardDto -> new WizardWithArtifactsDto(wizardDto.id(), wizardDto.name(), wizardDto.numberOfArtifacts(),
+                artifactDtosByOwner.getOrDefault(wizardDto.id(), List.of())));
+    }
+
     public Wizard save(Wizard wizard) {
+        this.writeCounter.increment();
         return this.wizardRepository.save(wizard);
     }
 
     public Wizard update(Integer wizardId, Wizard wizard) {
+        return update(wizardId, wizard, null);
+    }
+
+    /**
+     * Updates the wizard only if it still has the version the client last saw.
+     *
+     * @param wizardId
+     * @param wizard
+     * @param expectedVersion the version from the client's If-Match header, null to update any version
+     * @return
+     */
+    public Wizard update(Integer wizardId, Wizard wizard, Long expectedVersion) {
         return this.wizardRepository.findById(wizardId)
                 .map(oldWizard -> {
+                    if (expectedVersion != null && !expectedVersion.equals(oldWizard.getVersion())) {
+                        throw new PreconditionFailedException("wizard", wizardId);
+                    }
                     oldWizard.setName(wizard.getName());
+                    // Cached artifacts show their owner's name.
+                    TransactionHooks.afterCommit(() -> this.artifactDtoCache.invalidateOwner(wizardId));
+                    this.writeCounter.increment();
                     return this.wizardRepository.save(oldWizard);
                 })
                 .orElseThrow(() -> new ObjectNotFoundException("wizard", wizardId));
     }
 
+    /**
+     * Deletes the wizard with two statements whatever its number of artifacts: one unassigns its artifacts and one
+     * deletes the wizard. Neither the wizard nor its artifacts are loaded, and the change feed gets one UNASSIGNED
+     * change for the wizard rather than one per artifact.
+     *
+     * @param wizardId
+     */
     public void delete(Integer wizardId) {
-        Wizard wizardToBeDeleted = this.wizardRepository.findById(wizardId)
-                .orElseThrow(() -> new ObjectNotFoundException("wizard", wizardId));
         // Before deletion, we will unassign this wizard's own artifacts.
-        wizardToBeDeleted.removeAllArtifacts();
-        this.wizardRepository.deleteById(wizardId);
+        this.artifactRepository.unassignAll(wizardId);
+        if (this.wizardRepository.deleteByIdInBulk(wizardId) == 0) {
+            throw new ObjectNotFoundException("wizard", wizardId);
+        }
+        this.artifactChangeFeed.publishAfterCommit(ArtifactChangeType.UNASSIGNED, null, wizardId);
+        this.writeCounter.increment();
+        TransactionHooks.afterCommit(() -> this.artifactDtoCache.invalidateOwner(wizardId));
     }
 
+    /**
+     * Assigns the artifact to the wizard by updating only the artifact's owner and both wizards' numbers of
+     * artifacts. Neither wizard's artifacts are loaded, so the cost does not depend on how many they own.
+     *
+     * @param wizardId
+     * @param artifactId
+     */
     public void assignArtifact(Integer wizardId, String artifactId) {
-        //Find this artifact By Id form DB
-        Artifact artifactToBeAssigned = this.artifactRepository.findById(artifactId)
-                .orElseThrow( () -> new ObjectNotFoundException("artifact", artifactId));
+        //Find this artifact's current owner from DB
+        if (!Artifact.isValidId(artifactId)) {
+            throw new ObjectNotFoundException("artifact", artifactId);
+        }
+        ArtifactOwner artifactOwner = this.artifactRepository.findOwnerById(artifactId)
+                .orElseThrow(() -> new ObjectNotFoundException("artifact", artifactId));
+        if (!this.wizardRepository.existsById(wizardId)) {
+            throw new ObjectNotFoundException("wizard", wizardId);
+        }
+        if (wizardId.equals(artifactOwner.ownerId())) {
+            return;
+        }
 
-        //Find this wizard By Id from DB
-        Wizard wizard = this.wizardRepository.findById(wizardId)
-                .orElseThrow( () -> new ObjectNotFoundException("wizard", wizardId));
+        //Artifact assignment, a single artifact is a bulk assignment of one
+        BulkAssignment assignment = new BulkAssignment(wizardId);
+        reassign(List.of(artifactId), artifactOwner.ownerId(), assignment);
+        if (assignment.moved == 0) {
+            // The owner changed since it was read.
+            throw new ObjectOptimisticLockingFailureException(Artifact.class, artifactId);
+        }
+        complete(assignment);
+    }
 
-        //Artifact assignment
-        //We need to see if this artifact is already owned by some wizard
-        if (artifactToBeAssigned.getOwner() != null) {
-            artifactToBeAssigned.getOwner().removeArtifact(artifactToBeAssigned);
+    /**
+     * Assigns many artifacts to the wizard with set-based UPDATE statements instead of loading them, in chunks
+     * of 1000 ids. Ids of artifacts that do not exist or are already the wizard's are skipped.
+     *
+     * @param wizardId
+     * @param artifactIds
+     * @return the number of artifacts that changed owner
+     */
+    public int assignArtifacts(Integer wizardId, List<String> artifactIds) {
+        if (!this.wizardRepository.existsById(wizardId)) {
+            throw new ObjectNotFoundException("wizard", wizardId);
         }
-        wizard.addArtifact(artifactToBeAssigned);
+        List<String> distinctIds = List.copyOf(new LinkedHashSet<>(artifactIds));
+        BulkAssignment assignment = new BulkAssignment(wizardId);
+        for (int from = 0; from < distinctIds.size(); from += assignmentChunkSize) {
+            List<String> chunk = distinctIds.subList(from, Math.min(from + assignmentChunkSize, distinctIds.size()));
+            Map<Integer, List<String>> idsByPreviousOwner = new LinkedHashMap<>();
+            for (ArtifactOwner artifactOwner : this.artifactRepository.findOwnersByIdIn(chunk)) {
+                if (!wizardId.equals(artifactOwner.ownerId())) {
+                    idsByPreviousOwner.computeIfAbsent(artifactOwner.ownerId(), ownerId -> new ArrayList<>()).add(artifactOwner.artifactId());
+                }
+            }
+            idsByPreviousOwner.forEach((previousOwnerId, ids) -> reassign(ids, previousOwnerId, assignment));
+        }
+        complete(assignment);
+        return assignment.moved;
     }
+
+    /**
+     * Moves all artifacts of one wizard to another with set-based UPDATE statements, 1000 artifacts at a time.
+     *
+     * @param fromWizardId
+     * @param toWizardId
+     * @return the number of moved artifacts
+     */
+    public int moveArtifacts(Integer fromWizardId, Integer toWizardId) {
+        if (fromWizardId.equals(toWizardId)) {
+            throw new InvalidArgumentException("A wizard's artifacts cannot be moved to the same wizard.");
+        }
+        if (!this.wizardRepository.existsById(fromWizardId)) {
+            throw new ObjectNotFoundException("wizard", fromWizardId);
+        }
+        if (!this.wizardRepository.existsById(toWizardId)) {
+            throw new ObjectNotFoundException("wizard", toWizardId);
+        }
+        BulkAssignment assignment = new BulkAssignment(toWizardId);
+        // Moved artifacts no longer match, so every round reads the next ones.
+        for (List<String> ids = this.artifactRepository.findIdsByOwnerId(fromWizardId, Limit.of(assignmentChunkSize));
+             !ids.isEmpty();
+             ids = this.artifactRepository.findIdsByOwnerId(fromWizardId, Limit.of(assignmentChunkSize))) {
+            reassign(ids, fromWizardId, assignment);
+        }
+        complete(assignment);
+        return assignment.moved;
+    }
+
+    /**
+     * What a bulk assignment changed so far, collected over its chunks.
+     */
+    private static final class BulkAssignment {
+
+        private final Integer wizardId;
+
+        private final Map<Integer, Integer> lostByPreviousOwner = new TreeMap<>();
+
+        private List<String> movedIds = new ArrayList<>(); // Null once there are too many to publish one by one
+
+        private boolean movedUnowned;
+
+        private int moved;
+
+        private BulkAssignment(Integer wizardId) {
+            this.wizardId = wizardId;
+        }
+
+    }
+
+    private void reassign(List<String> ids, Integer previousOwnerId, BulkAssignment assignment) {
+        int moved = this.artifactRepository.reassign(ids, previousOwnerId, this.wizardRepository.getReferenceById(assignment.wizardId));
+        if (moved == 0) {
+            return;
+        }
+        assignment.moved += moved;
+        if (previousOwnerId != null) {
+            assignment.lostByPreviousOwner.merge(previousOwnerId, moved, Integer::sum);
+        } else {
+            assignment.movedUnowned = true;
+        }
+        if (assignment.moved > maxArtifactChangesPerAssignment) {
+            assignment.movedIds = null;
+        } else if (assignment.movedIds != null) {
+            // Fewer rows than ids means a concurrent assignment took some of them first.
+            assignment.movedIds.addAll(moved == ids.size() ? ids : this.artifactRepository.findIdsByIdInAndOwnerId(ids, assignment.wizardId));
+        }
+    }
+
+    /**
+     * Applies a bulk assignment to the wizards' numbers of artifacts, in id order so that concurrent bulk
+     * assignments lock the wizard rows in the same order, and to the caches and the change feed. Cached artifacts
+     * taken from other wizards are invalidated with their previous owners.
+     */
+    private void complete(BulkAssignment assignment) {
+        if (assignment.moved == 0) {
+            return;
+        }
+        Map<Integer, Integer> deltas = new TreeMap<>();
+        assignment.lostByPreviousOwner.forEach((previousOwnerId, lost) -> deltas.put(previousOwnerId, -lost));
+        deltas.put(assignment.wizardId, assignment.moved);
+        deltas.forEach(this.wizardRepository::adjustArtifactCountAndVersion);
+        this.writeCounter.increment();
+        List<String> movedIds = assignment.movedIds;
+        if (movedIds != null) {
+            movedIds.forEach(artifactId ->
+                    this.artifactChangeFeed.publishAfterCommit(ArtifactChangeType.ASSIGNED, artifactId, assignment.wizardId));
+        } else {
+            this.artifactChangeFeed.publishAfterCommit(ArtifactChangeType.BULK_ASSIGNED, null, assignment.wizardId);
+        }
+        TransactionHooks.afterCommit(() -> {
+            if (movedIds != null) {
+                movedIds.forEach(this.artifactDtoCache::invalidate);
+            } else if (assignment.movedUnowned) {
+                // Cached unowned artifacts are not indexed by owner.
+                this.artifactDtoCache.invalidateAll();
+            }
+            deltas.keySet().forEach(this.artifactDtoCache::invalidateOwner);
+        });
+    }
+
 }
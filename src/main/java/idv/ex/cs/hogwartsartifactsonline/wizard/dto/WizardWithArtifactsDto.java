@@ -0,0 +1,15 @@
+package idv.ex.cs.hogwartsartifactsonline.wizard.dto;
+
+import idv.ex.cs.hogwartsartifactsonline.artifact.dto.ArtifactDto;
+
+import java.util.List;
+
+/**
+ * A wizard together with its artifacts, returned by GET /wizards?include=artifacts. The artifacts carry their
+ * description summaries and no owner, which is the enclosing wizard.
+ */
+public record WizardWithArtifactsDto(Integer id,
+                                     String name,
+                                     Integer numberOfArtifacts,
+                                     List<ArtifactDto> artifacts) {
+}
@@ -0,0 +1,15 @@
+-- Converts artifact.id from VARCHAR to BIGINT in a database created before the id became a BIGINT column.
+-- New databases get the BIGINT column from the schema Hibernate generates, they do not need this.
+-- Run it while the application is stopped. The primary key index is rebuilt along with the column.
+
+-- 1. Ids that are not the canonical decimal form of a long cannot be converted. This must return no rows,
+--    otherwise fix or delete those artifacts first.
+select id from artifact
+where not regexp_like(id, '^(0|-?[1-9][0-9]{0,18})$')
+   or (length(id) = 19 and id > '9223372036854775807');
+
+-- 2. Convert the column in place.
+-- H2:
+alter table artifact alter column id set data type bigint;
+-- PostgreSQL: alter table artifact alter column id type bigint using id::bigint;
+-- MySQL:      alter table artifact modify id bigint not null;
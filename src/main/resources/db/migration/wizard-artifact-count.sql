@@ -0,0 +1,8 @@
+-- Adds wizard.artifact_count to a database created before the column existed.
+-- New databases get the column from the schema Hibernate generates, they do not need this.
+
+-- 1. Add the column.
+alter table wizard add column artifact_count integer default 0 not null;
+
+-- 2. Fill it in. ArtifactCountRepairJob would also do this on its first run, but only after its interval.
+update wizard w set artifact_count = (select count(*) from artifact a where a.owner_id = w.id);
@@ -0,0 +1,126 @@
+package idv.ex.cs.hogwartsartifactsonline.artifact;
+
+import idv.ex.cs.hogwartsartifactsonline.HogwartsArtifactOnlineApplication;
+import idv.ex.cs.hogwartsartifactsonline.artifact.utils.IdWorker;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rows per second of creating artifacts one by one, as POST /artifacts does, against ArtifactService.saveAll,
+ * which POST /artifacts/batch uses, on the in-memory database. Ids alone are compared too, one nextId call per
+ * artifact against one nextIds call per batch; both are capped at 4096 ids per millisecond, so whatever the batch
+ * path gains comes from the database work. The in-memory database makes round trips cheap, a database over the
+ * network gains more from JDBC batching.
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=idv.ex.cs.hogwartsartifactsonline.artifact.ArtifactBatchBenchmark
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ArtifactBatchBenchmark {
+
+    private static final int batchSize = 500;
+
+    /**
+     * The application, started only for the benchmarks that save.
+     */
+    @State(Scope.Benchmark)
+    public static class Application {
+
+        private ConfigurableApplicationContext context;
+
+        private ArtifactService artifactService;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            this.context = new SpringApplicationBuilder(HogwartsArtifactOnlineApplication.class)
+                    .properties("spring.jpa.show-sql=false", "logging.level.root=WARN")
+                    .run();
+            this.artifactService = this.context.getBean(ArtifactService.class);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            this.context.close();
+        }
+
+    }
+
+    @State(Scope.Benchmark)
+    public static class Ids {
+
+        private final IdWorker idWorker = new IdWorker(1, 1);
+
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(batchSize)
+    public void saveOneByOne(Application application) {
+        for (Artifact artifact : newArtifacts()) {
+            application.artifactService.save(artifact);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(batchSize)
+    public void saveAll(Application application) {
+        application.artifactService.saveAll(newArtifacts());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(batchSize)
+    public void nextIdOneByOne(Ids ids, Blackhole blackhole) {
+        for (int i = 0; i < batchSize; i++) {
+            blackhole.consume(ids.idWorker.nextId());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(batchSize)
+    public long[] nextIds(Ids ids) {
+        return ids.idWorker.nextIds(batchSize);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(ArtifactBatchBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+
+    private static List<Artifact> newArtifacts() {
+        List<Artifact> artifacts = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            Artifact artifact = new Artifact();
+            artifact.setName("Artifact " + i);
+            artifact.setDescription("Benchmark artifact " + i + ".");
+            artifact.setImageUrl("ImageUrl");
+            artifacts.add(artifact);
+        }
+        return artifacts;
+    }
+
+}
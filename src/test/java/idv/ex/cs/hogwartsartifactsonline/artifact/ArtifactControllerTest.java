@@ -1,9 +1,13 @@
 package idv.ex.cs.hogwartsartifactsonline.artifact;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import idv.ex.cs.hogwartsartifactsonline.artifact.dto.ArtifactDto;
+import idv.ex.cs.hogwartsartifactsonline.artifact.dto.ArtifactSearchHit;
+import idv.ex.cs.hogwartsartifactsonline.artifact.search.ArtifactSearchIndex;
 import idv.ex.cs.hogwartsartifactsonline.system.StatusCode;
 import idv.ex.cs.hogwartsartifactsonline.system.exception.ObjectNotFoundException;
+import idv.ex.cs.hogwartsartifactsonline.system.exception.PreconditionFailedException;
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -13,19 +17,37 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
 @AutoConfigureMockMvc
@@ -37,16 +59,30 @@ class ArtifactControllerTest {
     @MockitoBean
     ArtifactService artifactService;
 
+    @MockitoBean
+    ArtifactSearchIndex artifactSearchIndex;
+
+    @MockitoBean
+    ArtifactDtoCache artifactDtoCache;
+
     @Autowired
     ObjectMapper objectMapper;
 
     List<Artifact> artifacts;
 
+    List<ArtifactDto> artifactDtos;
+
     @Value("${api.endpoint.base-url}")
     String baseUrl;
 
     @BeforeEach
     void setUp() {
+        // Let every lookup go through to the service, the cache itself is tested on its own.
+        given(this.artifactDtoCache.get(Mockito.anyString(), Mockito.any())).willAnswer(invocation -> {
+            Function<String, VersionedArtifactDto> loader = invocation.getArgument(1);
+            return loader.apply(invocation.getArgument(0));
+        });
+
         this.artifacts = new ArrayList<>();
 
         Artifact a1 = new Artifact();
@@ -91,6 +127,9 @@ class ArtifactControllerTest {
         a6.setImageUrl("ImageUrl");
         this.artifacts.add(a6);
 
+        this.artifactDtos = this.artifacts.stream()
+                .map(artifact -> new ArtifactDto(artifact.getId(), artifact.getName(), artifact.getDescription(), artifact.getImageUrl(), null))
+                .toList();
     }
 
     @AfterEach
@@ -100,10 +139,12 @@ class ArtifactControllerTest {
     @Test
     void testFindArtifactByIdSuccess() throws Exception {
         //Given
-        given(this.artifactService.findById("1250808601744904191")).willReturn(artifacts.get(0));
+        given(this.artifactService.findVersionedDtoById("1250808601744904191"))
+                .willReturn(new VersionedArtifactDto(this.artifactDtos.get(0), new ArtifactVersion(3L, 7L)));
 
         //When and Then
         this.mockMvc.perform(get(this.baseUrl + "/artifacts/1250808601744904191").accept(MediaType.APPLICATION_JSON))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3.7\""))
                 .andExpect(jsonPath("$.flag").value(true))
                 .andExpect(jsonPath("$.code").value(StatusCode.SUCCESS))
                 .andExpect(jsonPath("$.message").value("Find One Success"))
@@ -112,10 +153,33 @@ class ArtifactControllerTest {
 
     }
 
+    @Test
+    void testFindArtifactByIdAsCborAndSmile() throws Exception {
+        //Given
+        given(this.artifactService.findVersionedDtoById("1250808601744904191"))
+                .willReturn(new VersionedArtifactDto(this.artifactDtos.get(0), new ArtifactVersion(3L, 7L)));
+        MediaType smile = MediaType.parseMediaType("application/x-jackson-smile");
+
+        //When
+        byte[] cbor = this.mockMvc.perform(get(this.baseUrl + "/artifacts/1250808601744904191").accept(MediaType.APPLICATION_CBOR))
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn().getResponse().getContentAsByteArray();
+        byte[] smileBytes = this.mockMvc.perform(get(this.baseUrl + "/artifacts/1250808601744904191").accept(smile))
+                .andExpect(content().contentType(smile))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        //Then
+        JsonNode fromCbor = Jackson2ObjectMapperBuilder.cbor().build().readTree(cbor);
+        JsonNode fromSmile = Jackson2ObjectMapperBuilder.smile().build().readTree(smileBytes);
+        assertThat(fromCbor.get("message").asText()).isEqualTo("Find One Success");
+        assertThat(fromCbor.get("data").get("name").asText()).isEqualTo("Deluminator");
+        assertThat(fromSmile).isEqualTo(fromCbor);
+    }
+
     @Test
     void testFindArtifactByIdNotFound() throws Exception {
         //Given
-        given(this.artifactService.findById("1250808601744904191")).willThrow(new ObjectNotFoundException("artifact", "1250808601744904191"));
+        given(this.artifactService.findVersionedDtoById("1250808601744904191")).willThrow(new ObjectNotFoundException("artifact", "1250808601744904191"));
 
         //When and Then
         this.mockMvc.perform(get(this.baseUrl + "/artifacts/1250808601744904191").accept(MediaType.APPLICATION_JSON))
@@ -126,10 +190,39 @@ class ArtifactControllerTest {
 
     }
 
+    @Test
+    void testFindArtifactByIdNotModified() throws Exception {
+        //Given
+        given(this.artifactService.findVersionedDtoById("1250808601744904191"))
+                .willReturn(new VersionedArtifactDto(this.artifactDtos.get(0), new ArtifactVersion(3L, 7L)));
+
+        //When and Then
+        this.mockMvc.perform(get(this.baseUrl + "/artifacts/1250808601744904191").header(HttpHeaders.IF_NONE_MATCH, "\"3.7\"").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+        verify(this.artifactService, never()).findVersionById("1250808601744904191");
+    }
+
+    @Test
+    void testFindAllArtifactsNotModified() throws Exception {
+        //Given
+        given(this.artifactService.findAll(eq(ArtifactFilter.NONE), eq(ScrollPosition.keyset()), Mockito.any(Sort.class), eq(20), eq(false)))
+                .willReturn(Window.from(this.artifactDtos, i -> ScrollPosition.forward(Map.of("id", this.artifactDtos.get(i).id())), false));
+        String etag = this.mockMvc.perform(get(this.baseUrl + "/artifacts").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        //When and Then
+        assertThat(etag).isNotNull();
+        this.mockMvc.perform(get(this.baseUrl + "/artifacts").header(HttpHeaders.IF_NONE_MATCH, etag).accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotModified());
+    }
+
     @Test
     void testFindAllArtifactsSuccess() throws Exception {
         //Given
-        given(this.artifactService.findAll()).willReturn(this.artifacts);
+        given(this.artifactService.findAll(eq(ArtifactFilter.NONE), eq(ScrollPosition.keyset()), eq(Sort.by(Sort.Order.asc("id"))), eq(20), eq(false)))
+                .willReturn(Window.from(this.artifactDtos, i -> ScrollPosition.forward(Map.of("id", this.artifactDtos.get(i).id())), false));
 
         //When Then
         this.mockMvc.perform(get(this.baseUrl + "/artifacts").accept(MediaType.APPLICATION_JSON))
@@ -140,10 +233,163 @@ class ArtifactControllerTest {
                 .andExpect(jsonPath("$.data[0].id").value("1250808601744904191"))
                 .andExpect(jsonPath("$.data[0].name").value("Deluminator"))
                 .andExpect(jsonPath("$.data[1].id").value("1250808601744904192"))
-                .andExpect(jsonPath("$.data[1].name").value("Invisibility Cloak"));
+                .andExpect(jsonPath("$.data[1].name").value("Invisibility Cloak"))
+                .andExpect(jsonPath("$.next").doesNotExist());
 
     }
 
+    @Test
+    void testFindAllArtifactsFollowNextCursor() throws Exception {
+        //Given
+        List<ArtifactDto> firstPage = this.artifactDtos.subList(0, 2);
+        given(this.artifactService.findAll(eq(ArtifactFilter.NONE), eq(ScrollPosition.keyset()), Mockito.any(Sort.class), eq(2), eq(false)))
+                .willReturn(Window.from(firstPage, i -> ScrollPosition.forward(Map.of("name", firstPage.get(i).name(), "id", firstPage.get(i).id())), true));
+        List<ArtifactDto> secondPage = this.artifactDtos.subList(2, 4);
+        given(this.artifactService.findAll(eq(ArtifactFilter.NONE), eq(ScrollPosition.forward(Map.of("name", "Invisibility Cloak", "id", "1250808601744904192"))), Mockito.any(Sort.class), eq(2), eq(false)))
+                .willReturn(Window.from(secondPage, i -> ScrollPosition.forward(Map.of("name", secondPage.get(i).name(), "id", secondPage.get(i).id())), false));
+
+        //When
+        String json = this.mockMvc.perform(get(this.baseUrl + "/artifacts").param("size", "2").param("sort", "name").accept(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.data", Matchers.hasSize(2)))
+                .andExpect(jsonPath("$.next").isNotEmpty())
+                .andReturn().getResponse().getContentAsString();
+        String next = this.objectMapper.readTree(json).get("next").asText();
+
+        //Then
+        this.mockMvc.perform(get(this.baseUrl + "/artifacts").param("size", "2").param("sort", "name").param("cursor", next).accept(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.flag").value(true))
+                .andExpect(jsonPath("$.data", Matchers.hasSize(2)))
+                .andExpect(jsonPath("$.data[0].id").value("1250808601744904193"))
+                .andExpect(jsonPath("$.next").doesNotExist());
+    }
+
+    @Test
+    void testFindAllArtifactsWithFilters() throws Exception {
+        //Given
+        List<ArtifactDto> ownedArtifacts = this.artifactDtos.subList(0, 1);
+        given(this.artifactService.findAll(eq(new ArtifactFilter(1, "Del", null)), eq(ScrollPosition.keyset()), Mockito.any(Sort.class), eq(20), eq(false)))
+                .willReturn(Window.from(ownedArtifacts, i -> ScrollPosition.forward(Map.of("id", ownedArtifacts.get(i).id())), false));
+
+        //When Then
+        this.mockMvc.perform(get(this.baseUrl + "/artifacts").param("ownerId", "1").param("namePrefix", "Del").accept(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.flag").value(true))
+                .andExpect(jsonPath("$.data", Matchers.hasSize(1)))
+                .andExpect(jsonPath("$.data[0].id").value("1250808601744904191"));
+    }
+
+    @Test
+    void testFindAllArtifactsWithSummary() throws Exception {
+        //Given
+        List<ArtifactDto> summaries = List.of(new ArtifactDto("1250808601744904191", "Deluminator", Artifact.summarize("A Deluminator is a device invented by Albus Dumbledore. ".repeat(10)), "ImageUrl", null));
+        given(this.artifactService.findAll(eq(ArtifactFilter.NONE), eq(ScrollPosition.keyset()), Mockito.any(Sort.class), eq(20), eq(true)))
+                .willReturn(Window.from(summaries, i -> ScrollPosition.forward(Map.of("id", summaries.get(i).id())), false));
+
+        //When Then
+        this.mockMvc.perform(get(this.baseUrl + "/artifacts").param("summary", "true").accept(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.flag").value(true))
+                .andExpect(jsonPath("$.data", Matchers.hasSize(1)))
+                .andExpect(jsonPath("$.data[0].description").value(Matchers.hasLength(Artifact.SUMMARY_LENGTH)));
+    }
+
+    @Test
+    void testFindAllArtifactsErrorWithContradictoryFilters() throws Exception {
+        //When Then
+        this.mockMvc.perform(get(this.baseUrl + "/artifacts").param("ownerId", "1").param("unowned", "true").accept(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.flag").value(false))
+                .andExpect(jsonPath("$.code").value(StatusCode.INVALID_ARGUMENT))
+                .andExpect(jsonPath("$.message").value("ownerId and unowned=true cannot be combined."));
+        this.mockMvc.perform(get(this.baseUrl + "/artifacts").param("namePrefix", "").accept(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.flag").value(false))
+                .andExpect(jsonPath("$.code").value(StatusCode.INVALID_ARGUMENT));
+    }
+
+    @Test
+    void testFindAllArtifactsErrorWithInvalidArguments() throws Exception {
+        //When Then
+        this.mockMvc.perform(get(this.baseUrl + "/artifacts").param("size", "0").accept(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.flag").value(false))
+                .andExpect(jsonPath("$.code").value(StatusCode.INVALID_ARGUMENT));
+        this.mockMvc.perform(get(this.baseUrl + "/artifacts").param("sort", "description").accept(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.flag").value(false))
+                .andExpect(jsonPath("$.code").value(StatusCode.INVALID_ARGUMENT))
+                .andExpect(jsonPath("$.message").value("Cannot sort artifacts by description."));
+        this.mockMvc.perform(get(this.baseUrl + "/artifacts").param("cursor", "not-a-cursor").accept(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.flag").value(false))
+                .andExpect(jsonPath("$.code").value(StatusCode.INVALID_ARGUMENT));
+    }
+
+    @Test
+    void testSearchArtifactsSuccess() throws Exception {
+        //Given
+        given(this.artifactSearchIndex.search("elder wand", 20)).willReturn(List.of(
+                new ArtifactSearchHit("1250808601744904193", "Elder Wand", 3.2)));
+
+        //When Then
+        this.mockMvc.perform(get(this.baseUrl + "/artifacts/search").param("q", "elder wand").accept(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.flag").value(true))
+                .andExpect(jsonPath("$.code").value(StatusCode.SUCCESS))
+                .andExpect(jsonPath("$.message").value("Search Success"))
+                .andExpect(jsonPath("$.data", Matchers.hasSize(1)))
+                .andExpect(jsonPath("$.data[0].id").value("1250808601744904193"))
+                .andExpect(jsonPath("$.data[0].name").value("Elder Wand"));
+    }
+
+    @Test
+    void testSearchArtifactsErrorWithBlankQuery() throws Exception {
+        //When Then
+        this.mockMvc.perform(get(this.baseUrl + "/artifacts/search").param("q", " ").accept(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.flag").value(false))
+                .andExpect(jsonPath("$.code").value(StatusCode.INVALID_ARGUMENT))
+                .andExpect(jsonPath("$.message").value("q is required."));
+    }
+
+    @Test
+    void testExportArtifactsAsNdjsonSuccess() throws Exception {
+        //Given
+        doAnswer(invocation -> {
+            Consumer<ArtifactDto> action = invocation.getArgument(0);
+            this.artifactDtos.forEach(action);
+            return null;
+        }).when(this.artifactService).forEachArtifactDto(Mockito.any());
+
+        //When
+        MvcResult mvcResult = this.mockMvc.perform(get(this.baseUrl + "/artifacts/export").accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        //Then
+        String ndjson = this.mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+        String[] lines = ndjson.split("\n");
+        assertThat(lines).hasSize(this.artifacts.size());
+        assertThat(this.objectMapper.readTree(lines[0]).get("id").asText()).isEqualTo("1250808601744904191");
+        assertThat(this.objectMapper.readTree(lines[5]).get("name").asText()).isEqualTo("Resurrection Stone");
+    }
+
+    @Test
+    void testExportArtifactsAsJsonArraySuccess() throws Exception {
+        //Given
+        doAnswer(invocation -> {
+            Consumer<ArtifactDto> action = invocation.getArgument(0);
+            this.artifactDtos.forEach(action);
+            return null;
+        }).when(this.artifactService).forEachArtifactDto(Mockito.any());
+
+        //When
+        MvcResult mvcResult = this.mockMvc.perform(get(this.baseUrl + "/artifacts/export").accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        //Then
+        this.mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", Matchers.hasSize(this.artifacts.size())))
+                .andExpect(jsonPath("$[0].id").value("1250808601744904191"))
+                .andExpect(jsonPath("$[1].name").value("Invisibility Cloak"));
+    }
+
     @Test
     void testAddArtifactSuccess() throws Exception {
         //Given
@@ -173,6 +419,37 @@ class ArtifactControllerTest {
                 .andExpect(jsonPath("$.data.imageUrl").value(savedArtifact.getImageUrl()));
     }
 
+    @Test
+    void testAddArtifactsBatchSuccess() throws Exception {
+        //Given
+        List<ArtifactDto> artifactDtos = List.of(
+                new ArtifactDto(null, "Remembrall", "A Remembrall was a magical large marble-sized glass ball.", "ImageUrl", null),
+                new ArtifactDto(null, "", "A nameless artifact.", "ImageUrl", null),
+                new ArtifactDto(null, "Time-Turner", "A Time-Turner is a magical device used for time travel.", "ImageUrl", null));
+        String json = this.objectMapper.writeValueAsString(artifactDtos);
+
+        given(this.artifactService.saveAll(Mockito.anyList())).willAnswer(invocation -> {
+            List<Artifact> newArtifacts = invocation.getArgument(0);
+            newArtifacts.get(0).setId("1250808601744904197");
+            newArtifacts.get(1).setId("1250808601744904198");
+            return Map.of(1, "Could not save artifact, its chunk was rolled back.");
+        });
+
+        //When Then
+        this.mockMvc.perform(post(this.baseUrl + "/artifacts/batch").contentType(MediaType.APPLICATION_JSON).content(json).accept(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.flag").value(true))
+                .andExpect(jsonPath("$.code").value(StatusCode.SUCCESS))
+                .andExpect(jsonPath("$.message").value("Batch Add Success"))
+                .andExpect(jsonPath("$.data", Matchers.hasSize(3)))
+                .andExpect(jsonPath("$.data[0].success").value(true))
+                .andExpect(jsonPath("$.data[0].id").value("1250808601744904197"))
+                .andExpect(jsonPath("$.data[1].success").value(false))
+                .andExpect(jsonPath("$.data[1].errors.name").value("name is required."))
+                .andExpect(jsonPath("$.data[2].index").value(2))
+                .andExpect(jsonPath("$.data[2].success").value(false))
+                .andExpect(jsonPath("$.data[2].errors.artifact").value("Could not save artifact, its chunk was rolled back."));
+    }
+
     @Test
     void testUpdateArtifactSuccess() throws Exception {
         //Given
@@ -188,7 +465,8 @@ class ArtifactControllerTest {
         updatedArtifact.setName("Invisibility Cloak");
         updatedArtifact.setDescription("A new description.");
         updatedArtifact.setImageUrl("ImageUrl");
-        given(this.artifactService.update(eq("1250808601744904192"), Mockito.any(Artifact.class))).willReturn(updatedArtifact);
+        updatedArtifact.setVersion(4L);
+        given(this.artifactService.update(eq("1250808601744904192"), Mockito.any(Artifact.class), isNull())).willReturn(updatedArtifact);
 
         //When Then
         this.mockMvc.perform(put(this.baseUrl + "/artifacts/1250808601744904192").contentType(MediaType.APPLICATION_JSON).content(json).accept(MediaType.APPLICATION_JSON))
@@ -198,7 +476,29 @@ class ArtifactControllerTest {
                 .andExpect(jsonPath("$.data.id").value("1250808601744904192"))
                 .andExpect(jsonPath("$.data.name").value(updatedArtifact.getName()))
                 .andExpect(jsonPath("$.data.description").value(updatedArtifact .getDescription()))
-                .andExpect(jsonPath("$.data.imageUrl").value(updatedArtifact .getImageUrl()));
+                .andExpect(jsonPath("$.data.imageUrl").value(updatedArtifact .getImageUrl()))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"4\""));
+    }
+
+    @Test
+    void testUpdateArtifactErrorWithStaleIfMatch() throws Exception {
+        //Given
+        ArtifactDto artifactDto = new ArtifactDto("1250808601744904192",
+                "Invisibility Cloak",
+                "A new description.",
+                "ImageUrl",
+                null);
+        String json = this.objectMapper.writeValueAsString(artifactDto);
+
+        given(this.artifactService.update(eq("1250808601744904192"), Mockito.any(Artifact.class), eq(3L))).willThrow(new PreconditionFailedException("artifact", "1250808601744904192"));
+
+        //When Then
+        this.mockMvc.perform(put(this.baseUrl + "/artifacts/1250808601744904192").header(HttpHeaders.IF_MATCH, "\"3.7\"").contentType(MediaType.APPLICATION_JSON).content(json).accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(jsonPath("$.flag").value(false))
+                .andExpect(jsonPath("$.code").value(StatusCode.PRECONDITION_FAILED))
+                .andExpect(jsonPath("$.message").value("The artifact with Id 1250808601744904192 has been modified by someone else :("))
+                .andExpect(jsonPath("$.data").isEmpty());
     }
 
     @Test
@@ -211,7 +511,7 @@ class ArtifactControllerTest {
                 null);
         String json = this.objectMapper.writeValueAsString(artifactDto);
 
-        given(this.artifactService.update(eq("1250808601744904192"), Mockito.any(Artifact.class))).willThrow(new ObjectNotFoundException("artifact", "1250808601744904192"));
+        given(this.artifactService.update(eq("1250808601744904192"), Mockito.any(Artifact.class), isNull())).willThrow(new ObjectNotFoundException("artifact", "1250808601744904192"));
 
         //When Then
         this.mockMvc.perform(put(this.baseUrl + "/artifacts/1250808601744904192").contentType(MediaType.APPLICATION_JSON).content(json).accept(MediaType.APPLICATION_JSON))
@@ -221,6 +521,46 @@ class ArtifactControllerTest {
                 .andExpect(jsonPath("$.data").isEmpty());
     }
 
+    @Test
+    void testPatchArtifactSuccess() throws Exception {
+        //Given
+        doNothing().when(this.artifactService).patch("1250808601744904192", Map.of("imageUrl", "NewImageUrl"), null);
+
+        //When Then
+        this.mockMvc.perform(patch(this.baseUrl + "/artifacts/1250808601744904192").contentType("application/merge-patch+json").content("{\"imageUrl\": \"NewImageUrl\"}").accept(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.flag").value(true))
+                .andExpect(jsonPath("$.code").value(StatusCode.SUCCESS))
+                .andExpect(jsonPath("$.message").value("Patch Success"))
+                .andExpect(jsonPath("$.data").isEmpty());
+        verify(this.artifactService).patch("1250808601744904192", Map.of("imageUrl", "NewImageUrl"), null);
+    }
+
+    @Test
+    void testPatchArtifactErrorWithInvalidPatch() throws Exception {
+        //When Then
+        this.mockMvc.perform(patch(this.baseUrl + "/artifacts/1250808601744904192").contentType("application/merge-patch+json").content("{\"owner\": null}").accept(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.flag").value(false))
+                .andExpect(jsonPath("$.code").value(StatusCode.INVALID_ARGUMENT))
+                .andExpect(jsonPath("$.message").value("Cannot patch artifact field owner."));
+        this.mockMvc.perform(patch(this.baseUrl + "/artifacts/1250808601744904192").contentType("application/merge-patch+json").content("{\"name\": null}").accept(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.flag").value(false))
+                .andExpect(jsonPath("$.code").value(StatusCode.INVALID_ARGUMENT))
+                .andExpect(jsonPath("$.message").value("name is required."));
+        verify(this.artifactService, never()).patch(Mockito.anyString(), Mockito.anyMap(), Mockito.any());
+    }
+
+    @Test
+    void testPatchArtifactErrorWithNonExistentId() throws Exception {
+        //Given
+        doThrow(new ObjectNotFoundException("artifact", "1250808601744904192")).when(this.artifactService).patch("1250808601744904192", Map.of("name", "Cloak"), 4L);
+
+        //When Then
+        this.mockMvc.perform(patch(this.baseUrl + "/artifacts/1250808601744904192").header(HttpHeaders.IF_MATCH, "\"4\"").contentType("application/merge-patch+json").content("{\"name\": \"Cloak\"}").accept(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.flag").value(false))
+                .andExpect(jsonPath("$.code").value(StatusCode.NOT_FOUND))
+                .andExpect(jsonPath("$.message").value("Could not find artifact with Id 1250808601744904192 :("));
+    }
+
     @Test
     void testDeleteArtifactSuccess() throws Exception {
         // Given
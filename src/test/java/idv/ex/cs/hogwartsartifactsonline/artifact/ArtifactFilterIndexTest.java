@@ -0,0 +1,126 @@
+package idv.ex.cs.hogwartsartifactsonline.artifact;
+
+import idv.ex.cs.hogwartsartifactsonline.artifact.dto.ArtifactDto;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs against the artifacts and wizards of DBDataInitializer. Checks that every ArtifactFilter finds the right
+ * artifacts, and asks H2 for the plan of the very statement Hibernate generated for the page, join, order and
+ * limit included, so that a filter falling back to a table scan fails the build.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "idv.ex.cs.hogwartsartifactsonline.artifact.ArtifactFilterIndexTest$RecordingStatementInspector")
+class ArtifactFilterIndexTest {
+
+    private static final int pageSize = 100;
+
+    @Autowired
+    ArtifactService artifactService;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    void testFilterByOwner() {
+        //Given
+        Integer ownerId = this.artifactService.findDtoById("1250808601744904191").owner().id();
+
+        //When
+        List<ArtifactDto> artifactDtos = find(new ArtifactFilter(ownerId, null, null), ScrollPosition.keyset());
+        String firstPagePlan = explainLastPage(ownerId, pageSize + 1);
+        List<ArtifactDto> nextPage = find(new ArtifactFilter(ownerId, null, null), ScrollPosition.forward(Map.of("id", "1250808601744904191")));
+        String nextPagePlan = explainLastPage(ownerId, "1250808601744904191", pageSize + 1);
+
+        //Then
+        assertThat(artifactDtos).extracting(ArtifactDto::id).containsExactly("1250808601744904191", "1250808601744904193");
+        assertThat(nextPage).extracting(ArtifactDto::id).containsExactly("1250808601744904193");
+        assertThat(firstPagePlan).contains(": OWNER_ID = ?1 */").doesNotContain("tableScan");
+        // The keyset condition seeks within the owner's entries instead of reading them from the start.
+        assertThat(nextPagePlan).contains("IDX_ARTIFACT_OWNER_ID: OWNER_ID = ?1 AND ID > ?2 */").doesNotContain("tableScan");
+    }
+
+    @Test
+    void testFilterByNamePrefix() {
+        //When
+        List<ArtifactDto> artifactDtos = find(new ArtifactFilter(null, "The ", null), ScrollPosition.keyset());
+        String plan = explainLastPage("The %", pageSize + 1);
+
+        //Then
+        assertThat(artifactDtos).extracting(ArtifactDto::name).containsExactly("The Marauder's Map", "The Sword Of Gryffindor");
+        assertThat(find(new ArtifactFilter(null, "%", null), ScrollPosition.keyset())).isEmpty();
+        assertThat(plan).contains("IDX_ARTIFACT_NAME: NAME >= 'The ' AND NAME < 'The!' */").doesNotContain("tableScan");
+    }
+
+    @Test
+    void testFilterUnowned() {
+        //When
+        List<ArtifactDto> unowned = find(new ArtifactFilter(null, null, true), ScrollPosition.keyset());
+        String plan = explainLastPage(pageSize + 1);
+
+        //Then
+        assertThat(unowned).extracting(ArtifactDto::id).containsExactly("1250808601744904196");
+        assertThat(plan).contains(": OWNER_ID IS NULL */").doesNotContain("tableScan");
+    }
+
+    @Test
+    void testFilterOwned() {
+        //When
+        List<ArtifactDto> owned = find(new ArtifactFilter(null, null, false), ScrollPosition.keyset());
+        String firstPagePlan = explainLastPage(pageSize + 1);
+        List<ArtifactDto> nextPage = find(new ArtifactFilter(null, null, false), ScrollPosition.forward(Map.of("id", "1250808601744904193")));
+        String nextPagePlan = explainLastPage("1250808601744904193", pageSize + 1);
+
+        //Then
+        assertThat(owned).hasSize(5).extracting(ArtifactDto::id).doesNotContain("1250808601744904196");
+        assertThat(nextPage).extracting(ArtifactDto::id).containsExactly("1250808601744904194", "1250808601744904195");
+        // Most artifacts are owned, so the primary key is read in page order and the few unowned ones are skipped.
+        assertThat(firstPagePlan).contains("PRIMARY_KEY").doesNotContain("tableScan");
+        assertThat(nextPagePlan).contains("PRIMARY_KEY", ": ID > ?1 */").doesNotContain("tableScan");
+    }
+
+    private List<ArtifactDto> find(ArtifactFilter filter, KeysetScrollPosition position) {
+        RecordingStatementInspector.statements.clear();
+        return this.artifactService.findAll(filter, position, Sort.by("id"), pageSize, false).getContent();
+    }
+
+    /**
+     * @param parameters the values of the statement's parameters, in order
+     * @return the plan of the page statement Hibernate sent, with its whitespace collapsed
+     */
+    private String explainLastPage(Object... parameters) {
+        List<String> pageStatements = RecordingStatementInspector.statements.stream()
+                .filter(sql -> sql.startsWith("select") && sql.contains("fetch first ? rows only"))
+                .toList();
+        assertThat(pageStatements).hasSize(1);
+        return this.jdbcTemplate.queryForObject("explain " + pageStatements.get(0), String.class, parameters).replaceAll("\\s+", " ");
+    }
+
+    /**
+     * Records the SQL of every statement Hibernate prepares.
+     */
+    public static class RecordingStatementInspector implements StatementInspector {
+
+        static final List<String> statements = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            statements.add(sql);
+            return sql;
+        }
+
+    }
+
+}
@@ -0,0 +1,115 @@
+package idv.ex.cs.hogwartsartifactsonline.artifact;
+
+import idv.ex.cs.hogwartsartifactsonline.artifact.utils.IdWorker;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the artifact table with the old VARCHAR id and with the BIGINT id on an H2 file database: primary key
+ * lookups and a join on the id. The size of each database file after SHUTDOWN COMPACT, tables and indexes included,
+ * is printed once per trial; H2's DISK_SPACE_USED counts allocated pages and is too coarse to tell the two apart.
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=idv.ex.cs.hogwartsartifactsonline.artifact.ArtifactIdStorageBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ArtifactIdStorageBenchmark {
+
+    private static final int rows = 100_000;
+
+    @Param({"varchar(255)", "bigint"})
+    public String idType;
+
+    private Path directory;
+
+    private SingleConnectionDataSource dataSource;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private Object[] ids;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        this.directory = Files.createTempDirectory("artifact-id-storage");
+        IdWorker idWorker = new IdWorker(1, 1);
+        this.ids = new Object[rows];
+        for (int i = 0; i < rows; i++) {
+            long id = idWorker.nextId();
+            this.ids[i] = this.idType.equals("bigint") ? (Object) id : Long.toString(id);
+        }
+
+        JdbcTemplate populate = open();
+        populate.execute("create table artifact (id " + this.idType + " primary key, name varchar(255), owner_id int)");
+        populate.execute("create table artifact_reference (artifact_id " + this.idType + ")");
+        populate.batchUpdate("insert into artifact (id, name, owner_id) values (?, ?, ?)", Arrays.asList(this.ids), 1000, (statement, id) -> {
+            statement.setObject(1, id);
+            statement.setString(2, "Artifact " + id);
+            statement.setInt(3, (int) (Long.parseLong(id.toString()) % 100));
+        });
+        populate.execute("insert into artifact_reference select id from artifact where mod(owner_id, 10) = 0");
+        populate.execute("shutdown compact");
+        this.dataSource.destroy();
+        System.out.printf("%n%s id: database file of %d bytes%n", this.idType, Files.size(this.directory.resolve("artifact.mv.db")));
+
+        this.jdbcTemplate = open();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        this.dataSource.destroy();
+        FileSystemUtils.deleteRecursively(this.directory);
+    }
+
+    @Benchmark
+    public String primaryKeyLookup() {
+        Object id = this.ids[ThreadLocalRandom.current().nextInt(rows)];
+        return this.jdbcTemplate.queryForObject("select name from artifact where id = ?", String.class, id);
+    }
+
+    @Benchmark
+    public Long join() {
+        return this.jdbcTemplate.queryForObject(
+                "select count(*) from artifact_reference r join artifact a on a.id = r.artifact_id", Long.class);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(ArtifactIdStorageBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+
+    private JdbcTemplate open() {
+        this.dataSource = new SingleConnectionDataSource("jdbc:h2:file:" + this.directory.resolve("artifact"), "sa", "", true);
+        return new JdbcTemplate(this.dataSource);
+    }
+
+}
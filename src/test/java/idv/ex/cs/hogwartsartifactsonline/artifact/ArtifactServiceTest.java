@@ -1,8 +1,17 @@
 package idv.ex.cs.hogwartsartifactsonline.artifact;
 
+import idv.ex.cs.hogwartsartifactsonline.artifact.change.ArtifactChangeFeed;
+import idv.ex.cs.hogwartsartifactsonline.artifact.change.ArtifactChangeType;
+import idv.ex.cs.hogwartsartifactsonline.artifact.dto.ArtifactDto;
+import idv.ex.cs.hogwartsartifactsonline.artifact.search.ArtifactSearchIndex;
 import idv.ex.cs.hogwartsartifactsonline.artifact.utils.IdWorker;
+import idv.ex.cs.hogwartsartifactsonline.system.WriteCounter;
 import idv.ex.cs.hogwartsartifactsonline.system.exception.ObjectNotFoundException;
+import idv.ex.cs.hogwartsartifactsonline.system.exception.PreconditionFailedException;
 import idv.ex.cs.hogwartsartifactsonline.wizard.Wizard;
+import idv.ex.cs.hogwartsartifactsonline.wizard.WizardRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -11,9 +20,14 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -31,6 +45,27 @@ class ArtifactServiceTest {
     @Mock
     IdWorker idWorker;
 
+    @Mock
+    EntityManager entityManager;
+
+    @Mock
+    PlatformTransactionManager transactionManager;
+
+    @Mock
+    ArtifactSearchIndex artifactSearchIndex;
+
+    @Mock
+    ArtifactDtoCache artifactDtoCache;
+
+    @Mock
+    WriteCounter writeCounter;
+
+    @Mock
+    ArtifactChangeFeed artifactChangeFeed;
+
+    @Mock
+    WizardRepository wizardRepository;
+
     @InjectMocks
     ArtifactService artifactService;
 
@@ -152,6 +187,64 @@ class ArtifactServiceTest {
 
     }
 
+    @Test
+    void testFindAllPageSuccess() {
+        //Given
+        List<ArtifactDto> artifactDtos = List.of(
+                new ArtifactDto("1250808601744904191", "Deluminator", "A Deluminator", "ImageUrl", null),
+                new ArtifactDto("1250808601744904193", "Elder Wand", "The Elder Wand", "ImageUrl", null));
+        Window<ArtifactDto> window = Window.from(artifactDtos, i -> ScrollPosition.forward(Map.of("name", artifactDtos.get(i).name(), "id", artifactDtos.get(i).id())), true);
+        given(this.artifactRepository.findDtos(ArtifactFilter.NONE, ScrollPosition.keyset(), Sort.by("name", "id"), 2, false)).willReturn(window);
+
+        //When
+        Window<ArtifactDto> actualWindow = this.artifactService.findAll(ArtifactFilter.NONE, ScrollPosition.keyset(), Sort.by("name"), 2, false);
+
+        //Then
+        assertThat(actualWindow.size()).isEqualTo(2);
+        assertThat(actualWindow.hasNext()).isTrue();
+        verify(this.artifactRepository, times(1)).findDtos(ArtifactFilter.NONE, ScrollPosition.keyset(), Sort.by("name", "id"), 2, false);
+    }
+
+    @Test
+    void testFindDtoByIdNotFound() {
+        //Given
+        given(this.artifactRepository.findDtoById("1250808601744904192")).willReturn(Optional.empty());
+
+        //When
+        Throwable thrown = catchThrowable(() -> this.artifactService.findDtoById("1250808601744904192"));
+
+        //Then
+        assertThat(thrown).isInstanceOf(ObjectNotFoundException.class)
+                .hasMessage("Could not find artifact with Id 1250808601744904192 :(");
+    }
+
+    @Test
+    void testFindVersionedDtoByIdNotFound() {
+        //Given
+        given(this.artifactRepository.findVersionedDtoById("1250808601744904192")).willReturn(Optional.empty());
+
+        //When
+        Throwable thrown = catchThrowable(() -> this.artifactService.findVersionedDtoById("1250808601744904192"));
+
+        //Then
+        assertThat(thrown).isInstanceOf(ObjectNotFoundException.class)
+                .hasMessage("Could not find artifact with Id 1250808601744904192 :(");
+    }
+
+    @Test
+    void testFindByIdWithIdThatCannotBeStored() {
+        //When
+        Throwable notNumeric = catchThrowable(() -> this.artifactService.findById("abc"));
+        Throwable notCanonical = catchThrowable(() -> this.artifactService.findDtoById("007"));
+        Throwable tooLarge = catchThrowable(() -> this.artifactService.delete("9223372036854775808"));
+
+        //Then
+        assertThat(notNumeric).isInstanceOf(ObjectNotFoundException.class);
+        assertThat(notCanonical).isInstanceOf(ObjectNotFoundException.class);
+        assertThat(tooLarge).isInstanceOf(ObjectNotFoundException.class);
+        verifyNoInteractions(this.artifactRepository);
+    }
+
     @Test
     void testSaveSuccess() {
         //Give
@@ -172,7 +265,44 @@ class ArtifactServiceTest {
         assertThat(savedArtifact.getDescription()).isEqualTo("Description...");
         assertThat(savedArtifact.getImageUrl()).isEqualTo("ImageUrl...");
         verify(this.artifactRepository, times(1)).save(newArtifact);
+        verify(this.artifactSearchIndex, times(1)).add(newArtifact);
+        verify(this.artifactChangeFeed, times(1)).publishAfterCommit(ArtifactChangeType.CREATED, "123456", null);
+
+    }
+
+    @Test
+    void testSaveAllSuccess() {
+        //Given
+        given(this.idWorker.nextIds(3)).willReturn(new long[]{123456L, 123457L, 123458L});
+        List<Artifact> newArtifacts = new ArrayList<>(this.artifacts.subList(0, 3));
 
+        //When
+        Map<Integer, String> failures = this.artifactService.saveAll(newArtifacts);
+
+        //Then
+        assertThat(failures).isEmpty();
+        assertThat(newArtifacts).extracting(Artifact::getId).containsExactly("123456", "123457", "123458");
+        verify(this.idWorker, times(1)).nextIds(3);
+        verify(this.entityManager, times(3)).persist(Mockito.any(Artifact.class));
+        verify(this.entityManager, times(1)).flush();
+        verify(this.transactionManager, times(1)).commit(Mockito.any());
+        verify(this.artifactSearchIndex, times(3)).add(Mockito.any(Artifact.class));
+    }
+
+    @Test
+    void testSaveAllReportsFailedChunk() {
+        //Given
+        given(this.idWorker.nextIds(2)).willReturn(new long[]{123456L, 123457L});
+        doThrow(new IllegalStateException("flush failed")).when(this.entityManager).flush();
+        List<Artifact> newArtifacts = new ArrayList<>(this.artifacts.subList(0, 2));
+
+        //When
+        Map<Integer, String> failures = this.artifactService.saveAll(newArtifacts);
+
+        //Then
+        assertThat(failures).containsOnlyKeys(0, 1);
+        verify(this.transactionManager, times(1)).rollback(Mockito.any());
+        verify(this.artifactSearchIndex, never()).add(Mockito.any(Artifact.class));
     }
 
     @Test
@@ -200,6 +330,43 @@ class ArtifactServiceTest {
         assertThat(updatedArtifact.getDescription()).isEqualTo(update.getDescription());
         verify(this.artifactRepository, times(1)).findById("1250808601744904192");
         verify(this.artifactRepository, times(1)).save(oldArtifact);
+        verify(this.artifactDtoCache, times(1)).invalidate("1250808601744904192");
+        verify(this.writeCounter, times(1)).increment();
+    }
+
+    @Test
+    void testUpdateWithStaleVersion() {
+        //Given
+        Artifact oldArtifact = new Artifact();
+        oldArtifact.setId("1250808601744904192");
+        oldArtifact.setName("Invisibility Cloak");
+        oldArtifact.setVersion(4L);
+
+        Artifact update = new Artifact();
+        update.setName("Invisibility Cloak");
+        update.setDescription("A new description.");
+        given(this.artifactRepository.findById("1250808601744904192")).willReturn(Optional.of(oldArtifact));
+
+        //When
+        Throwable thrown = catchThrowable(() -> this.artifactService.update("1250808601744904192", update, 3L));
+
+        //Then
+        assertThat(thrown).isInstanceOf(PreconditionFailedException.class)
+                .hasMessage("The artifact with Id 1250808601744904192 has been modified by someone else :(");
+        verify(this.artifactRepository, never()).save(Mockito.any(Artifact.class));
+        verify(this.artifactDtoCache, never()).invalidate(Mockito.anyString());
+    }
+
+    @Test
+    void testFindVersionByIdSuccess() {
+        //Given
+        given(this.artifactRepository.findVersionById("1250808601744904192")).willReturn(Optional.of(new ArtifactVersion(3L, null)));
+
+        //When
+        ArtifactVersion version = this.artifactService.findVersionById("1250808601744904192");
+
+        //Then
+        assertThat(version.toEtag()).isEqualTo("\"3\"");
     }
 
     @Test
@@ -221,6 +388,61 @@ class ArtifactServiceTest {
 
     }
 
+    @Test
+    void testPatchSuccess() {
+        //Given
+        given(this.artifactRepository.patch("1250808601744904192", Map.of("imageUrl", "NewImageUrl"), null)).willReturn(1);
+
+        //When
+        this.artifactService.patch("1250808601744904192", Map.of("imageUrl", "NewImageUrl"), null);
+
+        //Then
+        verify(this.artifactRepository, never()).findDtoById(Mockito.anyString());
+        verify(this.artifactDtoCache, times(1)).invalidate("1250808601744904192");
+        verify(this.writeCounter, times(1)).increment();
+    }
+
+    @Test
+    void testPatchReindexesChangedName() {
+        //Given
+        ArtifactDto patchedArtifact = new ArtifactDto("1250808601744904192", "Cloak", "An invisibility cloak is used to make the wearer invisible.", "ImageUrl", null);
+        given(this.artifactRepository.patch("1250808601744904192", Map.of("name", "Cloak"), 3L)).willReturn(1);
+        given(this.artifactRepository.findDtoById("1250808601744904192")).willReturn(Optional.of(patchedArtifact));
+
+        //When
+        this.artifactService.patch("1250808601744904192", Map.of("name", "Cloak"), 3L);
+
+        //Then
+        verify(this.artifactSearchIndex, times(1)).add(patchedArtifact);
+    }
+
+    @Test
+    void testPatchNotFound() {
+        //Given
+        given(this.artifactRepository.patch("1250808601744904192", Map.of("imageUrl", "NewImageUrl"), null)).willReturn(0);
+
+        //When
+        Throwable thrown = catchThrowable(() -> this.artifactService.patch("1250808601744904192", Map.of("imageUrl", "NewImageUrl"), null));
+
+        //Then
+        assertThat(thrown).isInstanceOf(ObjectNotFoundException.class);
+        verify(this.artifactRepository, never()).existsById(Mockito.anyString());
+        verify(this.artifactDtoCache, never()).invalidate(Mockito.anyString());
+    }
+
+    @Test
+    void testPatchWithStaleVersion() {
+        //Given
+        given(this.artifactRepository.patch("1250808601744904192", Map.of("imageUrl", "NewImageUrl"), 3L)).willReturn(0);
+        given(this.artifactRepository.existsById("1250808601744904192")).willReturn(true);
+
+        //When
+        Throwable thrown = catchThrowable(() -> this.artifactService.patch("1250808601744904192", Map.of("imageUrl", "NewImageUrl"), 3L));
+
+        //Then
+        assertThat(thrown).isInstanceOf(PreconditionFailedException.class);
+    }
+
     @Test
     void testDeleteSuccess() {
         //Given
@@ -237,7 +459,34 @@ class ArtifactServiceTest {
 
         //Then
         verify(this.artifactRepository, times(1)).deleteById("1250808601744904192");
+        verify(this.artifactSearchIndex, times(1)).remove("1250808601744904192");
+        verify(this.artifactChangeFeed, times(1)).publishAfterCommit(ArtifactChangeType.DELETED, "1250808601744904192", null);
+        verify(this.wizardRepository, never()).adjustArtifactCount(anyInt(), anyInt());
+
+    }
 
+    @Test
+    void testDeleteOwnedArtifactInvalidatesOwner() {
+        //Given
+        Artifact artifact = new Artifact();
+        artifact.setId("1250808601744904192");
+        artifact.setName("Invisibility Cloak");
+        artifact.setDescription("An invisibility cloak is used to make the wearer invisible.");
+        artifact.setImageUrl("ImageUrl");
+        Wizard w = new Wizard();
+        w.setId(2);
+        w.setName("Harry Potter");
+        w.addArtifact(artifact);
+        given(this.artifactRepository.findById("1250808601744904192")).willReturn(Optional.of(artifact));
+
+        //When
+        this.artifactService.delete("1250808601744904192");
+
+        //Then
+        verify(this.artifactDtoCache, times(1)).invalidate("1250808601744904192");
+        verify(this.artifactDtoCache, times(1)).invalidateOwner(2);
+        verify(this.entityManager, times(1)).lock(w, LockModeType.OPTIMISTIC_FORCE_INCREMENT);
+        verify(this.wizardRepository, times(1)).adjustArtifactCount(2, -1);
     }
 
     @Test
@@ -0,0 +1,131 @@
+package idv.ex.cs.hogwartsartifactsonline.artifact;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hamcrest.Matchers;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Runs against the artifacts and wizards of DBDataInitializer and counts the SQL statements each request sends,
+ * so that an N+1 creeping back into the DTO paths fails the build.
+ */
+@SpringBootTest(properties = {"spring.jpa.properties.hibernate.generate_statistics=true",
+        // No lease renewal and no scheduled repair runs in between, so the statement counts are exact.
+        "api.artifacts.ids.lease.ttl=1h", "api.artifacts.ids.lease.heartbeat=30m",
+        "api.wizards.artifact-count-repair.interval=0"})
+@AutoConfigureMockMvc
+class ArtifactStatementCountTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    ArtifactDtoCache artifactDtoCache;
+
+    @Value("${api.endpoint.base-url}")
+    String baseUrl;
+
+    Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        this.statistics = this.entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        this.statistics.clear();
+    }
+
+    @Test
+    void testFindArtifactByIdUsesConstantStatements() throws Exception {
+        //Given
+        this.artifactDtoCache.invalidate("1250808601744904191");
+
+        //When
+        this.mockMvc.perform(get(this.baseUrl + "/artifacts/1250808601744904191").accept(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.data.owner.name").value("Albus Dumbledore"))
+                .andExpect(jsonPath("$.data.owner.numberOfArtifacts").value(2));
+
+        //Then the DTO and the versions for the ETag together
+        assertThat(this.statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void testFindCachedArtifactByIdUsesNoStatement() throws Exception {
+        //Given
+        this.artifactDtoCache.invalidate("1250808601744904191");
+        String etag = this.mockMvc.perform(get(this.baseUrl + "/artifacts/1250808601744904191").accept(MediaType.APPLICATION_JSON))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        this.statistics.clear();
+
+        //When
+        this.mockMvc.perform(get(this.baseUrl + "/artifacts/1250808601744904191").accept(MediaType.APPLICATION_JSON))
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(jsonPath("$.data.name").value("Deluminator"));
+        this.mockMvc.perform(get(this.baseUrl + "/artifacts/1250808601744904191").header(HttpHeaders.IF_NONE_MATCH, etag).accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotModified());
+
+        //Then
+        assertThat(this.statistics.getPrepareStatementCount()).isZero();
+    }
+
+    @Test
+    void testFindAllArtifactsUsesTwoStatementsWhateverThePageSize() throws Exception {
+        //When
+        this.mockMvc.perform(get(this.baseUrl + "/artifacts").param("size", "2").accept(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.data", Matchers.hasSize(2)));
+        long statementsForSmallPage = this.statistics.getPrepareStatementCount();
+        this.statistics.clear();
+        this.mockMvc.perform(get(this.baseUrl + "/artifacts").param("size", "100").accept(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.data", Matchers.hasSize(6)))
+                .andExpect(jsonPath("$.data[0].owner.numberOfArtifacts").value(2))
+                .andExpect(jsonPath("$.data[5].owner").doesNotExist());
+
+        //Then the write count for the ETag and the page
+        assertThat(statementsForSmallPage).isEqualTo(2);
+        assertThat(this.statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    void testPatchArtifactUsesTwoStatements() throws Exception {
+        //When
+        this.mockMvc.perform(patch(this.baseUrl + "/artifacts/1250808601744904196").contentType("application/merge-patch+json").content("{\"imageUrl\": \"NewImageUrl\"}").accept(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.flag").value(true));
+
+        //Then the update and the write count
+        assertThat(this.statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    void testExportArtifactsUsesOneStatement() throws Exception {
+        //When
+        MvcResult mvcResult = this.mockMvc.perform(get(this.baseUrl + "/artifacts/export").accept(MediaType.APPLICATION_NDJSON))
+                .andReturn();
+        String ndjson = this.mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        //Then
+        assertThat(ndjson.split("\n")).hasSize(6);
+        assertThat(this.statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+}
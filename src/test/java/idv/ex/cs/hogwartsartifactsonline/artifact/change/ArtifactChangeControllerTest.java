@@ -0,0 +1,162 @@
+package idv.ex.cs.hogwartsartifactsonline.artifact.change;
+
+import idv.ex.cs.hogwartsartifactsonline.artifact.Artifact;
+import idv.ex.cs.hogwartsartifactsonline.artifact.ArtifactRepository;
+import idv.ex.cs.hogwartsartifactsonline.artifact.ArtifactService;
+import idv.ex.cs.hogwartsartifactsonline.artifact.search.ArtifactSearchIndex;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class ArtifactChangeControllerTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    ArtifactChangeFeed artifactChangeFeed;
+
+    @Autowired
+    ArtifactService artifactService;
+
+    @Autowired
+    ArtifactRepository artifactRepository;
+
+    @Autowired
+    ArtifactSearchIndex artifactSearchIndex;
+
+    List<Artifact> savedArtifacts = new ArrayList<>();
+
+    @Value("${api.endpoint.base-url}")
+    String baseUrl;
+
+    @Test
+    void testStreamArtifactChanges() throws Exception {
+        //Given
+        MvcResult mvcResult = subscribe(null);
+
+        //When
+        this.artifactChangeFeed.publish(ArtifactChangeType.ASSIGNED, "1250808601744904192", 3);
+
+        //Then
+        String events = awaitContent(mvcResult, "\"ownerId\":3"); // The data line is written after the event name
+        assertThat(mvcResult.getResponse().getContentType()).startsWith(MediaType.TEXT_EVENT_STREAM_VALUE);
+        assertThat(events).contains("\"type\":\"ASSIGNED\"", "\"artifactId\":\"1250808601744904192\"", "\"ownerId\":3");
+    }
+
+    @AfterEach
+    void tearDown() {
+        // The database is shared with the other tests, which expect only the initial artifacts.
+        List<String> ids = this.savedArtifacts.stream().map(Artifact::getId).toList();
+        ids.forEach(this.artifactSearchIndex::remove);
+        this.artifactRepository.deleteAllByIdInBatch(ids);
+    }
+
+    @Test
+    void testLargeBatchKeepsSubscriberConnected() throws Exception {
+        //Given
+        MvcResult mvcResult = subscribe(null);
+        for (int i = 0; i < 1500; i++) { // More artifacts than the feed buffers changes
+            Artifact artifact = new Artifact();
+            artifact.setName("Artifact " + i);
+            artifact.setDescription("Description");
+            artifact.setImageUrl("ImageUrl");
+            this.savedArtifacts.add(artifact);
+        }
+        Object droppedSubscribers = droppedSubscribers();
+
+        //When
+        Map<Integer, String> failures = this.artifactService.saveAll(this.savedArtifacts);
+        this.artifactChangeFeed.publish(ArtifactChangeType.DELETED, "end-of-batch", null);
+
+        //Then
+        assertThat(failures).isEmpty();
+        String events = awaitContent(mvcResult, "\"artifactId\":\"end-of-batch\"");
+        assertThat(Pattern.compile("\"type\":\"BULK_CREATED\"").matcher(events).results()).hasSize(3); // One per chunk
+        assertThat(events).doesNotContain("\"type\":\"CREATED\"");
+        assertThat(droppedSubscribers()).isEqualTo(droppedSubscribers);
+    }
+
+    @Test
+    void testResumeWithLastEventId() throws Exception {
+        //Given
+        MvcResult first = subscribe(null);
+        this.artifactChangeFeed.publish(ArtifactChangeType.CREATED, "1", null);
+        String lastEventId = lastEventId(awaitContent(first, "\"artifactId\":\"1\""));
+        this.artifactChangeFeed.publish(ArtifactChangeType.UPDATED, "2", null);
+        this.artifactChangeFeed.publish(ArtifactChangeType.DELETED, "3", null);
+
+        //When
+        MvcResult resumed = subscribe(lastEventId);
+
+        //Then
+        String events = awaitContent(resumed, "\"artifactId\":\"3\"");
+        assertThat(events).doesNotContain("\"artifactId\":\"1\"");
+        assertThat(events.indexOf("\"artifactId\":\"2\"")).isLessThan(events.indexOf("\"artifactId\":\"3\""));
+    }
+
+    @Test
+    void testResetWithUnknownLastEventId() throws Exception {
+        //When
+        MvcResult mvcResult = subscribe("42-1");
+
+        //Then
+        awaitContent(mvcResult, "event:reset");
+    }
+
+    private MvcResult subscribe(String lastEventId) throws Exception {
+        var requestBuilder = get(this.baseUrl + "/artifacts/changes").accept(MediaType.TEXT_EVENT_STREAM);
+        if (lastEventId != null) {
+            requestBuilder.header("Last-Event-ID", lastEventId);
+        }
+        return this.mockMvc.perform(requestBuilder)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+    }
+
+    /**
+     * Events are sent by the feed's sender threads, so wait until the expected one arrives.
+     */
+    private static String awaitContent(MvcResult mvcResult, String expected) throws Exception {
+        long deadline = System.currentTimeMillis() + 5000;
+        String content = mvcResult.getResponse().getContentAsString();
+        while (!content.contains(expected) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            content = mvcResult.getResponse().getContentAsString();
+        }
+        assertThat(content).contains(expected);
+        return content;
+    }
+
+    private Object droppedSubscribers() {
+        return ((Map<?, ?>) this.artifactChangeFeed.getStats()).get("droppedSubscribers");
+    }
+
+    private static String lastEventId(String events) {
+        Matcher matcher = Pattern.compile("id:(\\S+)").matcher(events);
+        String id = null;
+        while (matcher.find()) {
+            id = matcher.group(1);
+        }
+        return id;
+    }
+
+}
@@ -0,0 +1,210 @@
+package idv.ex.cs.hogwartsartifactsonline.artifact.image;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import idv.ex.cs.hogwartsartifactsonline.artifact.ArtifactService;
+import idv.ex.cs.hogwartsartifactsonline.artifact.ArtifactVersion;
+import idv.ex.cs.hogwartsartifactsonline.system.StatusCode;
+import idv.ex.cs.hogwartsartifactsonline.system.exception.ObjectNotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class ArtifactImageControllerTest {
+
+    @TempDir
+    static Path imageDirectory;
+
+    @DynamicPropertySource
+    static void imageProperties(DynamicPropertyRegistry registry) {
+        registry.add("api.artifacts.images.directory", imageDirectory::toString);
+    }
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @MockitoBean
+    ArtifactService artifactService;
+
+    @Value("${api.endpoint.base-url}")
+    String baseUrl;
+
+    byte[] png;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        BufferedImage image = new BufferedImage(600, 400, BufferedImage.TYPE_INT_RGB);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        this.png = out.toByteArray();
+    }
+
+    @Test
+    void testUploadArtifactImageSuccess() throws Exception {
+        //When
+        String json = this.mockMvc.perform(put(this.baseUrl + "/artifacts/1250808601744904192/image").contentType(MediaType.IMAGE_PNG).content(this.png).accept(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.flag").value(true))
+                .andExpect(jsonPath("$.code").value(StatusCode.SUCCESS))
+                .andExpect(jsonPath("$.message").value("Upload Success"))
+                .andReturn().getResponse().getContentAsString();
+        String imageUrl = this.objectMapper.readTree(json).get("data").get("imageUrl").asText();
+
+        //Then
+        assertThat(imageUrl).matches(this.baseUrl + "/images/[0-9a-f]{64}\\.png");
+        verify(this.artifactService).patch(eq("1250808601744904192"), eq(Map.of("imageUrl", imageUrl)), isNull());
+        this.mockMvc.perform(get(imageUrl))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.IMAGE_PNG))
+                .andExpect(content().bytes(this.png))
+                .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=31536000, public, immutable"))
+                .andExpect(header().exists(HttpHeaders.ETAG));
+    }
+
+    @Test
+    void testUploadArtifactImageErrorWithNonExistentId() throws Exception {
+        //Given
+        given(this.artifactService.findVersionById("1250808601744904199")).willThrow(new ObjectNotFoundException("artifact", "1250808601744904199"));
+        long storedBefore = countFiles();
+
+        //When Then
+        this.mockMvc.perform(put(this.baseUrl + "/artifacts/1250808601744904199/image").contentType(MediaType.IMAGE_PNG).content(this.png).accept(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.flag").value(false))
+                .andExpect(jsonPath("$.code").value(StatusCode.NOT_FOUND));
+        assertThat(countFiles()).isEqualTo(storedBefore);
+        verify(this.artifactService, never()).patch(anyString(), anyMap(), any());
+    }
+
+    @Test
+    void testUploadArtifactImageErrorWithStaleIfMatch() throws Exception {
+        //Given
+        given(this.artifactService.findVersionById("1250808601744904192")).willReturn(new ArtifactVersion(3L, null));
+        long storedBefore = countFiles();
+
+        //When Then
+        this.mockMvc.perform(put(this.baseUrl + "/artifacts/1250808601744904192/image").contentType(MediaType.IMAGE_PNG).content(this.png)
+                        .header(HttpHeaders.IF_MATCH, "\"2\"").accept(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.flag").value(false))
+                .andExpect(jsonPath("$.code").value(StatusCode.PRECONDITION_FAILED));
+        assertThat(countFiles()).isEqualTo(storedBefore);
+        verify(this.artifactService, never()).patch(anyString(), anyMap(), any());
+    }
+
+    @Test
+    void testFindImageRange() throws Exception {
+        //Given
+        String imageUrl = upload();
+
+        //When Then
+        this.mockMvc.perform(get(imageUrl).header(HttpHeaders.RANGE, "bytes=8-15"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 8-15/" + this.png.length))
+                .andExpect(content().bytes(Arrays.copyOfRange(this.png, 8, 16)));
+        this.mockMvc.perform(get(imageUrl).header(HttpHeaders.RANGE, "bytes=-4"))
+                .andExpect(status().isPartialContent())
+                .andExpect(content().bytes(Arrays.copyOfRange(this.png, this.png.length - 4, this.png.length)));
+        this.mockMvc.perform(get(imageUrl).header(HttpHeaders.RANGE, "bytes=" + this.png.length + "-"))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */" + this.png.length));
+        this.mockMvc.perform(get(imageUrl).header(HttpHeaders.RANGE, "bytes=8-15").header(HttpHeaders.IF_RANGE, "\"stale\""))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(this.png));
+    }
+
+    @Test
+    void testFindImageNotModified() throws Exception {
+        //Given
+        String imageUrl = upload();
+        String etag = this.mockMvc.perform(get(imageUrl)).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        //When Then
+        this.mockMvc.perform(get(imageUrl).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().bytes(new byte[0]));
+    }
+
+    @Test
+    void testFindImageNotFound() throws Exception {
+        //When Then
+        this.mockMvc.perform(get(this.baseUrl + "/images/application.yml").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotFound());
+        this.mockMvc.perform(get(this.baseUrl + "/images/" + "0".repeat(64) + ".png").accept(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.flag").value(false))
+                .andExpect(jsonPath("$.code").value(StatusCode.NOT_FOUND));
+    }
+
+    @Test
+    void testFindThumbnailSuccess() throws Exception {
+        //Given
+        String imageUrl = upload();
+
+        //When, thumbnails are created in the background
+        long deadline = System.currentTimeMillis() + 5000;
+        int status;
+        do {
+            Thread.sleep(50);
+            status = this.mockMvc.perform(get(imageUrl + "/thumbnail")).andReturn().getResponse().getStatus();
+        } while (status == 404 && System.currentTimeMillis() < deadline);
+
+        //Then
+        assertThat(status).isEqualTo(200);
+        byte[] thumbnail = this.mockMvc.perform(get(imageUrl + "/thumbnail")).andReturn().getResponse().getContentAsByteArray();
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(thumbnail));
+        assertThat(image.getWidth()).isEqualTo(256);
+        assertThat(image.getHeight()).isEqualTo(171);
+    }
+
+    private static long countFiles() throws IOException {
+        try (Stream<Path> files = Files.walk(imageDirectory)) {
+            return files.filter(Files::isRegularFile).count();
+        }
+    }
+
+    private String upload() throws Exception {
+        String json = this.mockMvc.perform(put(this.baseUrl + "/artifacts/1250808601744904192/image").contentType(MediaType.IMAGE_PNG).content(this.png))
+                .andReturn().getResponse().getContentAsString();
+        return this.objectMapper.readTree(json).get("data").get("imageUrl").asText();
+    }
+
+}
@@ -0,0 +1,69 @@
+package idv.ex.cs.hogwartsartifactsonline.artifact.importer;
+
+import idv.ex.cs.hogwartsartifactsonline.system.StatusCode;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.InputStream;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class ArtifactImportControllerTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @MockitoBean
+    ArtifactImporter artifactImporter;
+
+    @Value("${api.endpoint.base-url}")
+    String baseUrl;
+
+    @Test
+    void testImportArtifactsStartsImport() throws Exception {
+        //Given
+        ArtifactImport artifactImport = new ArtifactImport();
+        given(this.artifactImporter.startImport(any(InputStream.class), eq(ArtifactImportFormat.CSV))).willReturn(artifactImport);
+
+        //When and Then
+        this.mockMvc.perform(post(this.baseUrl + "/artifacts/import").contentType("text/csv")
+                        .content("name,description,imageUrl\nDeluminator,A Deluminator,ImageUrl\n").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string(HttpHeaders.LOCATION, this.baseUrl + "/artifacts/imports/" + artifactImport.getId()))
+                .andExpect(jsonPath("$.flag").value(true))
+                .andExpect(jsonPath("$.code").value(StatusCode.ACCEPTED))
+                .andExpect(jsonPath("$.message").value("Import Started"))
+                .andExpect(jsonPath("$.data.id").value(artifactImport.getId()))
+                .andExpect(jsonPath("$.data.state").value("RUNNING"));
+    }
+
+    @Test
+    void testFindImportByIdNotFound() throws Exception {
+        //Given
+        given(this.artifactImporter.find("unknown")).willReturn(Optional.empty());
+
+        //When and Then
+        this.mockMvc.perform(get(this.baseUrl + "/artifacts/imports/unknown").accept(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.flag").value(false))
+                .andExpect(jsonPath("$.code").value(StatusCode.NOT_FOUND))
+                .andExpect(jsonPath("$.message").value("Could not find import with Id unknown :("));
+    }
+
+}
@@ -0,0 +1,173 @@
+package idv.ex.cs.hogwartsartifactsonline.artifact.importer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import idv.ex.cs.hogwartsartifactsonline.artifact.Artifact;
+import idv.ex.cs.hogwartsartifactsonline.artifact.ArtifactService;
+import idv.ex.cs.hogwartsartifactsonline.artifact.converter.ArtifactDtoToArtifactConverter;
+import idv.ex.cs.hogwartsartifactsonline.artifact.dto.ArtifactImportRejection;
+import idv.ex.cs.hogwartsartifactsonline.artifact.dto.ArtifactImportReport;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.BDDMockito.given;
+
+@ExtendWith(MockitoExtension.class)
+class ArtifactImporterTest {
+
+    @Mock
+    ArtifactService artifactService;
+
+    ArtifactImporter artifactImporter;
+
+    List<List<Artifact>> savedChunks;
+
+    @BeforeEach
+    void setUp() {
+        this.artifactImporter = new ArtifactImporter(this.artifactService, new ArtifactDtoToArtifactConverter(),
+                Validation.buildDefaultValidatorFactory().getValidator(), new ObjectMapper(), 2);
+        this.savedChunks = new ArrayList<>();
+    }
+
+    @AfterEach
+    void tearDown() {
+        this.artifactImporter.shutdown();
+    }
+
+    @Test
+    void testImportCsvSuccess() throws Exception {
+        //Given
+        givenSaveAllSucceeds();
+        String csv = "name,description,imageUrl\r\n"
+                + "Deluminator,\"A device that removes, absorbs and returns light.\",ImageUrl\r\n"
+                + "Invisibility Cloak,\"An invisibility cloak is used to make the wearer \"\"invisible\"\".\",ImageUrl\r\n";
+
+        //When
+        ArtifactImportReport report = this.artifactImporter.importArtifacts(input(csv), ArtifactImportFormat.CSV).toReport();
+
+        //Then
+        assertThat(report.state()).isEqualTo("COMPLETED");
+        assertThat(report.rowsRead()).isEqualTo(2);
+        assertThat(report.imported()).isEqualTo(2);
+        assertThat(report.rejected()).isEqualTo(0);
+        assertThat(this.savedChunks).hasSize(1);
+        assertThat(this.savedChunks.get(0).get(0).getDescription()).isEqualTo("A device that removes, absorbs and returns light.");
+        assertThat(this.savedChunks.get(0).get(1).getDescription()).isEqualTo("An invisibility cloak is used to make the wearer \"invisible\".");
+    }
+
+    @Test
+    void testImportJsonLinesInChunks() throws Exception {
+        //Given
+        givenSaveAllSucceeds();
+        StringBuilder jsonLines = new StringBuilder();
+        for (int i = 0; i < 1234; i++) {
+            jsonLines.append("{\"name\":\"Artifact ").append(i).append("\",\"description\":\"Description\",\"imageUrl\":\"ImageUrl\"}\n");
+        }
+
+        //When
+        ArtifactImportReport report = this.artifactImporter.importArtifacts(input(jsonLines.toString()), ArtifactImportFormat.JSON_LINES).toReport();
+
+        //Then
+        assertThat(report.imported()).isEqualTo(1234);
+        assertThat(this.savedChunks).extracting(List::size).containsExactly(500, 500, 234);
+        assertThat(this.savedChunks.get(2).get(233).getName()).isEqualTo("Artifact 1233");
+    }
+
+    @Test
+    void testImportRejectsInvalidRows() throws Exception {
+        //Given
+        givenSaveAllSucceeds();
+        String jsonLines = "{\"name\":\"Deluminator\",\"description\":\"Description\",\"imageUrl\":\"ImageUrl\"}\n"
+                + "{\"name\":\"\",\"description\":\"Description\",\"imageUrl\":\"ImageUrl\"}\n"
+                + "\n"
+                + "{\"name\":\n";
+
+        //When
+        ArtifactImportReport report = this.artifactImporter.importArtifacts(input(jsonLines), ArtifactImportFormat.JSON_LINES).toReport();
+
+        //Then
+        assertThat(report.rowsRead()).isEqualTo(3);
+        assertThat(report.imported()).isEqualTo(1);
+        assertThat(report.rejected()).isEqualTo(2);
+        assertThat(report.rejections()).extracting(ArtifactImportRejection::line).containsExactly(2L, 4L);
+        assertThat(report.rejections().get(0).errors()).isEqualTo(Map.of("name", "name is required."));
+        assertThat(report.rejections().get(1).errors()).containsKey("row");
+    }
+
+    @Test
+    void testImportReportsFailedChunk() throws Exception {
+        //Given
+        given(this.artifactService.saveAll(anyList())).willAnswer(invocation -> {
+            List<Artifact> chunk = invocation.getArgument(0);
+            return chunk.get(0).getName().equals("Artifact 0") ? Map.of(0, "Could not save artifact, its chunk was rolled back.") : Map.of();
+        });
+        StringBuilder csv = new StringBuilder("name,description,imageUrl\n");
+        for (int i = 0; i < 600; i++) {
+            csv.append("Artifact ").append(i).append(",Description,ImageUrl\n");
+        }
+
+        //When
+        ArtifactImportReport report = this.artifactImporter.importArtifacts(input(csv.toString()), ArtifactImportFormat.CSV).toReport();
+
+        //Then
+        assertThat(report.state()).isEqualTo("COMPLETED");
+        assertThat(report.imported()).isEqualTo(599);
+        assertThat(report.rejections()).containsExactly(new ArtifactImportRejection(2, Map.of("artifact", "Could not save artifact, its chunk was rolled back.")));
+    }
+
+    @Test
+    void testFindImport() throws Exception {
+        //Given
+        ArtifactImport artifactImport = this.artifactImporter.importArtifacts(input("name,description,imageUrl\n"), ArtifactImportFormat.CSV);
+
+        //When Then
+        assertThat(this.artifactImporter.find(artifactImport.getId())).containsSame(artifactImport);
+        assertThat(this.artifactImporter.find("unknown")).isEmpty();
+    }
+
+    @Test
+    void testStartImportRunsInTheBackground() throws Exception {
+        //Given
+        givenSaveAllSucceeds();
+        String csv = "name,description,imageUrl\nDeluminator,A Deluminator,ImageUrl\nElder Wand,The Elder Wand,ImageUrl\n";
+
+        //When
+        ArtifactImport artifactImport = this.artifactImporter.startImport(input(csv), ArtifactImportFormat.CSV);
+
+        //Then
+        assertThat(this.artifactImporter.find(artifactImport.getId())).containsSame(artifactImport);
+        long deadline = System.currentTimeMillis() + 5000;
+        while (artifactImport.getState() == ArtifactImport.State.RUNNING && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        ArtifactImportReport report = artifactImport.toReport();
+        assertThat(report.state()).isEqualTo("COMPLETED");
+        assertThat(report.imported()).isEqualTo(2);
+        assertThat(this.savedChunks).hasSize(1);
+    }
+
+    private void givenSaveAllSucceeds() {
+        given(this.artifactService.saveAll(anyList())).willAnswer(invocation -> {
+            this.savedChunks.add(new ArrayList<>(invocation.<List<Artifact>>getArgument(0)));
+            return Map.of();
+        });
+    }
+
+    private static InputStream input(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+}
@@ -0,0 +1,104 @@
+package idv.ex.cs.hogwartsartifactsonline.artifact.search;
+
+import idv.ex.cs.hogwartsartifactsonline.artifact.Artifact;
+import idv.ex.cs.hogwartsartifactsonline.artifact.dto.ArtifactSearchHit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ArtifactSearchIndexTest {
+
+    ArtifactSearchIndex artifactSearchIndex;
+
+    @BeforeEach
+    void setUp() {
+        this.artifactSearchIndex = new ArtifactSearchIndex();
+        this.artifactSearchIndex.add(artifact("1250808601744904191", "Deluminator", "A Deluminator is a device invented by Albus Dumbledore that resembles a cigarette lighter. It is used to remove or absorb (as well as return) the light from any light source to provide cover to the user."));
+        this.artifactSearchIndex.add(artifact("1250808601744904192", "Invisibility Cloak", "An invisibility cloak is used to make the wearer invisible."));
+        this.artifactSearchIndex.add(artifact("1250808601744904193", "Elder Wand", "The Elder Wand, known throughout history as the Deathstick or the Wand of Destiny, is an extremely powerful wand made of elder wood with a core of Thestral tail hair."));
+        this.artifactSearchIndex.add(artifact("1250808601744904194", "The Marauder's Map", "A magical map of Hogwarts created by Remus Lupin, Peter Pettigrew, Sirius Black, and James Potter while they were students at Hogwarts."));
+    }
+
+    @Test
+    void testSearchRanksBestMatchFirst() {
+        //When
+        List<ArtifactSearchHit> hits = this.artifactSearchIndex.search("wand", 10);
+
+        //Then
+        assertThat(hits).extracting(ArtifactSearchHit::id).containsExactly("1250808601744904193");
+        assertThat(hits.get(0).name()).isEqualTo("Elder Wand");
+    }
+
+    @Test
+    void testSearchMatchesAnyTermCaseInsensitive() {
+        //When
+        List<ArtifactSearchHit> hits = this.artifactSearchIndex.search("INVISIBLE light", 10);
+
+        //Then
+        assertThat(hits).extracting(ArtifactSearchHit::id)
+                .containsExactlyInAnyOrder("1250808601744904191", "1250808601744904192");
+    }
+
+    @Test
+    void testSearchHonorsLimit() {
+        //When
+        List<ArtifactSearchHit> hits = this.artifactSearchIndex.search("hogwarts wand light invisible", 2);
+
+        //Then
+        assertThat(hits).hasSize(2);
+        assertThat(hits.get(0).score()).isGreaterThanOrEqualTo(hits.get(1).score());
+    }
+
+    @Test
+    void testUpdateReplacesPreviousTerms() {
+        //When
+        this.artifactSearchIndex.add(artifact("1250808601744904193", "Elder Staff", "A very old staff."));
+
+        //Then
+        assertThat(this.artifactSearchIndex.search("wand", 10)).isEmpty();
+        assertThat(this.artifactSearchIndex.search("staff", 10)).extracting(ArtifactSearchHit::id).containsExactly("1250808601744904193");
+        assertThat(this.artifactSearchIndex.size()).isEqualTo(4);
+    }
+
+    @Test
+    void testRemove() {
+        //When
+        this.artifactSearchIndex.remove("1250808601744904192");
+
+        //Then
+        assertThat(this.artifactSearchIndex.search("cloak", 10)).isEmpty();
+        assertThat(this.artifactSearchIndex.size()).isEqualTo(3);
+    }
+
+    @Test
+    void testCompactionKeepsLiveDocuments() {
+        //When
+        for (int i = 0; i < 3000; i++) {
+            this.artifactSearchIndex.add(artifact("1250808601744904192", "Invisibility Cloak " + i, "An invisibility cloak is used to make the wearer invisible."));
+        }
+
+        //Then
+        assertThat(this.artifactSearchIndex.size()).isEqualTo(4);
+        assertThat(this.artifactSearchIndex.search("cloak", 10)).extracting(ArtifactSearchHit::name).containsExactly("Invisibility Cloak 2999");
+        assertThat(this.artifactSearchIndex.search("wand", 10)).extracting(ArtifactSearchHit::id).containsExactly("1250808601744904193");
+    }
+
+    @Test
+    void testTokenizeDropsStopWordsAndPunctuation() {
+        assertThat(ArtifactSearchIndex.tokenize("The Marauder's Map, of Hogwarts!"))
+                .containsExactly("marauder", "map", "hogwarts");
+    }
+
+    private static Artifact artifact(String id, String name, String description) {
+        Artifact artifact = new Artifact();
+        artifact.setId(id);
+        artifact.setName(name);
+        artifact.setDescription(description);
+        artifact.setImageUrl("ImageUrl");
+        return artifact;
+    }
+
+}
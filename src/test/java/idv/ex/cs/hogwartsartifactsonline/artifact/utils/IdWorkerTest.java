@@ -0,0 +1,352 @@
+package idv.ex.cs.hogwartsartifactsonline.artifact.utils;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class IdWorkerTest {
+
+    @Test
+    void testNextIdLayout() {
+        //Given
+        IdWorker idWorker = new FixedClockIdWorker(3, 7, new AtomicLong(1288834974657L + 1000));
+
+        //When
+        long first = idWorker.nextId();
+        long second = idWorker.nextId();
+
+        //Then
+        assertThat(first >> 22).isEqualTo(1000);
+        assertThat((first >> 17) & 31).isEqualTo(7);
+        assertThat((first >> 12) & 31).isEqualTo(3);
+        assertThat(first & 4095).isZero();
+        assertThat(second).isEqualTo(first + 1);
+    }
+
+    @Test
+    void testNextIdWaitsForNextMillisecondWhenSequenceIsExhausted() throws Exception {
+        //Given
+        AtomicLong clock = new AtomicLong(1288834974657L + 1000);
+        IdWorker idWorker = new FixedClockIdWorker(1, 1, clock);
+        for (int i = 0; i < 4096; i++) {
+            idWorker.nextId();
+        }
+
+        //When
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<Long> next = executor.submit(idWorker::nextId);
+        Thread.sleep(50);
+        assertThat(next).isNotDone();
+        clock.incrementAndGet();
+
+        //Then
+        assertThat(next.get() >> 22).isEqualTo(1001);
+        assertThat(next.get() & 4095).isZero();
+        Map<String, Object> stats = stats(idWorker);
+        assertThat(stats)
+                .containsEntry("issuedIds", 4097L)
+                .containsEntry("sequenceOverflows", 1L)
+                .containsEntry("sequenceUsed", 1.0);
+        assertThat(histogram(stats, "idsPerMillisecond")).containsEntry("count", 1L).containsEntry("max", 4096L).containsEntry("<=8191", 1L);
+        assertThat(histogram(stats, "waitMicros")).containsEntry("count", 1L);
+        executor.shutdown();
+    }
+
+    @Test
+    void testNextIdRecordsWaitEvent(@TempDir Path directory) throws Exception {
+        //Given
+        AtomicLong clock = new AtomicLong(1288834974657L + 1000);
+        IdWorker idWorker = new FixedClockIdWorker(1, 1, clock);
+        idWorker.nextIds(4096);
+        Path dump = directory.resolve("idworker.jfr");
+
+        //When
+        try (Recording recording = new Recording()) {
+            recording.enable("idv.ex.cs.hogwartsartifactsonline.IdWorkerWait").withThreshold(Duration.ZERO);
+            recording.start();
+            ExecutorService executor = Executors.newSingleThreadExecutor();
+            Future<Long> next = executor.submit(idWorker::nextId);
+            Thread.sleep(50);
+            clock.incrementAndGet();
+            next.get();
+            executor.shutdown();
+            recording.stop();
+            recording.dump(dump);
+        }
+
+        //Then
+        List<RecordedEvent> events = RecordingFile.readAllEvents(dump);
+        assertThat(events).hasSize(1);
+        assertThat(events.get(0).getLong("waitedFor")).isEqualTo(1288834974657L + 1000);
+        assertThat(events.get(0).getInt("spins")).isPositive();
+        assertThat(events.get(0).getDuration()).isGreaterThanOrEqualTo(Duration.ofMillis(40));
+    }
+
+    @Test
+    void testNextIdRefusesWhenClockMovesBackwards() {
+        //Given
+        AtomicLong clock = new AtomicLong(1288834974657L + 1000);
+        IdWorker idWorker = new FixedClockIdWorker(1, 1, clock);
+        idWorker.nextId();
+
+        //When
+        clock.addAndGet(-5);
+
+        //Then
+        assertThatThrownBy(idWorker::nextId)
+                .isInstanceOf(RuntimeException.class)
+                .hasMessageContaining("Clock moved backwards");
+    }
+
+    @Test
+    void testNextIdIsUniqueAndIncreasingUnderContention() throws Exception {
+        //Given
+        IdWorker idWorker = new IdWorker(1, 1);
+        int threads = 16;
+        int idsPerThread = 20_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        Callable<long[]> task = () -> {
+            long[] ids = new long[idsPerThread];
+            for (int i = 0; i < idsPerThread; i++) {
+                ids[i] = idWorker.nextId();
+            }
+            return ids;
+        };
+
+        //When
+        List<Future<long[]>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            futures.add(executor.submit(task));
+        }
+
+        //Then
+        Set<Long> all = new HashSet<>();
+        for (Future<long[]> future : futures) {
+            long[] ids = future.get();
+            for (int i = 0; i < ids.length; i++) {
+                assertThat(all.add(ids[i])).isTrue();
+                if (i > 0) {
+                    assertThat(ids[i]).isGreaterThan(ids[i - 1]);
+                }
+            }
+        }
+        assertThat(all).hasSize(threads * idsPerThread);
+        executor.shutdown();
+    }
+
+    @Test
+    void testNextRangeStopsAtEndOfMillisecond() {
+        //Given
+        IdWorker idWorker = new FixedClockIdWorker(1, 1, new AtomicLong(1288834974657L + 1000));
+        idWorker.nextIds(4000);
+
+        //When
+        IdRange range = idWorker.nextRange(500);
+
+        //Then
+        assertThat(range.count()).isEqualTo(96);
+        assertThat(range.first() & 4095).isEqualTo(4000);
+        assertThat(range.last() & 4095).isEqualTo(4095);
+    }
+
+    @Test
+    void testNextIdsSpansMilliseconds() {
+        //Given
+        AtomicLong clock = new AtomicLong(1288834974657L + 1000);
+        IdWorker idWorker = new IdWorker(1, 1) {
+            @Override
+            protected long timeGen() {
+                return clock.getAndIncrement() / 2; // The clock moves on while the ids are reserved
+            }
+        };
+        clock.set((1288834974657L + 1000) * 2);
+
+        //When
+        long[] ids = idWorker.nextIds(10_000);
+
+        //Then
+        assertThat(ids).hasSize(10_000).doesNotHaveDuplicates().isSorted();
+        assertThat(ids[ids.length - 1] >> 22).isGreaterThanOrEqualTo(1002);
+    }
+
+    @Test
+    void testMixedSingleAndBatchCallersGetUniqueIncreasingIds() throws Exception {
+        //Given
+        IdWorker idWorker = new IdWorker(1, 1);
+        int threads = 16;
+        int rounds = 500;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<List<Long>>> futures = new ArrayList<>();
+
+        //When
+        for (int t = 0; t < threads; t++) {
+            int batchSize = t % 2 == 0 ? 1 : 1 + t * 37; // Half of the threads ask for single ids
+            futures.add(executor.submit(() -> {
+                List<Long> ids = new ArrayList<>();
+                for (int i = 0; i < rounds; i++) {
+                    if (batchSize == 1) {
+                        ids.add(idWorker.nextId());
+                    } else {
+                        for (long id : idWorker.nextIds(batchSize)) {
+                            ids.add(id);
+                        }
+                    }
+                }
+                return ids;
+            }));
+        }
+
+        //Then
+        Set<Long> all = new HashSet<>();
+        int total = 0;
+        for (Future<List<Long>> future : futures) {
+            List<Long> ids = future.get();
+            total += ids.size();
+            for (int i = 0; i < ids.size(); i++) {
+                assertThat(all.add(ids.get(i))).isTrue();
+                if (i > 0) {
+                    assertThat(ids.get(i)).isGreaterThan(ids.get(i - 1));
+                }
+            }
+        }
+        assertThat(all).hasSize(total);
+        executor.shutdown();
+    }
+
+    @Test
+    void testNextIdContinuesWithinDriftBudgetWhenClockMovesBackwards() {
+        //Given
+        AtomicLong clock = new AtomicLong(1288834974657L + 1000);
+        IdWorker idWorker = new FixedClockIdWorker(1, 1, 10, clock);
+        long before = idWorker.nextId();
+
+        //When
+        clock.addAndGet(-5);
+        long after = idWorker.nextId();
+
+        //Then
+        assertThat(after).isEqualTo(before + 1);
+        assertThat(stats(idWorker))
+                .containsEntry("skewEvents", 1L)
+                .containsEntry("borrowedMillis", 5L)
+                .containsEntry("refusals", 0L);
+    }
+
+    @Test
+    void testNextIdBorrowsFutureMillisecondsWithinDriftBudget() {
+        //Given
+        AtomicLong clock = new AtomicLong(1288834974657L + 1000);
+        IdWorker idWorker = new FixedClockIdWorker(1, 1, 2, clock);
+
+        //When, the clock stands still for three milliseconds' worth of ids
+        long[] ids = idWorker.nextIds(3 * 4096);
+
+        //Then
+        assertThat(ids).doesNotHaveDuplicates().isSorted();
+        assertThat(ids[ids.length - 1] >> 22).isEqualTo(1002);
+        assertThat(stats(idWorker))
+                .containsEntry("maxBorrowedMillis", 2L)
+                .containsEntry("borrowedIds", 2 * 4096L);
+    }
+
+    @Test
+    void testNextIdWaitsWhenDriftBudgetIsUsedUp() throws Exception {
+        //Given
+        AtomicLong clock = new AtomicLong(1288834974657L + 1000);
+        IdWorker idWorker = new FixedClockIdWorker(1, 1, 1, clock);
+        idWorker.nextIds(2 * 4096);
+
+        //When
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<Long> next = executor.submit(idWorker::nextId);
+        Thread.sleep(50);
+        assertThat(next).isNotDone();
+        clock.incrementAndGet();
+
+        //Then
+        assertThat(next.get() >> 22).isEqualTo(1002);
+        executor.shutdown();
+    }
+
+    @Test
+    void testNextIdRefusesBeyondDriftBudget() {
+        //Given
+        AtomicLong clock = new AtomicLong(1288834974657L + 1000);
+        IdWorker idWorker = new FixedClockIdWorker(1, 1, 10, clock);
+        idWorker.nextId();
+
+        //When
+        clock.addAndGet(-50);
+
+        //Then
+        assertThatThrownBy(idWorker::nextId)
+                .isInstanceOf(RuntimeException.class)
+                .hasMessageContaining("Clock moved backwards");
+        assertThat(stats(idWorker)).containsEntry("refusals", 1L);
+    }
+
+    @Test
+    void testInstancesDoNotShareState() {
+        //Given
+        AtomicLong clock = new AtomicLong(1288834974657L + 1000);
+        IdWorker first = new FixedClockIdWorker(1, 1, clock);
+        IdWorker second = new FixedClockIdWorker(2, 1, clock);
+
+        //When
+        first.nextId();
+        first.nextId();
+
+        //Then
+        assertThat(second.nextId() & 4095).isZero();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> stats(IdWorker idWorker) {
+        return (Map<String, Object>) idWorker.getStats();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Long> histogram(Map<String, Object> stats, String name) {
+        return (Map<String, Long>) stats.get(name);
+    }
+
+    static class FixedClockIdWorker extends IdWorker {
+
+        private final AtomicLong clock;
+
+        FixedClockIdWorker(long workerId, long datacenterId, AtomicLong clock) {
+            this(workerId, datacenterId, 0, clock);
+        }
+
+        FixedClockIdWorker(long workerId, long datacenterId, long maxDriftMillis, AtomicLong clock) {
+            super(workerId, datacenterId, maxDriftMillis);
+            this.clock = clock;
+        }
+
+        @Override
+        protected long timeGen() {
+            return this.clock.get();
+        }
+
+    }
+
+
+}
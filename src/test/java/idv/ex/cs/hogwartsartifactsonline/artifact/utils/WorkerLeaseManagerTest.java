@@ -0,0 +1,114 @@
+package idv.ex.cs.hogwartsartifactsonline.artifact.utils;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Every WorkerLeaseManager created here stands for another application node sharing the database.
+ */
+@SpringBootTest
+class WorkerLeaseManagerTest {
+
+    @Autowired
+    WorkerLeaseRepository workerLeaseRepository;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    List<WorkerLeaseManager> nodes = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        this.nodes.forEach(WorkerLeaseManager::shutdown);
+    }
+
+    @Test
+    void testNodesLeaseDistinctNodeIds() {
+        //Given
+        List<IdWorker> idWorkers = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            IdWorker idWorker = new IdWorker(0);
+            idWorkers.add(idWorker);
+            start(idWorker);
+        }
+
+        //When
+        Set<Long> nodeBits = new HashSet<>();
+        idWorkers.forEach(idWorker -> nodeBits.add(idWorker.nextId() >> 12 & 1023));
+
+        //Then
+        assertThat(nodeBits).hasSize(3);
+        assertThat(this.nodes).extracting(WorkerLeaseManager::getNodeId).doesNotHaveDuplicates()
+                .allSatisfy(nodeId -> assertThat(nodeBits).contains(nodeId.longValue()));
+    }
+
+    @Test
+    void testExpiredLeaseIsReused() {
+        //Given, a node that crashed long ago without releasing its lease
+        int abandoned = this.workerLeaseRepository.findNodeIds().size() + 100;
+        this.workerLeaseRepository.saveAndFlush(new WorkerLease(abandoned, "crashed-node", 0));
+        Long abandonedToken = this.workerLeaseRepository.findToken(abandoned, "crashed-node").orElseThrow();
+
+        //When
+        WorkerLeaseManager node = start(new IdWorker(0));
+
+        //Then
+        assertThat(node.getNodeId()).isEqualTo(abandoned);
+        assertThat(this.workerLeaseRepository.findById(abandoned).orElseThrow().getToken()).isGreaterThan(abandonedToken);
+    }
+
+    @Test
+    void testNodeIsFencedWhenItsLeaseIsTakenOver() {
+        //Given
+        IdWorker idWorker = new IdWorker(0);
+        WorkerLeaseManager node = start(idWorker);
+        int stolen = node.getNodeId();
+        new TransactionTemplate(this.transactionManager).execute(status ->
+                this.workerLeaseRepository.takeOver(stolen, "other-node", Long.MAX_VALUE, Long.MAX_VALUE));
+
+        //When
+        node.renew();
+
+        //Then
+        assertThat(node.getNodeId()).isNotEqualTo(stolen);
+        assertThat(idWorker.nextId() >> 12 & 1023).isEqualTo(node.getNodeId().longValue());
+    }
+
+    @Test
+    void testIdWorkerRefusesIdsWithoutLease() {
+        //Given
+        IdWorker idWorker = new IdWorker(0);
+        WorkerLeaseManager node = start(idWorker);
+        idWorker.nextId();
+
+        //When
+        node.shutdown();
+
+        //Then
+        assertThatThrownBy(idWorker::nextId)
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("no worker id lease");
+    }
+
+    private WorkerLeaseManager start(IdWorker idWorker) {
+        WorkerLeaseManager node = new WorkerLeaseManager(this.workerLeaseRepository, this.transactionManager, idWorker,
+                Duration.ofMinutes(1), Duration.ofSeconds(20), Duration.ZERO);
+        node.start();
+        this.nodes.add(node);
+        return node;
+    }
+
+}
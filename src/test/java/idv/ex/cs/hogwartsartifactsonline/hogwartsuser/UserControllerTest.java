@@ -1,5 +1,6 @@
 package idv.ex.cs.hogwartsartifactsonline.hogwartsuser;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import idv.ex.cs.hogwartsartifactsonline.hogwartsuser.dto.UserDto;
 import idv.ex.cs.hogwartsartifactsonline.system.StatusCode;
@@ -13,12 +14,14 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.util.ArrayList;
 import java.util.List;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.doNothing;
@@ -105,6 +108,21 @@ class UserControllerTest {
                 .andExpect(jsonPath("$.data.username").value("eric"));
     }
 
+    @Test
+    void testFindUserByIdAsCbor() throws Exception {
+        // Given
+        given(this.userService.findById(2)).willReturn(this.users.get(1));
+
+        // When
+        byte[] cbor = this.mockMvc.perform(get(this.baseUrl + "/users/2").accept(MediaType.APPLICATION_CBOR))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        // Then
+        JsonNode result = Jackson2ObjectMapperBuilder.cbor().build().readTree(cbor);
+        assertThat(result.get("data").get("username").asText()).isEqualTo("eric");
+        assertThat(result.get("data").has("password")).isFalse();
+    }
+
     @Test
     void testFindUserByIdNotFound() throws Exception {
         // Given. Arrange inputs and targets. Define the behavior of Mock object userService.
@@ -0,0 +1,66 @@
+package idv.ex.cs.hogwartsartifactsonline.system;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CompressedTextConverterTest {
+
+    CompressedTextConverter converter = new CompressedTextConverter();
+
+    @Test
+    void testShortTextIsStoredPlain() {
+        //When
+        byte[] column = this.converter.convertToDatabaseColumn("Deluminator");
+
+        //Then
+        assertThat(column[0]).isEqualTo((byte) 0);
+        assertThat(column).hasSize("Deluminator".length() + 1);
+        assertThat(this.converter.convertToEntityAttribute(column)).isEqualTo("Deluminator");
+    }
+
+    @Test
+    void testLongTextIsDeflated() {
+        //Given
+        String description = "A Deluminator is a device invented by Albus Dumbledore that resembles a cigarette lighter. ".repeat(40);
+
+        //When
+        byte[] column = this.converter.convertToDatabaseColumn(description);
+
+        //Then
+        assertThat(column[0]).isEqualTo((byte) 1);
+        assertThat(column.length).isLessThan(description.getBytes(StandardCharsets.UTF_8).length / 4);
+        assertThat(this.converter.convertToEntityAttribute(column)).isEqualTo(description);
+    }
+
+    @Test
+    void testUnicodeRoundTrip() {
+        //Given
+        String description = "隱形斗篷 🧙 ".repeat(100);
+
+        //When Then
+        assertThat(this.converter.convertToEntityAttribute(this.converter.convertToDatabaseColumn(description))).isEqualTo(description);
+    }
+
+    @Test
+    void testNullAndEmpty() {
+        //When Then
+        assertThat(this.converter.convertToDatabaseColumn(null)).isNull();
+        assertThat(this.converter.convertToEntityAttribute(null)).isNull();
+        assertThat(this.converter.convertToEntityAttribute(this.converter.convertToDatabaseColumn(""))).isEmpty();
+    }
+
+    @Test
+    void testCorruptColumn() {
+        //When Then
+        assertThatThrownBy(() -> this.converter.convertToEntityAttribute(new byte[]{1, 42, 42}))
+                .isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> this.converter.convertToEntityAttribute(new byte[]{7}))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("Unknown text encoding 7");
+    }
+
+}
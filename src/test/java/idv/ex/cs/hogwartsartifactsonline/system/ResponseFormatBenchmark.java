@@ -0,0 +1,93 @@
+package idv.ex.cs.hogwartsartifactsonline.system;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import idv.ex.cs.hogwartsartifactsonline.artifact.dto.ArtifactDto;
+import idv.ex.cs.hogwartsartifactsonline.wizard.dto.WizardDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encodes and decodes a page of 100 artifacts with long descriptions, the typical service-to-service payload, as
+ * JSON, CBOR and Smile. The encoded size of each format is printed once per trial.
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=idv.ex.cs.hogwartsartifactsonline.system.ResponseFormatBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResponseFormatBenchmark {
+
+    @Param({"json", "cbor", "smile"})
+    public String format;
+
+    private ObjectMapper objectMapper;
+
+    private Result page;
+
+    private byte[] encoded;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        this.objectMapper = switch (this.format) {
+            case "cbor" -> Jackson2ObjectMapperBuilder.cbor().build();
+            case "smile" -> Jackson2ObjectMapperBuilder.smile().build();
+            default -> Jackson2ObjectMapperBuilder.json().build();
+        };
+        this.page = new Result(true, StatusCode.SUCCESS, "Find All Success", artifactDtos(), "opaque-cursor");
+        this.encoded = this.objectMapper.writeValueAsBytes(this.page);
+        System.out.printf("%n%s: %d bytes%n", this.format, this.encoded.length);
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        return this.objectMapper.writeValueAsBytes(this.page);
+    }
+
+    @Benchmark
+    public JsonNode decode() throws IOException {
+        return this.objectMapper.readTree(this.encoded);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(ResponseFormatBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+
+    private static List<ArtifactDto> artifactDtos() {
+        WizardDto owner = new WizardDto(1, "Albus Dumbledore", 100);
+        String description = "A Deluminator is a device invented by Albus Dumbledore that resembles a cigarette lighter. "
+                + "It is used to remove or absorb (as well as return) the light from any light source to provide cover to the user. ";
+        List<ArtifactDto> artifactDtos = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            artifactDtos.add(new ArtifactDto(Long.toString(1250808601744904191L + i), "Artifact " + i,
+                    description.repeat(10), "ImageUrl", owner));
+        }
+        return artifactDtos;
+    }
+
+}
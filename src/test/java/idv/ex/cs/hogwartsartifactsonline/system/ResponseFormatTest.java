@@ -0,0 +1,45 @@
+package idv.ex.cs.hogwartsartifactsonline.system;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import idv.ex.cs.hogwartsartifactsonline.artifact.dto.ArtifactDto;
+import idv.ex.cs.hogwartsartifactsonline.wizard.dto.WizardDto;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that CBOR and Smile carry the same page as JSON in fewer bytes. Their speed is measured by
+ * ResponseFormatBenchmark.
+ */
+class ResponseFormatTest {
+
+    @Test
+    void testBinaryFormatsRoundTripSmallerThanJson() throws Exception {
+        //Given
+        WizardDto owner = new WizardDto(1, "Albus Dumbledore", 2);
+        String description = "A Deluminator is a device invented by Albus Dumbledore that resembles a cigarette lighter. ";
+        Result page = new Result(true, StatusCode.SUCCESS, "Find All Success", List.of(
+                new ArtifactDto("1250808601744904191", "Deluminator", description, "ImageUrl", owner),
+                new ArtifactDto("1250808601744904192", "Invisibility Cloak", description, "ImageUrl", null)), "opaque-cursor");
+        ObjectMapper json = Jackson2ObjectMapperBuilder.json().build();
+        ObjectMapper cbor = Jackson2ObjectMapperBuilder.cbor().build();
+        ObjectMapper smile = Jackson2ObjectMapperBuilder.smile().build();
+
+        //When
+        byte[] jsonBytes = json.writeValueAsBytes(page);
+        byte[] cborBytes = cbor.writeValueAsBytes(page);
+        byte[] smileBytes = smile.writeValueAsBytes(page);
+
+        //Then
+        JsonNode expected = json.readTree(jsonBytes);
+        assertThat(cbor.readTree(cborBytes)).isEqualTo(expected);
+        assertThat(smile.readTree(smileBytes)).isEqualTo(expected);
+        assertThat(cborBytes.length).isLessThan(jsonBytes.length);
+        assertThat(smileBytes.length).isLessThan(jsonBytes.length);
+    }
+
+}
@@ -0,0 +1,62 @@
+package idv.ex.cs.hogwartsartifactsonline.system;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class WriteCounterTest {
+
+    @Autowired
+    WriteCounter writeCounter;
+
+    @Autowired
+    WriteCountRepository writeCountRepository;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        this.transactionTemplate = new TransactionTemplate(this.transactionManager);
+    }
+
+    @Test
+    void testEtagChangesAfterWriteOfAnotherNode() {
+        //Given
+        String etag = this.writeCounter.etag();
+
+        //When another node bumps the shared counter
+        this.transactionTemplate.executeWithoutResult(status -> this.writeCountRepository.increment());
+
+        //Then
+        assertThat(this.writeCounter.etag()).isNotEqualTo(etag);
+    }
+
+    @Test
+    void testIncrementCountsOncePerCommittedTransaction() {
+        //Given
+        long writes = this.writeCountRepository.findWrites();
+
+        //When
+        this.transactionTemplate.executeWithoutResult(status -> {
+            this.writeCounter.increment();
+            this.writeCounter.increment();
+        });
+        this.transactionTemplate.executeWithoutResult(status -> {
+            this.writeCounter.increment();
+            status.setRollbackOnly();
+        });
+
+        //Then
+        assertThat(this.writeCountRepository.findWrites()).isEqualTo(writes + 1);
+    }
+
+}
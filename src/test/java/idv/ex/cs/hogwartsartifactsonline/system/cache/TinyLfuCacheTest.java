@@ -0,0 +1,129 @@
+package idv.ex.cs.hogwartsartifactsonline.system.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TinyLfuCacheTest {
+
+    TinyLfuCache<Integer, String> cache;
+
+    List<Integer> removedKeys;
+
+    @BeforeEach
+    void setUp() {
+        this.removedKeys = new ArrayList<>();
+        // Room for 100 entries of weight 10.
+        this.cache = new TinyLfuCache<>(1000, 100, value -> 10, new TinyLfuCache.Listener<>() {
+            @Override
+            public void onRemoval(Integer key, String value) {
+                removedKeys.add(key);
+            }
+        });
+    }
+
+    @Test
+    void testGetLoadsOnceThenHits() {
+        //Given
+        AtomicInteger loads = new AtomicInteger();
+
+        //When
+        String first = this.cache.get(1, key -> "v" + key + "-" + loads.incrementAndGet());
+        String second = this.cache.get(1, key -> "v" + key + "-" + loads.incrementAndGet());
+
+        //Then
+        assertThat(first).isEqualTo("v1-1");
+        assertThat(second).isEqualTo("v1-1");
+        assertThat(this.cache.stats().hits()).isEqualTo(1);
+        assertThat(this.cache.stats().misses()).isEqualTo(1);
+    }
+
+    @Test
+    void testWeightNeverExceedsMaximum() {
+        //When
+        for (int i = 0; i < 1000; i++) {
+            this.cache.put(i, "v" + i);
+        }
+
+        //Then
+        CacheStats stats = this.cache.stats();
+        assertThat(stats.weight()).isLessThanOrEqualTo(1000);
+        assertThat(stats.entries()).isEqualTo(100);
+        assertThat(stats.evictions()).isEqualTo(900);
+        assertThat(this.removedKeys).hasSize(900);
+    }
+
+    @Test
+    void testFrequentlyUsedEntriesSurviveAScan() {
+        //Given
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < 50; i++) {
+                this.cache.get(i, key -> "hot" + key);
+            }
+        }
+
+        //When
+        for (int i = 1000; i < 3000; i++) {
+            this.cache.get(i, key -> "cold" + key);
+        }
+
+        //Then
+        int hotEntriesLeft = 0;
+        for (int i = 0; i < 50; i++) {
+            if (this.cache.getIfPresent(i) != null) {
+                hotEntriesLeft++;
+            }
+        }
+        assertThat(hotEntriesLeft).isGreaterThanOrEqualTo(45);
+    }
+
+    @Test
+    void testInvalidate() {
+        //Given
+        this.cache.put(1, "v1");
+        this.cache.put(2, "v2");
+
+        //When
+        this.cache.invalidate(1);
+        this.cache.invalidateAll(List.of(2, 3));
+
+        //Then
+        assertThat(this.cache.getIfPresent(1)).isNull();
+        assertThat(this.cache.getIfPresent(2)).isNull();
+        assertThat(this.cache.stats().invalidations()).isEqualTo(2);
+        assertThat(this.removedKeys).containsExactly(1, 2);
+    }
+
+    @Test
+    void testLoadRacingAnInvalidationIsNotCached() {
+        //When
+        String value = this.cache.get(1, key -> {
+            this.cache.invalidate(key);
+            return "stale";
+        });
+
+        //Then
+        assertThat(value).isEqualTo("stale");
+        assertThat(this.cache.getIfPresent(1)).isNull();
+    }
+
+    @Test
+    void testEntryHeavierThanTheCacheIsNotCached() {
+        //Given
+        TinyLfuCache<Integer, String> smallCache = new TinyLfuCache<>(5, 16, value -> 10, new TinyLfuCache.Listener<>() {
+        });
+
+        //When
+        smallCache.put(1, "v1");
+
+        //Then
+        assertThat(smallCache.getIfPresent(1)).isNull();
+        assertThat(smallCache.stats().weight()).isZero();
+    }
+
+}
@@ -0,0 +1,47 @@
+package idv.ex.cs.hogwartsartifactsonline.system.stats;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class Log2HistogramTest {
+
+    @Test
+    void testRecordIntoPowerOfTwoBuckets() {
+        //Given
+        Log2Histogram histogram = new Log2Histogram();
+
+        //When
+        histogram.record(0);
+        histogram.record(1);
+        histogram.record(5);
+        histogram.record(7);
+        histogram.record(4096);
+
+        //Then
+        assertThat(histogram.toStats())
+                .containsEntry("count", 5L)
+                .containsEntry("sum", 4109L)
+                .containsEntry("max", 4096L)
+                .containsEntry("<=0", 1L)
+                .containsEntry("<=1", 1L)
+                .containsEntry("<=7", 2L)
+                .containsEntry("<=8191", 1L)
+                .doesNotContainKey("<=3");
+    }
+
+    @Test
+    void testRecordLargestValue() {
+        //Given
+        Log2Histogram histogram = new Log2Histogram();
+
+        //When
+        histogram.record(Long.MAX_VALUE);
+
+        //Then
+        assertThat(histogram.toStats()).containsEntry("<=" + Long.MAX_VALUE, 1L);
+        assertThatThrownBy(() -> histogram.record(-1)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+}
@@ -0,0 +1,44 @@
+package idv.ex.cs.hogwartsartifactsonline.system.stats;
+
+import idv.ex.cs.hogwartsartifactsonline.artifact.utils.IdWorker;
+import idv.ex.cs.hogwartsartifactsonline.system.StatusCode;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class StatsControllerTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    IdWorker idWorker;
+
+    @Value("${api.endpoint.base-url}")
+    String baseUrl;
+
+    @Test
+    void testFindAllStatsIncludesIdWorker() throws Exception {
+        //Given
+        this.idWorker.nextIds(10);
+
+        //When Then
+        this.mockMvc.perform(get(this.baseUrl + "/stats").accept(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.flag").value(true))
+                .andExpect(jsonPath("$.code").value(StatusCode.SUCCESS))
+                .andExpect(jsonPath("$.data.idWorker.issuedIds").isNumber())
+                .andExpect(jsonPath("$.data.idWorker.idsPerMillisecond.count").isNumber())
+                .andExpect(jsonPath("$.data.idWorker.waitMicros.count").isNumber())
+                .andExpect(jsonPath("$.data.idWorker.refusals").value(0));
+    }
+
+}
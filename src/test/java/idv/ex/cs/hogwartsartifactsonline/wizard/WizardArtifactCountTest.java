@@ -0,0 +1,124 @@
+package idv.ex.cs.hogwartsartifactsonline.wizard;
+
+import idv.ex.cs.hogwartsartifactsonline.system.WriteCounter;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+
+/**
+ * Runs against the wizards of DBDataInitializer.
+ */
+@SpringBootTest(properties = {"spring.jpa.properties.hibernate.generate_statistics=true",
+        // No lease renewal and no scheduled repair runs in between, so the statement counts are exact.
+        "api.artifacts.ids.lease.ttl=1h", "api.artifacts.ids.lease.heartbeat=30m",
+        "api.wizards.artifact-count-repair.interval=0"})
+@AutoConfigureMockMvc
+class WizardArtifactCountTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    WizardRepository wizardRepository;
+
+    @Autowired
+    ArtifactCountRepairJob artifactCountRepairJob;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    WriteCounter writeCounter;
+
+    @Value("${api.endpoint.base-url}")
+    String baseUrl;
+
+    Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        this.statistics = this.entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        this.statistics.clear();
+    }
+
+    @Test
+    void testFindWizardByIdDoesNotLoadArtifacts() throws Exception {
+        //When
+        this.mockMvc.perform(get(this.baseUrl + "/wizards/1").accept(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.data.name").value("Albus Dumbledore"))
+                .andExpect(jsonPath("$.data.numberOfArtifacts").value(2));
+
+        //Then
+        assertThat(this.statistics.getCollectionFetchCount()).isZero();
+        assertThat(this.statistics.getCollectionLoadCount()).isZero();
+    }
+
+    @Test
+    void testRepairReconcilesWrongCount() {
+        //Given
+        Wizard wizard = this.wizardRepository.findById(2).orElseThrow();
+        new TransactionTemplate(this.transactionManager).execute(status -> this.wizardRepository.adjustArtifactCount(2, 5));
+        String etag = this.writeCounter.etag();
+
+        //When
+        assertThat(this.artifactCountRepairJob.repair()).containsExactly(2);
+
+        //Then
+        Wizard repaired = this.wizardRepository.findById(2).orElseThrow();
+        assertThat(repaired.getNumberOfArtifacts()).isEqualTo(2);
+        assertThat(repaired.getVersion()).isGreaterThan(wizard.getVersion());
+        String repairedEtag = this.writeCounter.etag();
+        assertThat(repairedEtag).isNotEqualTo(etag);
+        assertThat(this.artifactCountRepairJob.repair()).isEmpty();
+        assertThat(this.writeCounter.etag()).isEqualTo(repairedEtag);
+    }
+
+    @Test
+    void testBulkAssignmentsKeepCountsRight() throws Exception {
+        //Given
+        Long versionBefore = this.wizardRepository.findVersionById(2).orElseThrow();
+        this.statistics.clear();
+
+        //When Harry Potter's artifacts go to Neville Longbottom and back
+        this.mockMvc.perform(put(this.baseUrl + "/wizards/3/artifacts").param("from", "2").accept(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.data").value(2));
+        long statementsForMove = this.statistics.getPrepareStatementCount();
+        long entitiesLoadedForMove = this.statistics.getEntityLoadCount();
+        assertThat(this.wizardRepository.findById(2).orElseThrow().getNumberOfArtifacts()).isZero();
+        assertThat(this.wizardRepository.findById(3).orElseThrow().getNumberOfArtifacts()).isEqualTo(3);
+        assertThat(this.artifactCountRepairJob.repair()).isEmpty();
+        this.mockMvc.perform(put(this.baseUrl + "/wizards/2/artifacts").contentType(MediaType.APPLICATION_JSON)
+                        .content("[\"1250808601744904192\", \"1250808601744904194\", \"1250808601744904194\", \"1250808601744904199\"]")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.data").value(2));
+
+        //Then
+        assertThat(this.wizardRepository.findById(2).orElseThrow().getNumberOfArtifacts()).isEqualTo(2);
+        assertThat(this.wizardRepository.findById(3).orElseThrow().getNumberOfArtifacts()).isEqualTo(1);
+        assertThat(this.wizardRepository.findVersionById(2).orElseThrow()).isGreaterThan(versionBefore);
+        assertThat(this.artifactCountRepairJob.repair()).isEmpty();
+        assertThat(entitiesLoadedForMove).isZero(); // Neither artifacts nor wizards were loaded
+        // Two existence checks, one read and one update for the chunk, the read finding no more, two counts, the
+        // write count
+        assertThat(statementsForMove).isEqualTo(8);
+    }
+
+}
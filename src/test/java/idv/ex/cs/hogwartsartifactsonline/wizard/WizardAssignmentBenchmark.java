@@ -0,0 +1,114 @@
+package idv.ex.cs.hogwartsartifactsonline.wizard;
+
+import idv.ex.cs.hogwartsartifactsonline.HogwartsArtifactOnlineApplication;
+import idv.ex.cs.hogwartsartifactsonline.artifact.Artifact;
+import idv.ex.cs.hogwartsartifactsonline.artifact.ArtifactRepository;
+import idv.ex.cs.hogwartsartifactsonline.artifact.ArtifactService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Limit;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of assigning one artifact back and forth between two wizards that own 1 or 100,000 artifacts each,
+ * against the in-memory database. Both sizes should take the same time, as the assignment touches neither
+ * wizard's artifacts. Every trial starts the application and fills the two wizards, which takes a while for the
+ * large ones.
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=idv.ex.cs.hogwartsartifactsonline.wizard.WizardAssignmentBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WizardAssignmentBenchmark {
+
+    @Param({"1", "100000"})
+    int artifactsPerWizard;
+
+    private ConfigurableApplicationContext context;
+
+    private WizardService wizardService;
+
+    private Integer firstWizardId;
+
+    private Integer secondWizardId;
+
+    private String movingArtifactId; // Starts with the first wizard and alternates between the two
+
+    private boolean toSecond = true;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.context = new SpringApplicationBuilder(HogwartsArtifactOnlineApplication.class)
+                .properties("spring.jpa.show-sql=false", "logging.level.root=WARN")
+                .run();
+        this.wizardService = this.context.getBean(WizardService.class);
+        ArtifactService artifactService = this.context.getBean(ArtifactService.class);
+        this.firstWizardId = createWizard("First", artifactService);
+        this.secondWizardId = createWizard("Second", artifactService);
+        this.movingArtifactId = this.context.getBean(ArtifactRepository.class).findIdsByOwnerId(this.firstWizardId, Limit.of(1)).get(0);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.context.close();
+    }
+
+    @Benchmark
+    public void assignArtifact() {
+        this.wizardService.assignArtifact(this.toSecond ? this.secondWizardId : this.firstWizardId, this.movingArtifactId);
+        this.toSecond = !this.toSecond;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(WizardAssignmentBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+
+    /**
+     * Creates a wizard and gives it artifactsPerWizard new artifacts with the bulk operations.
+     *
+     * @return the wizard's id
+     */
+    private Integer createWizard(String name, ArtifactService artifactService) {
+        Wizard wizard = new Wizard();
+        wizard.setName(name);
+        Integer wizardId = this.wizardService.save(wizard).getId();
+        List<Artifact> artifacts = new ArrayList<>(this.artifactsPerWizard);
+        for (int i = 0; i < this.artifactsPerWizard; i++) {
+            Artifact artifact = new Artifact();
+            artifact.setName(name + "'s artifact " + i);
+            artifact.setDescription("Artifact " + i + " of " + name + ".");
+            artifact.setImageUrl("ImageUrl");
+            artifacts.add(artifact);
+        }
+        artifactService.saveAll(artifacts);
+        this.wizardService.assignArtifacts(wizardId, artifacts.stream().map(Artifact::getId).toList());
+        return wizardId;
+    }
+
+}
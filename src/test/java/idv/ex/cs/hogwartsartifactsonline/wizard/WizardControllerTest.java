@@ -2,9 +2,12 @@ package idv.ex.cs.hogwartsartifactsonline.wizard;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import idv.ex.cs.hogwartsartifactsonline.artifact.Artifact;
+import idv.ex.cs.hogwartsartifactsonline.artifact.dto.ArtifactDto;
 import idv.ex.cs.hogwartsartifactsonline.system.StatusCode;
+import idv.ex.cs.hogwartsartifactsonline.system.exception.InvalidArgumentException;
 import idv.ex.cs.hogwartsartifactsonline.system.exception.ObjectNotFoundException;
 import idv.ex.cs.hogwartsartifactsonline.wizard.dto.WizardDto;
+import idv.ex.cs.hogwartsartifactsonline.wizard.dto.WizardWithArtifactsDto;
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -14,19 +17,32 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 
 @SpringBootTest
@@ -110,10 +126,12 @@ public class WizardControllerTest {
     @Test
     void testFindWizardByIdSuccess() throws Exception {
         //Given
+        given(this.wizardService.findVersionById(1)).willReturn(5L);
         given(this.wizardService.findById(1)).willReturn(this.wizards.get(0));
 
         //When Then
         this.mockMvc.perform(get(this.baseUrl + "/wizards/1").accept(MediaType.APPLICATION_JSON))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"5\""))
                 .andExpect(jsonPath("$.flag").value(true))
                 .andExpect(jsonPath("$.code").value(StatusCode.SUCCESS))
                 .andExpect(jsonPath("$.message").value("Find One Success"))
@@ -125,7 +143,7 @@ public class WizardControllerTest {
     @Test
     void testFindWizardByIdNotFound() throws Exception {
         //Given
-        given(this.wizardService.findById(9)).willThrow(new ObjectNotFoundException("wizard", 9));
+        given(this.wizardService.findVersionById(9)).willThrow(new ObjectNotFoundException("wizard", 9));
 
         //When Then
         this.mockMvc.perform(get(this.baseUrl + "/wizards/9").accept(MediaType.APPLICATION_JSON))
@@ -136,22 +154,85 @@ public class WizardControllerTest {
 
     }
 
+    @Test
+    void testFindWizardByIdNotModified() throws Exception {
+        //Given
+        given(this.wizardService.findVersionById(1)).willReturn(5L);
+
+        //When Then
+        this.mockMvc.perform(get(this.baseUrl + "/wizards/1").header(HttpHeaders.IF_NONE_MATCH, "\"5\"").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotModified());
+        verify(this.wizardService, never()).findById(1);
+    }
+
     @Test
     void testFindAllWizardsSuccess() throws Exception {
         //Given
-        given(this.wizardService.findAll()).willReturn(this.wizards);
+        List<WizardDto> wizardDtos = List.of(new WizardDto(1, "Albus Dumbledore", 2), new WizardDto(2, "Harry Potter", 2));
+        given(this.wizardService.findDtos(ScrollPosition.keyset(), 2)).willReturn(
+                Window.from(wizardDtos, index -> ScrollPosition.forward(Map.of("id", wizardDtos.get(index).id())), true));
 
         //When Then
-        this.mockMvc.perform(get(this.baseUrl + "/wizards").accept(MediaType.APPLICATION_JSON))
+        this.mockMvc.perform(get(this.baseUrl + "/wizards").param("size", "2").accept(MediaType.APPLICATION_JSON))
                 .andExpect(jsonPath("$.flag").value(true))
                 .andExpect(jsonPath("$.code").value(StatusCode.SUCCESS))
                 .andExpect(jsonPath("$.message").value("Find All Success"))
-                .andExpect(jsonPath("$.data").value(Matchers.hasSize(this.wizards.size())))
+                .andExpect(jsonPath("$.data").value(Matchers.hasSize(2)))
                 .andExpect(jsonPath("$.data[0].id").value(1))
                 .andExpect(jsonPath("$.data[0].name").value("Albus Dumbledore"))
+                .andExpect(jsonPath("$.data[0].numberOfArtifacts").value(2))
                 .andExpect(jsonPath("$.data[1].id").value(2))
-                .andExpect(jsonPath("$.data[1].name").value("Harry Potter"));
+                .andExpect(jsonPath("$.data[1].name").value("Harry Potter"))
+                .andExpect(jsonPath("$.next").isNotEmpty());
+
+    }
+
+    @Test
+    void testFindAllWizardsNextPage() throws Exception {
+        //Given
+        List<WizardDto> wizardDtos = List.of(new WizardDto(3, "Neville Longbottom", 1));
+        given(this.wizardService.findDtos(argThat(position -> !position.isInitial() && position.getKeys().get("id").equals(2)), eq(2)))
+                .willReturn(Window.from(wizardDtos, index -> ScrollPosition.forward(Map.of("id", 3)), false));
+
+        //When Then, the cursor is {"id":2}
+        this.mockMvc.perform(get(this.baseUrl + "/wizards").param("size", "2").param("cursor", "eyJpZCI6Mn0").accept(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.data").value(Matchers.hasSize(1)))
+                .andExpect(jsonPath("$.data[0].name").value("Neville Longbottom"))
+                .andExpect(jsonPath("$.next").doesNotExist());
+    }
+
+    @Test
+    void testFindAllWizardsWithArtifacts() throws Exception {
+        //Given
+        List<WizardWithArtifactsDto> wizardDtos = List.of(new WizardWithArtifactsDto(1, "Albus Dumbledore", 2, List.of(
+                new ArtifactDto("1250808601744904191", "Deluminator", "A Deluminator is a device", "ImageUrl", null),
+                new ArtifactDto("1250808601744904193", "Elder Wand", "The Elder Wand", "ImageUrl", null))));
+        given(this.wizardService.findDtosWithArtifacts(any(KeysetScrollPosition.class), eq(20)))
+                .willReturn(Window.from(wizardDtos, index -> ScrollPosition.forward(Map.of("id", 1)), false));
 
+        //When Then
+        this.mockMvc.perform(get(this.baseUrl + "/wizards").param("include", "artifacts").accept(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.flag").value(true))
+                .andExpect(jsonPath("$.data[0].numberOfArtifacts").value(2))
+                .andExpect(jsonPath("$.data[0].artifacts").value(Matchers.hasSize(2)))
+                .andExpect(jsonPath("$.data[0].artifacts[1].name").value("Elder Wand"))
+                .andExpect(jsonPath("$.data[0].artifacts[1].owner").isEmpty());
+        verify(this.wizardService, never()).findDtos(any(), anyInt());
+    }
+
+    @Test
+    void testFindAllWizardsWithInvalidArguments() throws Exception {
+        //When Then
+        this.mockMvc.perform(get(this.baseUrl + "/wizards").param("include", "owners").accept(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.flag").value(false))
+                .andExpect(jsonPath("$.code").value(StatusCode.INVALID_ARGUMENT))
+                .andExpect(jsonPath("$.message").value("include must be artifacts."));
+        this.mockMvc.perform(get(this.baseUrl + "/wizards").param("size", "0").accept(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.code").value(StatusCode.INVALID_ARGUMENT));
+        this.mockMvc.perform(get(this.baseUrl + "/wizards").param("cursor", "eyJpZCI6ImEifQ").accept(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.code").value(StatusCode.INVALID_ARGUMENT))
+                .andExpect(jsonPath("$.message").value("Provided cursor is invalid."));
+        verify(this.wizardService, never()).findDtos(any(), anyInt());
     }
 
     @Test
@@ -186,7 +267,7 @@ public class WizardControllerTest {
         String json = this.objectMapper.writeValueAsString(wizardDto);
         Wizard updatedWizard = this.wizards.get(1);
         updatedWizard.setName("Harry Potter-update");
-        given(this.wizardService.update(eq(2), Mockito.any(Wizard.class))).willReturn(updatedWizard);
+        given(this.wizardService.update(eq(2), Mockito.any(Wizard.class), isNull())).willReturn(updatedWizard);
 
         //When Then
         this.mockMvc.perform(put(this.baseUrl + "/wizards/2").accept(MediaType.APPLICATION_JSON).content(json).contentType(MediaType.APPLICATION_JSON))
@@ -205,7 +286,7 @@ public class WizardControllerTest {
                 "Harry Potter-update",
                 null);
         String json = this.objectMapper.writeValueAsString(wizardDto);
-        given(this.wizardService.update(eq(9), Mockito.any(Wizard.class))).willThrow(new ObjectNotFoundException("wizard", 9));
+        given(this.wizardService.update(eq(9), Mockito.any(Wizard.class), isNull())).willThrow(new ObjectNotFoundException("wizard", 9));
 
         //When Then
         this.mockMvc.perform(put(this.baseUrl + "/wizards/9").accept(MediaType.APPLICATION_JSON).content(json).contentType(MediaType.APPLICATION_JSON))
@@ -281,4 +362,52 @@ public class WizardControllerTest {
                 .andExpect(jsonPath("$.message").value("Could not find artifact with Id 1250808601744904199 :("))
                 .andExpect(jsonPath("$.data").isEmpty());
     }
+
+    @Test
+    void testAssignArtifactsSuccess() throws Exception {
+        //Given
+        given(this.wizardService.assignArtifacts(2, List.of("1250808601744904191", "1250808601744904193"))).willReturn(2);
+
+        //When Then
+        this.mockMvc.perform(put(this.baseUrl + "/wizards/2/artifacts").contentType(MediaType.APPLICATION_JSON)
+                        .content("[\"1250808601744904191\", \"1250808601744904193\"]").accept(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.flag").value(true))
+                .andExpect(jsonPath("$.code").value(StatusCode.SUCCESS))
+                .andExpect(jsonPath("$.message").value("Artifact Assignment Success"))
+                .andExpect(jsonPath("$.data").value(2));
+    }
+
+    @Test
+    void testAssignArtifactsWithEmptyList() throws Exception {
+        //When Then
+        this.mockMvc.perform(put(this.baseUrl + "/wizards/2/artifacts").contentType(MediaType.APPLICATION_JSON).content("[]").accept(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.flag").value(false))
+                .andExpect(jsonPath("$.code").value(StatusCode.INVALID_ARGUMENT))
+                .andExpect(jsonPath("$.message").value("Between 1 and 100000 artifact ids are required."));
+        verify(this.wizardService, never()).assignArtifacts(anyInt(), any());
+    }
+
+    @Test
+    void testMoveArtifactsSuccess() throws Exception {
+        //Given
+        given(this.wizardService.moveArtifacts(2, 3)).willReturn(2);
+
+        //When Then
+        this.mockMvc.perform(put(this.baseUrl + "/wizards/3/artifacts").param("from", "2").accept(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.flag").value(true))
+                .andExpect(jsonPath("$.message").value("Artifact Assignment Success"))
+                .andExpect(jsonPath("$.data").value(2));
+    }
+
+    @Test
+    void testMoveArtifactsToTheSameWizard() throws Exception {
+        //Given
+        given(this.wizardService.moveArtifacts(2, 2)).willThrow(new InvalidArgumentException("A wizard's artifacts cannot be moved to the same wizard."));
+
+        //When Then
+        this.mockMvc.perform(put(this.baseUrl + "/wizards/2/artifacts").param("from", "2").accept(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.flag").value(false))
+                .andExpect(jsonPath("$.code").value(StatusCode.INVALID_ARGUMENT));
+    }
+
 }
@@ -1,8 +1,18 @@
 package idv.ex.cs.hogwartsartifactsonline.wizard;
 
 import idv.ex.cs.hogwartsartifactsonline.artifact.Artifact;
+import idv.ex.cs.hogwartsartifactsonline.artifact.ArtifactDtoCache;
+import idv.ex.cs.hogwartsartifactsonline.artifact.ArtifactOwner;
 import idv.ex.cs.hogwartsartifactsonline.artifact.ArtifactRepository;
+import idv.ex.cs.hogwartsartifactsonline.artifact.change.ArtifactChangeFeed;
+import idv.ex.cs.hogwartsartifactsonline.artifact.change.ArtifactChangeType;
+import idv.ex.cs.hogwartsartifactsonline.artifact.dto.ArtifactDto;
+import idv.ex.cs.hogwartsartifactsonline.system.WriteCounter;
+import idv.ex.cs.hogwartsartifactsonline.system.exception.InvalidArgumentException;
 import idv.ex.cs.hogwartsartifactsonline.system.exception.ObjectNotFoundException;
+import idv.ex.cs.hogwartsartifactsonline.system.exception.PreconditionFailedException;
+import idv.ex.cs.hogwartsartifactsonline.wizard.dto.WizardDto;
+import idv.ex.cs.hogwartsartifactsonline.wizard.dto.WizardWithArtifactsDto;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -10,9 +20,14 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -31,6 +46,15 @@ public class WizardServiceTest {
     @Mock
     ArtifactRepository artifactRepository;
 
+    @Mock
+    ArtifactDtoCache artifactDtoCache;
+
+    @Mock
+    WriteCounter writeCounter;
+
+    @Mock
+    ArtifactChangeFeed artifactChangeFeed;
+
     @InjectMocks
     WizardService wizardService;
 
@@ -124,6 +148,57 @@ public class WizardServiceTest {
 
     }
 
+    @Test
+    void testFindDtosFirstPage() {
+        //Given
+        given(this.wizardRepository.findDtosAfter(0, Limit.of(3))).willReturn(List.of(
+                new WizardDto(1, "Albus Dumbledore", 2), new WizardDto(2, "Harry Potter", 2), new WizardDto(3, "Neville Longbottom", 1)));
+
+        //When
+        Window<WizardDto> page = this.wizardService.findDtos(ScrollPosition.keyset(), 2);
+
+        //Then
+        assertThat(page.getContent()).extracting(WizardDto::id).containsExactly(1, 2);
+        assertThat(page.hasNext()).isTrue();
+        assertThat(page.positionAt(1)).isEqualTo(ScrollPosition.forward(Map.of("id", 2)));
+    }
+
+    @Test
+    void testFindDtosLastPage() {
+        //Given
+        given(this.wizardRepository.findDtosAfter(2, Limit.of(3))).willReturn(List.of(new WizardDto(3, "Neville Longbottom", 1)));
+
+        //When
+        Window<WizardDto> page = this.wizardService.findDtos(ScrollPosition.forward(Map.of("id", 2)), 2);
+
+        //Then
+        assertThat(page.getContent()).extracting(WizardDto::name).containsExactly("Neville Longbottom");
+        assertThat(page.hasNext()).isFalse();
+    }
+
+    @Test
+    void testFindDtosWithArtifactsReadsAllArtifactsOfThePageAtOnce() {
+        //Given
+        given(this.wizardRepository.findDtosAfter(0, Limit.of(4))).willReturn(List.of(
+                new WizardDto(1, "Albus Dumbledore", 2), new WizardDto(2, "Harry Potter", 0), new WizardDto(3, "Neville Longbottom", 1)));
+        given(this.artifactRepository.findSummaryDtosByOwnerIdIn(List.of(1, 2, 3))).willReturn(List.of(
+                new ArtifactDto("1250808601744904191", "Deluminator", "A Deluminator", "ImageUrl", 1, "Albus Dumbledore", 2),
+                new ArtifactDto("1250808601744904193", "Elder Wand", "The Elder Wand", "ImageUrl", 1, "Albus Dumbledore", 2),
+                new ArtifactDto("1250808601744904195", "The Sword Of Gryffindor", "A goblin-made sword", "ImageUrl", 3, "Neville Longbottom", 1)));
+
+        //When
+        Window<WizardWithArtifactsDto> page = this.wizardService.findDtosWithArtifacts(ScrollPosition.keyset(), 3);
+
+        //Then
+        List<WizardWithArtifactsDto> wizardDtos = page.getContent();
+        assertThat(wizardDtos).hasSize(3);
+        assertThat(wizardDtos.get(0).artifacts()).extracting(ArtifactDto::name).containsExactly("Deluminator", "Elder Wand");
+        assertThat(wizardDtos.get(0).artifacts()).allSatisfy(artifactDto -> assertThat(artifactDto.owner()).isNull());
+        assertThat(wizardDtos.get(1).artifacts()).isEmpty();
+        assertThat(wizardDtos.get(2).artifacts()).extracting(ArtifactDto::id).containsExactly("1250808601744904195");
+        verify(this.artifactRepository, times(1)).findSummaryDtosByOwnerIdIn(List.of(1, 2, 3));
+    }
+
     @Test
     void testSaveSuccess() {
         //Given
@@ -162,6 +237,29 @@ public class WizardServiceTest {
         assertThat(updatedWizard.getName()).isEqualTo(update.getName());
         verify(this.wizardRepository, times(1)).findById(2);
         verify(this.wizardRepository, times(1)).save(oldWizard);
+        verify(this.writeCounter, times(1)).increment();
+    }
+
+    @Test
+    void testUpdateWithStaleVersion() {
+        //Given
+        Wizard oldWizard = new Wizard();
+        oldWizard.setId(2);
+        oldWizard.setName("Harry Potter");
+        oldWizard.setVersion(6L);
+
+        Wizard update = new Wizard();
+        update.setName("Harry Potter Updated");
+        given(this.wizardRepository.findById(2)).willReturn(Optional.of(oldWizard));
+
+        //When
+        assertThrows(PreconditionFailedException.class, () -> {
+            this.wizardService.update(2, update, 5L);
+        });
+
+        //Then
+        assertThat(oldWizard.getName()).isEqualTo("Harry Potter");
+        verify(this.wizardRepository, never()).save(oldWizard);
     }
 
     @Test
@@ -185,24 +283,26 @@ public class WizardServiceTest {
     @Test
     void testDeleteSuccess() {
         //Given
-        Wizard deletedWizard = new Wizard();
-        deletedWizard.setId(2);
-        deletedWizard.setName("Harry Potter");
-        given(this.wizardRepository.findById(2)).willReturn(Optional.of(deletedWizard));
-        doNothing().when(this.wizardRepository).deleteById(2);
+        given(this.artifactRepository.unassignAll(2)).willReturn(2);
+        given(this.wizardRepository.deleteByIdInBulk(2)).willReturn(1);
 
         //When
         this.wizardService.delete(2);
 
         //Then
-        verify(this.wizardRepository, times(1)).deleteById(2);
+        verify(this.artifactRepository, times(1)).unassignAll(2);
+        verify(this.wizardRepository, times(1)).deleteByIdInBulk(2);
+        verify(this.wizardRepository, never()).findById(2);
+        verify(this.artifactDtoCache, times(1)).invalidateOwner(2);
+        verify(this.artifactChangeFeed, times(1)).publishAfterCommit(ArtifactChangeType.UNASSIGNED, null, 2);
+        verify(this.artifactRepository, never()).findIdsByOwnerId(anyInt(), any(Limit.class));
 
     }
 
     @Test
     void testDeleteNotFound() {
         //Given
-        given(this.wizardRepository.findById(2)).willReturn(Optional.empty());
+        given(this.wizardRepository.deleteByIdInBulk(2)).willReturn(0);
 
         //When
         assertThrows(ObjectNotFoundException.class, () -> {
@@ -210,47 +310,75 @@ public class WizardServiceTest {
         });
 
         //Then
-        verify(this.wizardRepository, times(1)).findById(2);
+        verify(this.wizardRepository, times(1)).deleteByIdInBulk(2);
+        verify(this.writeCounter, never()).increment();
+        verify(this.artifactChangeFeed, never()).publishAfterCommit(any(), any(), any());
     }
 
     @Test
     void testAssignArtifactSuccess() {
         //Given
-        Artifact a = new Artifact();
-        a.setId("1250808601744904192");
-        a.setName("Invisibility Cloak");
-        a.setDescription("An invisibility cloak is used to make the wearer invisible.");
-        a.setImageUrl("ImageUrl");
+        Wizard w3 = this.wizards.get(2);
+        given(this.artifactRepository.findOwnerById("1250808601744904192")).willReturn(Optional.of(new ArtifactOwner("1250808601744904192", 2)));
+        given(this.wizardRepository.existsById(3)).willReturn(true);
+        given(this.wizardRepository.getReferenceById(3)).willReturn(w3);
+        given(this.artifactRepository.reassign(List.of("1250808601744904192"), 2, w3)).willReturn(1);
 
-        Wizard w2 = new Wizard();
-        w2.setId(2);
-        w2.setName("Harry Potter");
-        w2.addArtifact(a);
+        //When
+        this.wizardService.assignArtifact(3, "1250808601744904192");
 
-        Wizard w3 = new Wizard();
-        w3.setId(3);
-        w3.setName("Neville Longbottom");
+        //Then
+        verify(this.artifactDtoCache, times(1)).invalidate("1250808601744904192");
+        verify(this.artifactDtoCache, times(1)).invalidateOwner(2);
+        verify(this.artifactDtoCache, times(1)).invalidateOwner(3);
+        verify(this.artifactChangeFeed, times(1)).publishAfterCommit(ArtifactChangeType.ASSIGNED, "1250808601744904192", 3);
+        verify(this.wizardRepository, times(1)).adjustArtifactCountAndVersion(2, -1);
+        verify(this.wizardRepository, times(1)).adjustArtifactCountAndVersion(3, 1);
+        // Neither wizard is loaded, so neither wizard's artifacts are.
+        verify(this.wizardRepository, never()).findById(anyInt());
+        assertThat(w3.getArtifacts()).isEmpty();
 
-        given(this.artifactRepository.findById("1250808601744904192")).willReturn(Optional.of(a));
-        given(this.wizardRepository.findById(3)).willReturn(Optional.of(w3));
+    }
+
+    @Test
+    void testAssignUnownedArtifactSuccess() {
+        //Given
+        Wizard w3 = this.wizards.get(2);
+        given(this.artifactRepository.findOwnerById("1250808601744904196")).willReturn(Optional.of(new ArtifactOwner("1250808601744904196", null)));
+        given(this.wizardRepository.existsById(3)).willReturn(true);
+        given(this.wizardRepository.getReferenceById(3)).willReturn(w3);
+        given(this.artifactRepository.reassign(List.of("1250808601744904196"), null, w3)).willReturn(1);
 
         //When
-        this.wizardService.assignArtifact(3, "1250808601744904192");
+        this.wizardService.assignArtifact(3, "1250808601744904196");
 
         //Then
-        assertThat(a.getOwner().getId()).isEqualTo(3);
-        assertThat(w3.getArtifacts()).contains(a);
+        verify(this.wizardRepository, times(1)).adjustArtifactCountAndVersion(3, 1);
+        verify(this.wizardRepository, times(1)).adjustArtifactCountAndVersion(anyInt(), anyInt());
+    }
+
+    @Test
+    void testAssignArtifactErrorWhenOwnerChangedConcurrently() {
+        //Given
+        Wizard w3 = this.wizards.get(2);
+        given(this.artifactRepository.findOwnerById("1250808601744904192")).willReturn(Optional.of(new ArtifactOwner("1250808601744904192", 2)));
+        given(this.wizardRepository.existsById(3)).willReturn(true);
+        given(this.wizardRepository.getReferenceById(3)).willReturn(w3);
+        given(this.artifactRepository.reassign(List.of("1250808601744904192"), 2, w3)).willReturn(0);
+
+        //When
+        Throwable thrown = catchThrowable(() -> this.wizardService.assignArtifact(3, "1250808601744904192"));
 
+        //Then
+        assertThat(thrown).isInstanceOf(ObjectOptimisticLockingFailureException.class);
+        verify(this.wizardRepository, never()).adjustArtifactCountAndVersion(anyInt(), anyInt());
+        verify(this.writeCounter, never()).increment();
     }
 
     @Test
     void testAssignArtifactErrorWithNonExistentArtifactId() {
         //Given
-        Wizard w3 = new Wizard();
-        w3.setId(3);
-        w3.setName("Neville Longbottom");
-
-        given(this.artifactRepository.findById("1250808601744904192")).willReturn(Optional.empty());
+        given(this.artifactRepository.findOwnerById("1250808601744904192")).willReturn(Optional.empty());
 
         //When
         Throwable thrown = assertThrows(ObjectNotFoundException.class, () -> {
@@ -267,19 +395,8 @@ public class WizardServiceTest {
     @Test
     void testAssignArtifactErrorWithNonExistentWizardId() {
         //Given
-        Artifact a = new Artifact();
-        a.setId("1250808601744904192");
-        a.setName("Invisibility Cloak");
-        a.setDescription("An invisibility cloak is used to make the wearer invisible.");
-        a.setImageUrl("ImageUrl");
-
-        Wizard w2 = new Wizard();
-        w2.setId(2);
-        w2.setName("Harry Potter");
-        w2.addArtifact(a);
-
-        given(this.artifactRepository.findById("1250808601744904192")).willReturn(Optional.of(a));
-        given(this.wizardRepository.findById(3)).willReturn(Optional.empty());
+        given(this.artifactRepository.findOwnerById("1250808601744904192")).willReturn(Optional.of(new ArtifactOwner("1250808601744904192", 2)));
+        given(this.wizardRepository.existsById(3)).willReturn(false);
 
         //When
         Throwable thrown = assertThrows(ObjectNotFoundException.class, () -> {
@@ -290,8 +407,137 @@ public class WizardServiceTest {
         assertThat(thrown)
                 .isInstanceOf(ObjectNotFoundException.class)
                 .hasMessage("Could not find wizard with Id 3 :(");
-        assertThat(a.getOwner().getId()).isEqualTo(2);
+        verify(this.artifactRepository, never()).reassign(anyList(), any(), any());
+
+    }
+
+    @Test
+    void testAssignArtifactsSuccess() {
+        //Given
+        Wizard w3 = this.wizards.get(2);
+        List<String> ids = List.of("1250808601744904191", "1250808601744904193", "1250808601744904195", "1250808601744904196", "1250808601744904199");
+        given(this.wizardRepository.existsById(3)).willReturn(true);
+        given(this.wizardRepository.getReferenceById(3)).willReturn(w3);
+        given(this.artifactRepository.findOwnersByIdIn(ids)).willReturn(List.of(
+                new ArtifactOwner("1250808601744904191", 1), new ArtifactOwner("1250808601744904193", 1),
+                new ArtifactOwner("1250808601744904195", 3), new ArtifactOwner("1250808601744904196", null)));
+        given(this.artifactRepository.reassign(List.of("1250808601744904191", "1250808601744904193"), 1, w3)).willReturn(2);
+        given(this.artifactRepository.reassign(List.of("1250808601744904196"), null, w3)).willReturn(1);
+
+        //When
+        int assigned = this.wizardService.assignArtifacts(3, ids);
+
+        //Then
+        assertThat(assigned).isEqualTo(3);
+        verify(this.wizardRepository, times(1)).adjustArtifactCountAndVersion(1, -2);
+        verify(this.wizardRepository, times(1)).adjustArtifactCountAndVersion(3, 3);
+        verify(this.artifactChangeFeed, times(1)).publishAfterCommit(ArtifactChangeType.ASSIGNED, "1250808601744904196", 3);
+        verify(this.artifactChangeFeed, never()).publishAfterCommit(ArtifactChangeType.ASSIGNED, "1250808601744904195", 3);
+        verify(this.artifactDtoCache, times(1)).invalidate("1250808601744904191");
+        verify(this.artifactDtoCache, times(1)).invalidateOwner(1);
+        verify(this.artifactDtoCache, times(1)).invalidateOwner(3);
+        verify(this.writeCounter, times(1)).increment();
+    }
+
+    @Test
+    void testAssignArtifactsCountsOnlyWhatMovedUnderConcurrentAssignment() {
+        //Given
+        Wizard w3 = this.wizards.get(2);
+        List<String> ids = List.of("1250808601744904191", "1250808601744904193");
+        given(this.wizardRepository.existsById(3)).willReturn(true);
+        given(this.wizardRepository.getReferenceById(3)).willReturn(w3);
+        given(this.artifactRepository.findOwnersByIdIn(ids)).willReturn(List.of(
+                new ArtifactOwner("1250808601744904191", 1), new ArtifactOwner("1250808601744904193", 1)));
+        given(this.artifactRepository.reassign(ids, 1, w3)).willReturn(1);
+        given(this.artifactRepository.findIdsByIdInAndOwnerId(ids, 3)).willReturn(List.of("1250808601744904193"));
+
+        //When
+        int assigned = this.wizardService.assignArtifacts(3, ids);
+
+        //Then
+        assertThat(assigned).isEqualTo(1);
+        verify(this.wizardRepository, times(1)).adjustArtifactCountAndVersion(1, -1);
+        verify(this.wizardRepository, times(1)).adjustArtifactCountAndVersion(3, 1);
+        verify(this.artifactChangeFeed, times(1)).publishAfterCommit(ArtifactChangeType.ASSIGNED, "1250808601744904193", 3);
+        verify(this.artifactChangeFeed, never()).publishAfterCommit(ArtifactChangeType.ASSIGNED, "1250808601744904191", 3);
+    }
 
+    @Test
+    void testAssignArtifactsErrorWithNonExistentWizardId() {
+        //Given
+        given(this.wizardRepository.existsById(9)).willReturn(false);
+
+        //When
+        Throwable thrown = catchThrowable(() -> this.wizardService.assignArtifacts(9, List.of("1250808601744904191")));
+
+        //Then
+        assertThat(thrown)
+                .isInstanceOf(ObjectNotFoundException.class)
+                .hasMessage("Could not find wizard with Id 9 :(");
+        verify(this.artifactRepository, never()).findOwnersByIdIn(anyList());
+    }
+
+    @Test
+    void testMoveArtifactsSuccess() {
+        //Given
+        Wizard w3 = this.wizards.get(2);
+        List<String> ids = List.of("1250808601744904192", "1250808601744904194");
+        given(this.wizardRepository.existsById(2)).willReturn(true);
+        given(this.wizardRepository.existsById(3)).willReturn(true);
+        given(this.wizardRepository.getReferenceById(3)).willReturn(w3);
+        given(this.artifactRepository.findIdsByOwnerId(eq(2), any(Limit.class))).willReturn(ids).willReturn(List.of());
+        given(this.artifactRepository.reassign(ids, 2, w3)).willReturn(2);
+
+        //When
+        int moved = this.wizardService.moveArtifacts(2, 3);
+
+        //Then
+        assertThat(moved).isEqualTo(2);
+        verify(this.wizardRepository, times(1)).adjustArtifactCountAndVersion(2, -2);
+        verify(this.wizardRepository, times(1)).adjustArtifactCountAndVersion(3, 2);
+        verify(this.artifactChangeFeed, times(1)).publishAfterCommit(ArtifactChangeType.ASSIGNED, "1250808601744904194", 3);
+        verify(this.artifactDtoCache, times(1)).invalidateOwner(2);
+    }
+
+    @Test
+    void testMoveManyArtifactsPublishesOneBulkChange() {
+        //Given
+        Wizard w3 = this.wizards.get(2);
+        List<String> ids = new ArrayList<>();
+        for (long id = 1250808601744904200L; id < 1250808601744904700L; id++) {
+            ids.add(String.valueOf(id));
+        }
+        given(this.wizardRepository.existsById(2)).willReturn(true);
+        given(this.wizardRepository.existsById(3)).willReturn(true);
+        given(this.wizardRepository.getReferenceById(3)).willReturn(w3);
+        given(this.artifactRepository.findIdsByOwnerId(eq(2), any(Limit.class))).willReturn(ids).willReturn(List.of());
+        given(this.artifactRepository.reassign(ids, 2, w3)).willReturn(500);
+
+        //When
+        int moved = this.wizardService.moveArtifacts(2, 3);
+
+        //Then
+        assertThat(moved).isEqualTo(500);
+        verify(this.wizardRepository, times(1)).adjustArtifactCountAndVersion(2, -500);
+        verify(this.wizardRepository, times(1)).adjustArtifactCountAndVersion(3, 500);
+        verify(this.artifactChangeFeed, times(1)).publishAfterCommit(ArtifactChangeType.BULK_ASSIGNED, null, 3);
+        verify(this.artifactChangeFeed, times(1)).publishAfterCommit(any(), any(), any());
+        verify(this.artifactDtoCache, never()).invalidate(anyString());
+        verify(this.artifactDtoCache, never()).invalidateAll();
+        verify(this.artifactDtoCache, times(1)).invalidateOwner(2);
+        verify(this.artifactDtoCache, times(1)).invalidateOwner(3);
+    }
+
+    @Test
+    void testMoveArtifactsToTheSameWizard() {
+        //When
+        Throwable thrown = catchThrowable(() -> this.wizardService.moveArtifacts(2, 2));
+
+        //Then
+        assertThat(thrown)
+                .isInstanceOf(InvalidArgumentException.class)
+                .hasMessage("A wizard's artifacts cannot be moved to the same wizard.");
+        verify(this.artifactRepository, never()).findIdsByOwnerId(anyInt(), any(Limit.class));
     }
 
 }
@@ -0,0 +1,151 @@
+package idv.ex.cs.hogwartsartifactsonline.wizard;
+
+import idv.ex.cs.hogwartsartifactsonline.artifact.Artifact;
+import idv.ex.cs.hogwartsartifactsonline.artifact.ArtifactRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hamcrest.Matchers;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+
+/**
+ * Runs against the wizards of DBDataInitializer and counts the SQL statements of GET /wizards and DELETE
+ * /wizards/{wizardId}, which must not grow with the page size or the number of artifacts.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureMockMvc
+class WizardStatementCountTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    WizardRepository wizardRepository;
+
+    @Autowired
+    ArtifactRepository artifactRepository;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Value("${api.endpoint.base-url}")
+    String baseUrl;
+
+    Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        this.statistics = this.entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        this.statistics.clear();
+    }
+
+    @Test
+    void testFindAllWizardsUsesTwoStatementsWhateverThePageSize() throws Exception {
+        //When
+        this.mockMvc.perform(get(this.baseUrl + "/wizards").param("size", "1").accept(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.data", Matchers.hasSize(1)));
+        long statementsForSmallPage = this.statistics.getPrepareStatementCount();
+        this.statistics.clear();
+        this.mockMvc.perform(get(this.baseUrl + "/wizards").param("size", "100").accept(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.data", Matchers.hasSize(3)))
+                .andExpect(jsonPath("$.data[0].numberOfArtifacts").value(2))
+                .andExpect(jsonPath("$.data[2].numberOfArtifacts").value(1));
+
+        //Then the write count for the ETag and the page
+        assertThat(statementsForSmallPage).isEqualTo(2);
+        assertThat(this.statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    void testFindAllWizardsWithArtifactsUsesThreeStatementsWhateverThePageSize() throws Exception {
+        //When
+        this.mockMvc.perform(get(this.baseUrl + "/wizards").param("size", "1").param("include", "artifacts").accept(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.data[0].artifacts", Matchers.hasSize(2)));
+        long statementsForSmallPage = this.statistics.getPrepareStatementCount();
+        this.statistics.clear();
+        this.mockMvc.perform(get(this.baseUrl + "/wizards").param("size", "100").param("include", "artifacts").accept(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.data", Matchers.hasSize(3)))
+                .andExpect(jsonPath("$.data[1].artifacts", Matchers.hasSize(2)))
+                .andExpect(jsonPath("$.data[2].artifacts[0].name").value("The Sword Of Gryffindor"));
+
+        //Then the write count for the ETag, the page and its artifacts
+        assertThat(statementsForSmallPage).isEqualTo(3);
+        assertThat(this.statistics.getPrepareStatementCount()).isEqualTo(3);
+    }
+
+    @Test
+    void testDeleteWizardUsesThreeStatementsWhateverItsNumberOfArtifacts() throws Exception {
+        //Given
+        List<String> smallWizardArtifactIds = artifactIds(1_900_000_000_000_000_000L, 1);
+        List<String> largeWizardArtifactIds = artifactIds(1_900_000_000_000_001_000L, 500);
+        Integer smallWizardId = createWizardWithArtifacts("Small Wizard", smallWizardArtifactIds);
+        Integer largeWizardId = createWizardWithArtifacts("Large Wizard", largeWizardArtifactIds);
+        this.statistics.clear();
+
+        try {
+            //When
+            this.mockMvc.perform(delete(this.baseUrl + "/wizards/" + smallWizardId).accept(MediaType.APPLICATION_JSON))
+                    .andExpect(jsonPath("$.flag").value(true));
+            long statementsForSmallWizard = this.statistics.getPrepareStatementCount();
+            this.statistics.clear();
+            this.mockMvc.perform(delete(this.baseUrl + "/wizards/" + largeWizardId).accept(MediaType.APPLICATION_JSON))
+                    .andExpect(jsonPath("$.flag").value(true));
+            long statementsForLargeWizard = this.statistics.getPrepareStatementCount();
+            long entitiesLoadedForLargeWizard = this.statistics.getEntityLoadCount();
+
+            //Then the unassignment, the delete and the write count
+            assertThat(statementsForSmallWizard).isEqualTo(3);
+            assertThat(statementsForLargeWizard).isEqualTo(3);
+            assertThat(entitiesLoadedForLargeWizard).isZero();
+            assertThat(this.wizardRepository.existsById(largeWizardId)).isFalse();
+            assertThat(this.artifactRepository.findAllById(largeWizardArtifactIds))
+                    .hasSize(500)
+                    .allSatisfy(artifact -> assertThat(artifact.getOwner()).isNull());
+        } finally {
+            // Other tests count the artifacts of DBDataInitializer.
+            this.artifactRepository.deleteAllById(smallWizardArtifactIds);
+            this.artifactRepository.deleteAllById(largeWizardArtifactIds);
+        }
+    }
+
+    private static List<String> artifactIds(long firstId, int count) {
+        return LongStream.range(firstId, firstId + count).mapToObj(String::valueOf).toList();
+    }
+
+    private Integer createWizardWithArtifacts(String name, List<String> artifactIds) {
+        return new TransactionTemplate(this.transactionManager).execute(status -> {
+            Wizard wizard = new Wizard();
+            wizard.setName(name);
+            for (String artifactId : artifactIds) {
+                Artifact artifact = new Artifact();
+                artifact.setId(artifactId);
+                artifact.setName(name + "'s artifact");
+                artifact.setDescription("An artifact of " + name + ".");
+                artifact.setImageUrl("ImageUrl");
+                wizard.addArtifact(artifact);
+            }
+            return this.wizardRepository.save(wizard).getId(); // Cascades to the artifacts
+        });
+    }
+
+}